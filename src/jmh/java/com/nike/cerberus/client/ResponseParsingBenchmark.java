@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import com.nike.cerberus.client.auth.TokenCerberusCredentials;
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
+import com.nike.cerberus.client.model.CerberusListResponse;
+import com.nike.cerberus.client.model.CerberusResponse;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding of read, list and listFiles responses through the public client API. The HTTP client
+ * answers every call from memory, so the numbers cover request building and response parsing only. Run with
+ * {@code -prof gc} to see allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    /**
+     * Number of key/value pairs in a secret, keys in a listing and summaries in a file listing.
+     */
+    @Param({"10", "1000"})
+    public int entries;
+
+    private CerberusClient cerberusClient;
+
+    private byte[] secretJson;
+
+    private byte[] listJson;
+
+    private byte[] listFilesJson;
+
+    @Setup
+    public void setup() {
+        secretJson = secretJson(entries);
+        listJson = listJson(entries);
+        listFilesJson = listFilesJson(entries);
+
+        final OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    final String url = chain.request().url().toString();
+                    final byte[] body = url.contains("list=true") ? listJson
+                            : url.contains("secure-files") ? listFilesJson
+                            : secretJson;
+                    return new Response.Builder()
+                            .request(chain.request())
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(200)
+                            .message("OK")
+                            .body(ResponseBody.create(JSON, body))
+                            .build();
+                })
+                .build();
+        cerberusClient = new CerberusClient("https://localhost",
+                () -> new TokenCerberusCredentials("TOKEN"),
+                httpClient,
+                new Headers.Builder().build());
+    }
+
+    @Benchmark
+    public CerberusResponse read() {
+        return cerberusClient.read("app/secret");
+    }
+
+    @Benchmark
+    public CerberusListResponse list() {
+        return cerberusClient.list("app/");
+    }
+
+    @Benchmark
+    public CerberusListFilesResponse listFiles() {
+        return cerberusClient.listFiles("app/");
+    }
+
+    private static byte[] secretJson(final int entries) {
+        final StringBuilder json = new StringBuilder("{\"request_id\":\"5e9a3b1c\",\"lease_id\":\"\",\"renewable\":false,")
+                .append("\"lease_duration\":3600,\"data\":{");
+        for (int i = 0; i < entries; i++) {
+            json.append(i > 0 ? "," : "")
+                    .append("\"key-").append(i).append("\":\"value-").append(i).append("-8d7f6e5a4b3c2d1e\"");
+        }
+        return json.append("},\"wrap_info\":null,\"warnings\":null,\"auth\":null}").toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] listJson(final int entries) {
+        final StringBuilder json = new StringBuilder("{\"request_id\":\"5e9a3b1c\",\"lease_id\":\"\",\"renewable\":false,")
+                .append("\"lease_duration\":0,\"data\":{\"keys\":[");
+        for (int i = 0; i < entries; i++) {
+            json.append(i > 0 ? "," : "").append("\"secret-").append(i).append(i % 10 == 0 ? "/\"" : "\"");
+        }
+        return json.append("]},\"wrap_info\":null,\"warnings\":null,\"auth\":null}").toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] listFilesJson(final int entries) {
+        final StringBuilder json = new StringBuilder("{\"has_next\":false,\"next_offset\":null,")
+                .append("\"limit\":").append(entries).append(",\"offset\":0,")
+                .append("\"file_count_in_result\":").append(entries).append(",")
+                .append("\"total_file_count\":").append(entries).append(",\"secure_file_summaries\":[");
+        for (int i = 0; i < entries; i++) {
+            json.append(i > 0 ? "," : "")
+                    .append("{\"sdbox_id\":\"3e5c1f2a-6b7d-4c8e-9f0a-1b2c3d4e5f60\",")
+                    .append("\"path\":\"app/files/certificate-").append(i).append(".pem\",")
+                    .append("\"size_in_bytes\":").append(1024 + i).append(",")
+                    .append("\"name\":\"certificate-").append(i).append(".pem\",")
+                    .append("\"created_by\":\"deployer@example.com\",")
+                    .append("\"created_ts\":\"2018-03-14T17:05:22.123Z\",")
+                    .append("\"last_updated_by\":\"deployer@example.com\",")
+                    .append("\"last_updated_ts\":\"2018-06-01T09:41:07.456Z\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import com.nike.cerberus.client.auth.TokenCerberusCredentials;
+import okhttp3.Headers;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Compares the throughput of many concurrent asynchronous reads over HTTP/1.1, which needs a connection per
+ * request in flight, with HTTP/2, which multiplexes them over one connection, against a local MockWebServer. Each
+ * operation is one batch of {@code concurrency} reads; the server can delay its responses to stand in for network
+ * latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportBenchmark {
+
+    private static final String SECRET_JSON = "{\"data\":{\"hello\":\"world\"}}";
+
+    /**
+     * MockWebServer logs every request; keep a reference so the level set below is not garbage collected.
+     */
+    private static final Logger MOCK_WEB_SERVER_LOGGER = Logger.getLogger(MockWebServer.class.getName());
+
+    /**
+     * {@code http1} for HTTP/1.1 or {@code http2} for cleartext HTTP/2 with prior knowledge.
+     */
+    @Param({"http1", "http2"})
+    public String protocol;
+
+    /**
+     * Number of reads in flight at the same time.
+     */
+    @Param({"64", "256"})
+    public int concurrency;
+
+    /**
+     * Delay before the server responds to each read, in milliseconds.
+     */
+    @Param({"0", "5"})
+    public int responseDelayMillis;
+
+    private MockWebServer mockWebServer;
+
+    private CerberusTransport transport;
+
+    private CerberusClient cerberusClient;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        MOCK_WEB_SERVER_LOGGER.setLevel(java.util.logging.Level.WARNING);
+
+        final List<Protocol> protocols = Collections.singletonList(
+                "http2".equals(protocol) ? Protocol.H2_PRIOR_KNOWLEDGE : Protocol.HTTP_1_1);
+
+        mockWebServer = new MockWebServer();
+        mockWebServer.setProtocols(protocols);
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(final RecordedRequest request) {
+                return new MockResponse()
+                        .setResponseCode(200)
+                        .setHeader("Content-Type", "application/json")
+                        .setBody(SECRET_JSON)
+                        .setHeadersDelay(responseDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+        mockWebServer.start();
+
+        final CerberusTransportRegistry registry = new CerberusTransportRegistry(CerberusTransportSettings.builder()
+                .protocols(protocols)
+                .maxIdleConnections(concurrency)
+                .maxRequests(concurrency)
+                .maxRequestsPerHost(concurrency)
+                .build());
+        final String cerberusUrl = mockWebServer.url("/").toString();
+        transport = registry.acquire(cerberusUrl);
+        cerberusClient = new CerberusClient(cerberusUrl,
+                () -> new TokenCerberusCredentials("token"),
+                transport.getHttpClient(),
+                new Headers.Builder().build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        transport.close();
+        mockWebServer.shutdown();
+    }
+
+    @Benchmark
+    public int concurrentReads() {
+        final CompletableFuture<?>[] reads = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            reads[i] = cerberusClient.readAsync("app/sdb/secret-" + i);
+        }
+        CompletableFuture.allOf(reads).join();
+        return reads.length;
+    }
+}
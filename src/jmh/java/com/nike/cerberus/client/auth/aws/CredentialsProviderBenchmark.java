@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.auth.aws;
+
+import com.nike.cerberus.client.auth.CerberusCredentials;
+import com.nike.cerberus.client.auth.TokenCerberusCredentials;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures multi-threaded throughput of {@link BaseAwsCredentialsProvider#getCredentials()} once a token has
+ * been acquired, which is the path every Cerberus request takes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CredentialsProviderBenchmark {
+
+    private BaseAwsCredentialsProvider credentialsProvider;
+
+    @Setup
+    public void setup() {
+        credentialsProvider = new StaticTokenCredentialsProvider();
+        credentialsProvider.getCredentials();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public CerberusCredentials getCredentials_1_thread() {
+        return credentialsProvider.getCredentials();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public CerberusCredentials getCredentials_8_threads() {
+        return credentialsProvider.getCredentials();
+    }
+
+    /**
+     * Hands out a long-lived token without calling Cerberus.
+     */
+    private static class StaticTokenCredentialsProvider extends BaseAwsCredentialsProvider {
+
+        StaticTokenCredentialsProvider() {
+            super("https://localhost");
+        }
+
+        @Override
+        protected void authenticate() {
+            credentials = new TokenCerberusCredentials("TOKEN");
+            expireDateTime = DateTime.now().plusHours(1);
+        }
+    }
+}
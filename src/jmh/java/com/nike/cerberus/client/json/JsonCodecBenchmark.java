@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.json;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.nike.cerberus.client.model.CerberusAuthResponse;
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
+import com.nike.cerberus.client.model.CerberusResponse;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CerberusJsonCodec} implementations on the payloads the client exchanges with Cerberus: a
+ * secret, a secure file listing and an auth response are decoded, and a secret is encoded as a write body. To
+ * compare another codec, add it to {@link #createCodec(String)} and to the {@code codec} parameter values.
+ * Run with {@code -prof gc} to see allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    /**
+     * The client's default codec, and Gson with reflective binding as the client was configured before the model
+     * adapters existed.
+     */
+    @Param({"default", "reflective-gson"})
+    public String codec;
+
+    /**
+     * Number of key/value pairs in the secret and summaries in the file listing.
+     */
+    @Param({"10", "1000"})
+    public int entries;
+
+    private CerberusJsonCodec jsonCodec;
+
+    private byte[] secretJson;
+
+    private byte[] listFilesJson;
+
+    private byte[] authJson;
+
+    private Map<String, String> secretData;
+
+    @Setup
+    public void setup() {
+        jsonCodec = createCodec(codec);
+
+        secretData = new LinkedHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            secretData.put("key-" + i, "value-" + i + "-8d7f6e5a4b3c2d1e");
+        }
+
+        final StringBuilder secret = new StringBuilder("{\"request_id\":\"5e9a3b1c\",\"lease_id\":\"\",")
+                .append("\"renewable\":false,\"lease_duration\":3600,\"data\":")
+                .append(jsonCodec.toJson(secretData))
+                .append(",\"wrap_info\":null,\"warnings\":null,\"auth\":null}");
+        secretJson = secret.toString().getBytes(StandardCharsets.UTF_8);
+
+        final StringBuilder listFiles = new StringBuilder("{\"has_next\":false,\"next_offset\":null,")
+                .append("\"limit\":").append(entries).append(",\"offset\":0,")
+                .append("\"file_count_in_result\":").append(entries).append(",")
+                .append("\"total_file_count\":").append(entries).append(",\"secure_file_summaries\":[");
+        for (int i = 0; i < entries; i++) {
+            listFiles.append(i > 0 ? "," : "")
+                    .append("{\"sdbox_id\":\"3e5c1f2a-6b7d-4c8e-9f0a-1b2c3d4e5f60\",")
+                    .append("\"path\":\"app/files/certificate-").append(i).append(".pem\",")
+                    .append("\"size_in_bytes\":").append(1024 + i).append(",")
+                    .append("\"name\":\"certificate-").append(i).append(".pem\",")
+                    .append("\"created_by\":\"deployer@example.com\",")
+                    .append("\"created_ts\":\"2018-03-14T17:05:22.123Z\",")
+                    .append("\"last_updated_by\":\"deployer@example.com\",")
+                    .append("\"last_updated_ts\":\"2018-06-01T09:41:07.456Z\"}");
+        }
+        listFilesJson = listFiles.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        authJson = ("{\"client_token\":\"5c0a1f7e-2b3d-4e5f-8a9b-0c1d2e3f4a5b\",\"policies\":[\"web\",\"stage\"],"
+                + "\"metadata\":{\"username\":\"arn:aws:iam::111111111111:role/app\",\"is_admin\":\"false\"},"
+                + "\"lease_duration\":3600,\"renewable\":true}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CerberusResponse decodeSecret() throws IOException {
+        return jsonCodec.fromJson(reader(secretJson), CerberusResponse.class);
+    }
+
+    @Benchmark
+    public CerberusListFilesResponse decodeListFiles() throws IOException {
+        return jsonCodec.fromJson(reader(listFilesJson), CerberusListFilesResponse.class);
+    }
+
+    @Benchmark
+    public CerberusAuthResponse decodeAuth() throws IOException {
+        return jsonCodec.fromJson(reader(authJson), CerberusAuthResponse.class);
+    }
+
+    @Benchmark
+    public String encodeSecret() {
+        return jsonCodec.toJson(secretData);
+    }
+
+    private static CerberusJsonCodec createCodec(final String name) {
+        switch (name) {
+            case "default":
+                return new GsonCerberusJsonCodec();
+            case "reflective-gson":
+                return new GsonCerberusJsonCodec(new GsonBuilder()
+                        .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                        .disableHtmlEscaping()
+                        .registerTypeAdapter(DateTime.class,
+                                (JsonDeserializer<DateTime>) (json, typeOfT, context) ->
+                                        new DateTime(json.getAsString()))
+                        .create());
+            default:
+                throw new IllegalArgumentException("Unknown codec: " + name);
+        }
+    }
+
+    private static InputStreamReader reader(final byte[] json) {
+        return new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
+import com.nike.cerberus.client.model.SecureFileSummary;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding a large secure file listing with Gson's reflective binding against the
+ * {@link CerberusTypeAdapterFactory} adapters in each {@link SecureFileListingMode}. Run with {@code -prof gc} to
+ * see allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelParsingBenchmark {
+
+    /**
+     * Number of summaries in the file listing.
+     */
+    @Param({"1000", "10000"})
+    public int summaries;
+
+    private final Gson reflectiveGson = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .disableHtmlEscaping()
+            .registerTypeAdapter(DateTime.class,
+                    (JsonDeserializer<DateTime>) (json, typeOfT, context) -> new DateTime(json.getAsString()))
+            .create();
+
+    private final Gson adapterGson = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .disableHtmlEscaping()
+            .registerTypeAdapterFactory(new CerberusTypeAdapterFactory())
+            .create();
+
+    private final Gson lazyTimestampsGson = new GsonBuilder()
+            .registerTypeAdapterFactory(new CerberusTypeAdapterFactory(SecureFileListingMode.LAZY_TIMESTAMPS))
+            .create();
+
+    private final Gson compactGson = new GsonBuilder()
+            .registerTypeAdapterFactory(new CerberusTypeAdapterFactory(SecureFileListingMode.COMPACT))
+            .create();
+
+    private byte[] listFilesJson;
+
+    @Setup
+    public void setup() {
+        final StringBuilder json = new StringBuilder("{\"has_next\":false,\"next_offset\":null,")
+                .append("\"limit\":").append(summaries).append(",\"offset\":0,")
+                .append("\"file_count_in_result\":").append(summaries).append(",")
+                .append("\"total_file_count\":").append(summaries).append(",\"secure_file_summaries\":[");
+        for (int i = 0; i < summaries; i++) {
+            json.append(i > 0 ? "," : "")
+                    .append("{\"sdbox_id\":\"3e5c1f2a-6b7d-4c8e-9f0a-1b2c3d4e5f60\",")
+                    .append("\"path\":\"app/files/certificate-").append(i).append(".pem\",")
+                    .append("\"size_in_bytes\":").append(1024 + i).append(",")
+                    .append("\"name\":\"certificate-").append(i).append(".pem\",")
+                    .append("\"created_by\":\"deployer@example.com\",")
+                    .append("\"created_ts\":\"2018-03-14T17:05:22.123Z\",")
+                    .append("\"last_updated_by\":\"deployer@example.com\",")
+                    .append("\"last_updated_ts\":\"2018-06-01T09:41:07.456Z\"}");
+        }
+        listFilesJson = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CerberusListFilesResponse reflective() {
+        return reflectiveGson.fromJson(reader(), CerberusListFilesResponse.class);
+    }
+
+    @Benchmark
+    public CerberusListFilesResponse adapters() {
+        return adapterGson.fromJson(reader(), CerberusListFilesResponse.class);
+    }
+
+    @Benchmark
+    public CerberusListFilesResponse lazyTimestamps() {
+        return lazyTimestampsGson.fromJson(reader(), CerberusListFilesResponse.class);
+    }
+
+    @Benchmark
+    public CerberusListFilesResponse compact() {
+        return compactGson.fromJson(reader(), CerberusListFilesResponse.class);
+    }
+
+    /**
+     * Decodes a compact listing and reads the path and size of every file, the typical use of a listing.
+     */
+    @Benchmark
+    public long compactPathsAndSizes() {
+        long checksum = 0;
+        for (SecureFileSummary summary : compact().getSecureFileSummaries()) {
+            checksum += summary.getPath().length() + summary.getSizeInBytes();
+        }
+        return checksum;
+    }
+
+    private InputStreamReader reader() {
+        return new InputStreamReader(new ByteArrayInputStream(listFilesJson), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Runs asynchronous calls for submitted items with at most a fixed number in flight at once.
+ * <p>
+ * Items may be submitted before {@link #seal()} and from within the result callbacks, which allows a call to
+ * schedule follow-up work such as the children of a tree node. The future returned by {@link #seal()} completes
+ * once every submitted item has finished, or exceptionally if a callback throws.
+ * </p>
+ *
+ * @param <T> Type of the submitted items
+ * @param <R> Result type of the call
+ */
+class AsyncFanOut<T, R> {
+
+    private final int maxConcurrency;
+
+    private final Function<T, CompletableFuture<R>> call;
+
+    private final BiConsumer<T, R> onSuccess;
+
+    private final BiConsumer<T, RuntimeException> onFailure;
+
+    private final Queue<T> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    // starts at one so the fan-out cannot complete before it is sealed
+    private final AtomicInteger outstanding = new AtomicInteger(1);
+
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    /**
+     * @param maxConcurrency Maximum number of calls in flight at once
+     * @param call           Starts the asynchronous call for an item
+     * @param onSuccess      Receives each item and its result, possibly concurrently
+     * @param onFailure      Receives each item whose call failed and the failure, possibly concurrently
+     */
+    AsyncFanOut(final int maxConcurrency,
+                final Function<T, CompletableFuture<R>> call,
+                final BiConsumer<T, R> onSuccess,
+                final BiConsumer<T, RuntimeException> onFailure) {
+
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be greater than zero.");
+        }
+
+        this.maxConcurrency = maxConcurrency;
+        this.call = call;
+        this.onSuccess = onSuccess;
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Queues an item and starts its call if a slot is free.
+     *
+     * @param item Item to run the call for
+     */
+    void submit(final T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item cannot be null.");
+        }
+
+        outstanding.incrementAndGet();
+        pending.add(item);
+        drain();
+    }
+
+    /**
+     * Signals that no more items will be submitted from outside the callbacks.
+     *
+     * @return Future that completes once every submitted item has finished
+     */
+    CompletableFuture<Void> seal() {
+        finishOne();
+        return completion;
+    }
+
+    private void drain() {
+        while (!pending.isEmpty() && !completion.isDone()) {
+            final int current = running.get();
+            if (current >= maxConcurrency) {
+                return;
+            }
+            if (!running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            final T item = pending.poll();
+            if (item == null) {
+                running.decrementAndGet();
+                continue;
+            }
+
+            final CompletableFuture<R> future = start(item);
+            if (future.isDone()) {
+                // handle completed calls in this loop so that cached results do not recurse through drain()
+                complete(item, future);
+            } else {
+                future.whenComplete((result, throwable) -> {
+                    complete(item, future);
+                    drain();
+                });
+            }
+        }
+    }
+
+    private CompletableFuture<R> start(final T item) {
+        try {
+            return call.apply(item);
+        } catch (RuntimeException e) {
+            final CompletableFuture<R> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private void complete(final T item, final CompletableFuture<R> future) {
+        try {
+            final R result;
+            try {
+                result = future.join();
+            } catch (CompletionException e) {
+                onFailure.accept(item, unwrap(e));
+                return;
+            } catch (RuntimeException e) {
+                onFailure.accept(item, e);
+                return;
+            }
+            onSuccess.accept(item, result);
+        } catch (RuntimeException | Error e) {
+            completion.completeExceptionally(e);
+        } finally {
+            running.decrementAndGet();
+            finishOne();
+        }
+    }
+
+    private void finishOne() {
+        if (outstanding.decrementAndGet() == 0) {
+            completion.complete(null);
+        }
+    }
+
+    private static RuntimeException unwrap(final CompletionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new CerberusClientException("Unexpected error during asynchronous request.", cause);
+    }
+}
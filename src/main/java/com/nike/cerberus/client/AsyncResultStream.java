@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hands results produced on asynchronous callbacks to a consumer as a blocking {@link Stream}.
+ * <p>
+ * Producers add items and then signal completion or failure exactly once. The stream yields items in the order
+ * they were added, blocks while waiting for more, and rethrows a failure once it reaches it. Closing the stream
+ * marks the source closed so producers can stop starting new work.
+ * </p>
+ * <p>
+ * At most the given capacity of results is buffered: a producer that adds to a full buffer blocks until the
+ * consumer takes a result, which holds back a producer that runs ahead of a slow consumer. Once the stream is
+ * closed, added results are dropped instead.
+ * </p>
+ *
+ * @param <T> Type of the results
+ */
+class AsyncResultStream<T> {
+
+    private static final Object END = new Object();
+
+    private static final long CLOSED_CHECK_INTERVAL_MILLIS = 100;
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * Free slots of the buffer, which only results take so that completion and failure are never held back.
+     */
+    private final Semaphore freeSlots;
+
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param capacity Maximum number of results buffered for the consumer
+     */
+    AsyncResultStream(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be greater than zero.");
+        }
+
+        this.freeSlots = new Semaphore(capacity);
+    }
+
+    /**
+     * Hands a result to the consumer, blocking while the buffer is full.
+     *
+     * @param item Result to hand to the consumer
+     */
+    void add(final T item) {
+        try {
+            while (!freeSlots.tryAcquire(CLOSED_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CerberusClientException("Interrupted while waiting for the consumer of results.", e);
+        }
+        queue.add(item);
+    }
+
+    /**
+     * Signals that no more results will be added.
+     */
+    void complete() {
+        if (finished.compareAndSet(false, true)) {
+            queue.add(END);
+        }
+    }
+
+    /**
+     * Signals that production failed. Results added before the failure are still delivered first.
+     *
+     * @param e Failure to rethrow to the consumer
+     */
+    void fail(final RuntimeException e) {
+        if (finished.compareAndSet(false, true)) {
+            queue.add(new Failure(e));
+        }
+    }
+
+    /**
+     * @return Whether the producer has finished or the consumer has closed the stream
+     */
+    boolean isDone() {
+        return closed || finished.get();
+    }
+
+    /**
+     * @return Stream over the results, which must be consumed on a thread that is allowed to block
+     */
+    Stream<T> stream() {
+        final Spliterator<T> spliterator =
+                Spliterators.spliteratorUnknownSize(new QueueIterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> closed = true);
+    }
+
+    private class QueueIterator implements Iterator<T> {
+
+        private Object next;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = take();
+            }
+            if (next instanceof Failure) {
+                throw ((Failure) next).exception;
+            }
+            return next != END;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T item = (T) next;
+            next = null;
+            freeSlots.release();
+            return item;
+        }
+
+        private Object take() {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CerberusClientException("Interrupted while waiting for results.", e);
+            }
+        }
+    }
+
+    private static final class Failure {
+        private final RuntimeException exception;
+
+        private Failure(final RuntimeException exception) {
+            this.exception = exception;
+        }
+    }
+}
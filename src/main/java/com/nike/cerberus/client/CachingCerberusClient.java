@@ -0,0 +1,543 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
+import com.nike.cerberus.client.json.CerberusJsonCodec;
+import com.nike.cerberus.client.json.GsonCerberusJsonCodec;
+import com.nike.cerberus.client.model.CerberusResponse;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cerberus client that keeps the parsed results of {@link #read(String)} in memory for a configurable TTL.
+ * <p>
+ * Entries are evicted in least-recently-used order once the maximum entry count is reached. Writes and deletes
+ * made through this client invalidate the cached entry for that path, and a read that was already in flight when
+ * the path was invalidated returns its result without caching it. Cached {@link CerberusResponse} objects are
+ * shared between callers and should be treated as read-only.
+ * </p>
+ * <p>
+ * When a max staleness is configured, an expired entry is returned immediately while a single background task
+ * refreshes it. Once an entry is older than its TTL plus the max staleness, reads block on Cerberus again.
+ * </p>
+ * <p>
+ * When calls are guarded by a {@link CerberusResilience} and a read is not permitted because the circuit breaker is
+ * open or the bulkhead is full, the cached entry for the path is returned if it expired no longer ago than the max
+ * staleness while not permitted, see {@link #setMaxStalenessWhileNotPermitted(Duration)}. That limit defaults to
+ * the max staleness, so by default no entry is served that a read would not have served anyway.
+ * </p>
+ */
+public class CachingCerberusClient extends CerberusClient {
+
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(60);
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingCerberusClient.class);
+
+    private static final int DEFAULT_REFRESH_THREADS = 4;
+
+    private static final ThreadPoolExecutor DEFAULT_REFRESH_EXECUTOR = new ThreadPoolExecutor(
+            DEFAULT_REFRESH_THREADS, DEFAULT_REFRESH_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "cerberus-cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        DEFAULT_REFRESH_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private final long ttlNanos;
+
+    private final long maxStalenessNanos;
+
+    private final Executor refreshExecutor;
+
+    private final Map<String, CacheEntry> cache;
+
+    private volatile long maxStalenessWhileNotPermittedNanos;
+
+    /**
+     * Reads of each path that are waiting for Cerberus, guarded by the cache.
+     */
+    private final Map<String, PendingRead> pendingReads = new HashMap<>();
+
+    /**
+     * Constructor that uses the default TTL and maximum entry count.
+     *
+     * @param cerberusUrl         URL for Cerberus
+     * @param credentialsProvider Credential provider for acquiring a token for interacting with Cerberus
+     * @param httpClient          HTTP client for calling Cerberus
+     * @param defaultHeaders      Default HTTP headers to add to every request
+     */
+    public CachingCerberusClient(final String cerberusUrl,
+                                 final CerberusCredentialsProvider credentialsProvider,
+                                 final OkHttpClient httpClient,
+                                 final Headers defaultHeaders) {
+
+        this(cerberusUrl, credentialsProvider, httpClient, defaultHeaders, DEFAULT_TTL, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Explicit constructor that allows for full control over the cache.
+     *
+     * @param cerberusUrl         URL for Cerberus
+     * @param credentialsProvider Credential provider for acquiring a token for interacting with Cerberus
+     * @param httpClient          HTTP client for calling Cerberus
+     * @param defaultHeaders      Default HTTP headers to add to every request
+     * @param ttl                 How long a read result is served from memory before it is fetched again
+     * @param maxEntries          Maximum number of paths to keep in memory
+     */
+    public CachingCerberusClient(final String cerberusUrl,
+                                 final CerberusCredentialsProvider credentialsProvider,
+                                 final OkHttpClient httpClient,
+                                 final Headers defaultHeaders,
+                                 final Duration ttl,
+                                 final int maxEntries) {
+
+        this(cerberusUrl, credentialsProvider, httpClient, defaultHeaders, ttl, Duration.ZERO, maxEntries,
+                DEFAULT_REFRESH_EXECUTOR);
+    }
+
+    /**
+     * Constructor that enables serving stale entries while they are refreshed in the background on a shared
+     * pool of daemon threads.
+     *
+     * @param cerberusUrl         URL for Cerberus
+     * @param credentialsProvider Credential provider for acquiring a token for interacting with Cerberus
+     * @param httpClient          HTTP client for calling Cerberus
+     * @param defaultHeaders      Default HTTP headers to add to every request
+     * @param ttl                 How long a read result is served from memory before it is fetched again
+     * @param maxStaleness        How long after the TTL an expired result may still be served during a refresh
+     * @param maxEntries          Maximum number of paths to keep in memory
+     */
+    public CachingCerberusClient(final String cerberusUrl,
+                                 final CerberusCredentialsProvider credentialsProvider,
+                                 final OkHttpClient httpClient,
+                                 final Headers defaultHeaders,
+                                 final Duration ttl,
+                                 final Duration maxStaleness,
+                                 final int maxEntries) {
+
+        this(cerberusUrl, credentialsProvider, httpClient, defaultHeaders, ttl, maxStaleness, maxEntries,
+                DEFAULT_REFRESH_EXECUTOR);
+    }
+
+    /**
+     * Constructor that enables serving stale entries while they are refreshed in the background.
+     *
+     * @param cerberusUrl         URL for Cerberus
+     * @param credentialsProvider Credential provider for acquiring a token for interacting with Cerberus
+     * @param httpClient          HTTP client for calling Cerberus
+     * @param defaultHeaders      Default HTTP headers to add to every request
+     * @param ttl                 How long a read result is served from memory before it is fetched again
+     * @param maxStaleness        How long after the TTL an expired result may still be served during a refresh
+     * @param maxEntries          Maximum number of paths to keep in memory
+     * @param refreshExecutor     Executor that runs the background refreshes
+     */
+    public CachingCerberusClient(final String cerberusUrl,
+                                 final CerberusCredentialsProvider credentialsProvider,
+                                 final OkHttpClient httpClient,
+                                 final Headers defaultHeaders,
+                                 final Duration ttl,
+                                 final Duration maxStaleness,
+                                 final int maxEntries,
+                                 final Executor refreshExecutor) {
+
+        this(cerberusUrl, credentialsProvider, httpClient, defaultHeaders, ttl, maxStaleness, maxEntries,
+                refreshExecutor, new GsonCerberusJsonCodec());
+    }
+
+    /**
+     * Constructor that allows for full control over the cache and the JSON codec.
+     *
+     * @param cerberusUrl         URL for Cerberus
+     * @param credentialsProvider Credential provider for acquiring a token for interacting with Cerberus
+     * @param httpClient          HTTP client for calling Cerberus
+     * @param defaultHeaders      Default HTTP headers to add to every request
+     * @param ttl                 How long a read result is served from memory before it is fetched again
+     * @param maxStaleness        How long after the TTL an expired result may still be served during a refresh
+     * @param maxEntries          Maximum number of paths to keep in memory
+     * @param refreshExecutor     Executor that runs the background refreshes
+     * @param jsonCodec           Codec for encoding request bodies and decoding response bodies
+     */
+    public CachingCerberusClient(final String cerberusUrl,
+                                 final CerberusCredentialsProvider credentialsProvider,
+                                 final OkHttpClient httpClient,
+                                 final Headers defaultHeaders,
+                                 final Duration ttl,
+                                 final Duration maxStaleness,
+                                 final int maxEntries,
+                                 final Executor refreshExecutor,
+                                 final CerberusJsonCodec jsonCodec) {
+
+        super(cerberusUrl, credentialsProvider, httpClient, defaultHeaders, jsonCodec);
+
+        if (ttl == null || ttl.isNegative()) {
+            throw new IllegalArgumentException("TTL cannot be null or negative.");
+        }
+
+        if (maxStaleness == null || maxStaleness.isNegative()) {
+            throw new IllegalArgumentException("Max staleness cannot be null or negative.");
+        }
+
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Max entries must be greater than zero.");
+        }
+
+        if (refreshExecutor == null) {
+            throw new IllegalArgumentException("Refresh executor cannot be null.");
+        }
+
+        this.ttlNanos = ttl.toNanos();
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.maxStalenessWhileNotPermittedNanos = maxStalenessNanos;
+        this.refreshExecutor = refreshExecutor;
+        this.cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Read operation for a specified path. Results are served from memory until the TTL has elapsed, after which
+     * the data is read from Cerberus again. Within the max staleness window the expired result is returned and
+     * the read happens in the background instead.
+     *
+     * @param path Path to the data
+     * @return Map of the data
+     */
+    @Override
+    public CerberusResponse read(final String path) {
+        final long now = System.nanoTime();
+        final CacheEntry entry = getEntry(path);
+        if (entry != null) {
+            if (!entry.isExpired(now)) {
+                return entry.response;
+            }
+            if (entry.isServableWhileStale(now)) {
+                refreshInBackground(path, entry);
+                return entry.response;
+            }
+        }
+
+        final long generation = startRead(path);
+        final CerberusResponse response;
+        try {
+            response = super.read(path);
+        } catch (CerberusCallNotPermittedException e) {
+            finishRead(path, generation, null);
+            if (!isServableWhileNotPermitted(entry)) {
+                throw e;
+            }
+            LOGGER.warn("Serving cached secret at path {} since the read was not permitted: {}", path, e.getMessage());
+            return entry.response;
+        } catch (RuntimeException e) {
+            finishRead(path, generation, null);
+            throw e;
+        }
+        finishRead(path, generation, new CacheEntry(response, System.nanoTime() + ttlNanos, maxStalenessNanos));
+        return response;
+    }
+
+    /**
+     * Asynchronous variant of {@link #read(String)}. Fresh and servable stale results complete immediately;
+     * otherwise the result of the asynchronous read is cached once it completes.
+     *
+     * @param path Path to the data
+     * @return Future of the data
+     */
+    @Override
+    public CompletableFuture<CerberusResponse> readAsync(final String path) {
+        final long now = System.nanoTime();
+        final CacheEntry entry = getEntry(path);
+        if (entry != null) {
+            if (!entry.isExpired(now)) {
+                return CompletableFuture.completedFuture(entry.response);
+            }
+            if (entry.isServableWhileStale(now)) {
+                refreshInBackground(path, entry);
+                return CompletableFuture.completedFuture(entry.response);
+            }
+        }
+
+        final long generation = startRead(path);
+        final CompletableFuture<CerberusResponse> future;
+        try {
+            future = super.readAsync(path);
+        } catch (RuntimeException e) {
+            finishRead(path, generation, null);
+            throw e;
+        }
+        return future.handle((response, throwable) -> {
+            if (throwable == null) {
+                finishRead(path, generation,
+                        new CacheEntry(response, System.nanoTime() + ttlNanos, maxStalenessNanos));
+                return response;
+            }
+            finishRead(path, generation, null);
+            final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            if (cause instanceof CerberusCallNotPermittedException && isServableWhileNotPermitted(entry)) {
+                LOGGER.warn("Serving cached secret at path {} since the read was not permitted: {}", path,
+                        cause.getMessage());
+                return entry.response;
+            }
+            throw throwable instanceof CompletionException
+                    ? (CompletionException) throwable : new CompletionException(throwable);
+        });
+    }
+
+    /**
+     * Write operation for a specified path and data set. Invalidates any cached data for the path.
+     *
+     * @param path Path for where to store the data
+     * @param data Data to be stored
+     */
+    @Override
+    public void write(final String path, final Map<String, String> data) {
+        try {
+            super.write(path, data);
+        } finally {
+            invalidate(path);
+        }
+    }
+
+    /**
+     * Delete operation for a specified path. Invalidates any cached data for the path.
+     *
+     * @param path Path to data to be deleted
+     */
+    @Override
+    public void delete(final String path) {
+        try {
+            super.delete(path);
+        } finally {
+            invalidate(path);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #write(String, Map)}. Invalidates any cached data for the path once the
+     * write completes.
+     *
+     * @param path Path for where to store the data
+     * @param data Data to be stored
+     * @return Future that completes once the data is stored
+     */
+    @Override
+    public CompletableFuture<Void> writeAsync(final String path, final Map<String, String> data) {
+        return super.writeAsync(path, data).whenComplete((result, throwable) -> invalidate(path));
+    }
+
+    /**
+     * Asynchronous variant of {@link #delete(String)}. Invalidates any cached data for the path once the delete
+     * completes.
+     *
+     * @param path Path to data to be deleted
+     * @return Future that completes once the data is deleted
+     */
+    @Override
+    public CompletableFuture<Void> deleteAsync(final String path) {
+        return super.deleteAsync(path).whenComplete((result, throwable) -> invalidate(path));
+    }
+
+    /**
+     * @return How long after its TTL a cached entry may be served while reads are not permitted
+     */
+    public Duration getMaxStalenessWhileNotPermitted() {
+        return Duration.ofNanos(maxStalenessWhileNotPermittedNanos);
+    }
+
+    /**
+     * Sets how long after its TTL a cached entry may still be served when a read is not permitted because the
+     * circuit breaker of a {@link CerberusResilience} is open or its bulkhead is full, e.g. to ride out a Cerberus
+     * outage on data that is hours old. Defaults to the max staleness. Past this limit the
+     * {@link CerberusCallNotPermittedException} is thrown.
+     *
+     * @param maxStaleness How long after its TTL an entry may be served while reads are not permitted
+     */
+    public void setMaxStalenessWhileNotPermitted(final Duration maxStaleness) {
+        if (maxStaleness == null || maxStaleness.isNegative()) {
+            throw new IllegalArgumentException("Max staleness cannot be null or negative.");
+        }
+
+        this.maxStalenessWhileNotPermittedNanos = maxStaleness.toNanos();
+    }
+
+    /**
+     * Removes the cached data for a path, if present.
+     *
+     * @param path Path to remove from the cache
+     */
+    public void invalidate(final String path) {
+        synchronized (cache) {
+            cache.remove(path);
+            final PendingRead pendingRead = pendingReads.get(path);
+            if (pendingRead != null) {
+                pendingRead.generation++;
+            }
+        }
+    }
+
+    /**
+     * Removes all cached data.
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+            for (PendingRead pendingRead : pendingReads.values()) {
+                pendingRead.generation++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of paths currently held in the cache, including expired entries not yet replaced.
+     *
+     * @return Number of cached paths
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private CacheEntry getEntry(final String path) {
+        synchronized (cache) {
+            return cache.get(path);
+        }
+    }
+
+    private boolean isServableWhileNotPermitted(final CacheEntry entry) {
+        return entry != null && System.nanoTime() - entry.expiresAtNanos < maxStalenessWhileNotPermittedNanos;
+    }
+
+    /**
+     * Registers a read of the path that is about to call Cerberus.
+     *
+     * @return Generation of the path, which {@link #invalidate(String)} advances while the read is pending
+     */
+    private long startRead(final String path) {
+        synchronized (cache) {
+            final PendingRead pendingRead = pendingReads.computeIfAbsent(path, key -> new PendingRead());
+            pendingRead.readers++;
+            return pendingRead.generation;
+        }
+    }
+
+    /**
+     * Ends a read started by {@link #startRead(String)}, caching its result unless the path was invalidated while
+     * the read was pending, since the result may then predate a write or delete.
+     *
+     * @param entry Result to cache, or null if the read failed
+     */
+    private void finishRead(final String path, final long generation, final CacheEntry entry) {
+        synchronized (cache) {
+            final PendingRead pendingRead = pendingReads.get(path);
+            if (entry != null && pendingRead.generation == generation) {
+                cache.put(path, entry);
+            }
+            if (--pendingRead.readers == 0) {
+                pendingReads.remove(path);
+            }
+        }
+    }
+
+    /**
+     * Starts a background read for the path unless one is already running for the entry. The result only
+     * replaces the entry if it has not been invalidated or replaced in the meantime.
+     */
+    private void refreshInBackground(final String path, final CacheEntry staleEntry) {
+        if (!staleEntry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    final CerberusResponse response = super.read(path);
+                    final CacheEntry freshEntry =
+                            new CacheEntry(response, System.nanoTime() + ttlNanos, maxStalenessNanos);
+                    synchronized (cache) {
+                        if (cache.get(path) == staleEntry) {
+                            cache.put(path, freshEntry);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.warn(String.format("Failed to refresh cached secret at path %s, serving stale data", path), e);
+                } finally {
+                    staleEntry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            staleEntry.refreshing.set(false);
+            LOGGER.warn("Background refresh rejected for path {}", path);
+        }
+    }
+
+    /**
+     * Number of reads of a path waiting for Cerberus and the number of times the path was invalidated meanwhile.
+     */
+    private static final class PendingRead {
+        private int readers;
+        private long generation;
+    }
+
+    /**
+     * Cached read result and the monotonic times at which it expires and stops being servable while stale.
+     */
+    private static final class CacheEntry {
+        private final CerberusResponse response;
+        private final long expiresAtNanos;
+        private final long staleUntilNanos;
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        private CacheEntry(final CerberusResponse response, final long expiresAtNanos, final long maxStalenessNanos) {
+            this.response = response;
+            this.expiresAtNanos = expiresAtNanos;
+            this.staleUntilNanos = expiresAtNanos + maxStalenessNanos;
+        }
+
+        private boolean isExpired(final long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+
+        private boolean isServableWhileStale(final long nowNanos) {
+            return nowNanos - staleUntilNanos < 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+/**
+ * Thrown without calling Cerberus when the circuit breaker for the operation type is open or its bulkhead is full.
+ */
+public class CerberusCallNotPermittedException extends CerberusClientException {
+    private static final long serialVersionUID = -4806012740368458711L;
+
+    private final CerberusOperationType operationType;
+
+    /**
+     * Constructs the exception for the operation type that was not permitted.
+     *
+     * @param message       Message
+     * @param operationType Type of the operation that was not permitted
+     * @param t             Underlying exception
+     */
+    public CerberusCallNotPermittedException(final String message,
+                                             final CerberusOperationType operationType,
+                                             final Throwable t) {
+        super(message, t);
+        this.operationType = operationType;
+    }
+
+    /**
+     * Returns the type of the operation that was not permitted.
+     *
+     * @return Operation type
+     */
+    public CerberusOperationType getOperationType() {
+        return operationType;
+    }
+}
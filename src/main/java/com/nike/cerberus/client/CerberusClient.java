@@ -16,71 +16,112 @@
 
 package com.nike.cerberus.client;
 
-import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
 import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
 import com.nike.cerberus.client.http.HttpHeader;
 import com.nike.cerberus.client.http.HttpMethod;
 import com.nike.cerberus.client.http.HttpStatus;
+import com.nike.cerberus.client.json.CerberusJsonCodec;
+import com.nike.cerberus.client.json.CerberusJsonException;
+import com.nike.cerberus.client.json.GsonCerberusJsonCodec;
+import com.nike.cerberus.client.model.CerberusBulkReadResponse;
 import com.nike.cerberus.client.model.CerberusListFilesResponse;
 import com.nike.cerberus.client.model.CerberusListResponse;
 import com.nike.cerberus.client.model.CerberusResponse;
-import static io.github.resilience4j.decorators.Decorators.ofSupplier;
-import io.github.resilience4j.core.IntervalFunction;
-import io.github.resilience4j.retry.Retry;
-import io.github.resilience4j.retry.RetryConfig;
+import com.nike.cerberus.client.model.SecureFileSummary;
+import com.nike.cerberus.client.model.adapter.CompactSecureFileSummaryList;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.Headers;
 import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
 import org.apache.commons.lang3.StringUtils;
-import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLException;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
 import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
-import java.time.temporal.ChronoUnit;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Client for interacting with a Cerberus.
  */
-public class CerberusClient {
+public class CerberusClient implements Closeable {
 
     public static final String SECRET_PATH_PREFIX = "v1/secret/";
 
     public static final String SECURE_FILE_PATH_PREFIX = "v1/secure-file/";
 
+    public static final String HEALTHCHECK_PATH = "healthcheck";
+
     public static final MediaType DEFAULT_MEDIA_TYPE = MediaType.parse("application/json; charset=utf-8");
 
     protected static final int DEFAULT_NUM_RETRIES = 3;
 
     protected static final int DEFAULT_RETRY_INTERVAL_IN_MILLIS = 200;
 
-    private static final RetryConfig RETRY_CONFIG =
-            RetryConfig.<Response>custom()
-                    .maxAttempts(DEFAULT_NUM_RETRIES)
-                    .retryOnResult( response -> response.code() >= 500 && response.code() <= 599)
-                    .intervalFunction(
-                            IntervalFunction.ofExponentialBackoff(Duration.of(250, ChronoUnit.MILLIS)))
-                    .build();
+    private static final long STREAM_CHUNK_SIZE = 8192;
+
+    private static final Predicate<Response> RETRY_ON_RESULT = response ->
+            response.code() == HttpStatus.TOO_MANY_REQUESTS || (response.code() >= 500 && response.code() <= 599);
 
-    private final Retry RETRY = Retry.of(this.getClass().getName(), RETRY_CONFIG);
+    private static final ScheduledThreadPoolExecutor ASYNC_RETRY_SCHEDULER = new ScheduledThreadPoolExecutor(1,
+            runnable -> {
+                Thread thread = new Thread(runnable, "cerberus-async-retry");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        ASYNC_RETRY_SCHEDULER.setKeepAliveTime(60, TimeUnit.SECONDS);
+        ASYNC_RETRY_SCHEDULER.allowCoreThreadTimeOut(true);
+        ASYNC_RETRY_SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
 
     private final CerberusCredentialsProvider credentialsProvider;
 
@@ -90,20 +131,52 @@ public class CerberusClient {
 
     private final Headers defaultHeaders;
 
-    private final Gson gson = new GsonBuilder()
-            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-            .disableHtmlEscaping()
-            .registerTypeAdapter(DateTime.class,
-                    (JsonDeserializer<DateTime>) (json, typeOfT, context) -> new DateTime(json.getAsString()))
-            .create();
+    private final CerberusJsonCodec jsonCodec;
+
+    private final SingleFlight singleFlight = new SingleFlight();
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    private volatile CerberusTransport transport;
+
+    private volatile HedgingPolicy hedgingPolicy;
+
+    private volatile CerberusResilience resilience;
+
+    /**
+     * The HTTP client with {@link #acquireAsyncPermit(Interceptor.Chain)} in front of its interceptors, for
+     * asynchronous calls once a {@link CerberusResilience} has been set.
+     */
+    private volatile OkHttpClient guardedHttpClient;
+
+    private volatile CerberusRateLimiter rateLimiter;
+
+    private volatile Map<CerberusOperationType, CerberusRetryPolicy> retryPolicies =
+            retryPolicies(CerberusRetryPolicy.builder().maxAttempts(DEFAULT_NUM_RETRIES).build());
+
     public CerberusClient(final String cerberusUrl,
                           final CerberusCredentialsProvider credentialsProvider,
                           final OkHttpClient httpClient,
                           final Headers defaultHeaders) {
 
+        this(cerberusUrl, credentialsProvider, httpClient, defaultHeaders, new GsonCerberusJsonCodec());
+    }
+
+    /**
+     * Explicit constructor that also allows the JSON codec used for request and response bodies to be replaced.
+     *
+     * @param cerberusUrl          URL for Cerberus
+     * @param credentialsProvider  Credential provider for acquiring a token for interacting with Cerberus
+     * @param httpClient           HTTP client for calling Cerberus
+     * @param defaultHeaders       Headers to add to every HTTP request
+     * @param jsonCodec            Codec for encoding request bodies and decoding response bodies
+     */
+    public CerberusClient(final String cerberusUrl,
+                          final CerberusCredentialsProvider credentialsProvider,
+                          final OkHttpClient httpClient,
+                          final Headers defaultHeaders,
+                          final CerberusJsonCodec jsonCodec) {
+
         if (cerberusUrl == null) {
             throw new IllegalArgumentException("Cerberus URL cannot be null.");
         }
@@ -120,10 +193,15 @@ public class CerberusClient {
             throw new IllegalArgumentException("Default headers cannot be null.");
         }
 
+        if (jsonCodec == null) {
+            throw new IllegalArgumentException("JSON codec cannot be null.");
+        }
+
         this.url = cerberusUrl;
         this.credentialsProvider = credentialsProvider;
         this.httpClient = httpClient;
         this.defaultHeaders = defaultHeaders;
+        this.jsonCodec = jsonCodec;
     }
 
     /**
@@ -153,6 +231,7 @@ public class CerberusClient {
         this.credentialsProvider = credentialsProvider;
         this.httpClient = httpClient;
         this.defaultHeaders = new Headers.Builder().build();
+        this.jsonCodec = new GsonCerberusJsonCodec();
     }
 
     /**
@@ -160,6 +239,7 @@ public class CerberusClient {
      * array of strings that represents the keys at that path. If Cerberus returns an unexpected response code, a
      * {@link CerberusServerException} will be thrown with the code and error details.  If an unexpected I/O error is
      * encountered, a {@link CerberusClientException} will be thrown wrapping the underlying exception.
+     * Concurrent calls for the same path share a single request and result.
      * <p>
      * See https://www.cerberusproject.io/docs/secrets/generic/index.html for details on what the list operation returns.
      * </p>
@@ -172,24 +252,141 @@ public class CerberusClient {
         final HttpUrl httpUrl = buildUrl(SECRET_PATH_PREFIX, path + "?list=true");
         logger.debug("list: requestUrl={}", httpUrl);
 
-        final Response response = ofSupplier(
-                    () -> execute(httpUrl, HttpMethod.GET, null)
-            )
-            .withRetry(RETRY)
-            .decorate()
-            .get();
+        return singleFlight.execute("list " + httpUrl, () -> {
+            final Response response = executeWithRetry(CerberusOperationType.LIST, () -> executeIdempotent(httpUrl));
 
-        if (response.code() == HttpStatus.NOT_FOUND) {
-            response.close();
-            return new CerberusListResponse();
-        } else if (response.code() != HttpStatus.OK) {
-            parseAndThrowApiErrorResponse(response);
+            return toListResponse(response);
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link #list(String)}. The request is enqueued on the HTTP client's dispatcher and
+     * retried without blocking a thread. The returned future completes exceptionally with the same exceptions the
+     * blocking method would throw.
+     *
+     * @param path Path to the data
+     * @return Future of the keys at that path
+     */
+    public CompletableFuture<CerberusListResponse> listAsync(final String path) {
+        final HttpUrl httpUrl = buildUrl(SECRET_PATH_PREFIX, path + "?list=true");
+        logger.debug("listAsync: requestUrl={}", httpUrl);
+
+        return executeAsync(httpUrl, HttpMethod.GET, null).thenApply(this::toListResponse);
+    }
+
+    /**
+     * Walks every folder under the root path and streams the full path of each secret found. Folders are listed
+     * concurrently, with as many requests in flight as the HTTP client's dispatcher allows per host.
+     *
+     * @param rootPath Path of the folder to walk, e.g. an SDB path
+     * @return Stream of secret paths, see {@link #walk(String, int)}
+     */
+    public Stream<String> walk(final String rootPath) {
+        return walk(rootPath, getMaxRequestsPerHost());
+    }
+
+    /**
+     * Walks every folder under the root path and streams the full path of each secret found. Folders are listed
+     * concurrently with at most the given number of requests in flight, capped at the HTTP client dispatcher's
+     * max requests per host.
+     * <p>
+     * Paths are streamed as they are discovered, in no particular order. The stream blocks while waiting for
+     * listings and throws the first error encountered once the paths found before it have been consumed. At most
+     * the max concurrency of paths is buffered, so listings are held back while the consumer falls behind. Closing
+     * the stream stops any further folders from being listed.
+     * </p>
+     *
+     * @param rootPath       Path of the folder to walk, e.g. an SDB path
+     * @param maxConcurrency Maximum number of requests in flight at once
+     * @return Stream of secret paths
+     */
+    public Stream<String> walk(final String rootPath, final int maxConcurrency) {
+        return traverse(rootPath, maxConcurrency, false).map(Map.Entry::getKey);
+    }
+
+    /**
+     * Walks every folder under the root path and reads every secret found, streaming each path with its data.
+     *
+     * @param rootPath Path of the folder to read, e.g. an SDB path
+     * @return Stream of secret paths and their data, see {@link #readTree(String, int)}
+     */
+    public Stream<Map.Entry<String, CerberusResponse>> readTree(final String rootPath) {
+        return readTree(rootPath, getMaxRequestsPerHost());
+    }
+
+    /**
+     * Walks every folder under the root path and reads every secret found, streaming each path with its data.
+     * Listings and reads share the same bound of at most the given number of requests in flight, capped at the
+     * HTTP client dispatcher's max requests per host.
+     * <p>
+     * Entries are streamed as they are read, in no particular order. The stream blocks while waiting for
+     * requests and throws the first error encountered once the entries read before it have been consumed. At most
+     * the max concurrency of entries is buffered, so requests are held back while the consumer falls behind.
+     * Closing the stream stops any further requests from being started.
+     * </p>
+     *
+     * @param rootPath       Path of the folder to read, e.g. an SDB path
+     * @param maxConcurrency Maximum number of requests in flight at once
+     * @return Stream of secret paths and their data
+     */
+    public Stream<Map.Entry<String, CerberusResponse>> readTree(final String rootPath, final int maxConcurrency) {
+        return traverse(rootPath, maxConcurrency, true);
+    }
+
+    private Stream<Map.Entry<String, CerberusResponse>> traverse(final String rootPath,
+                                                                 final int maxConcurrency,
+                                                                 final boolean readSecrets) {
+        if (rootPath == null) {
+            throw new IllegalArgumentException("Root path cannot be null.");
         }
 
-        final Type mapType = new TypeToken<Map<String, Object>>() {
-        }.getType();
-        final Map<String, Object> rootData = parseResponseBody(response, mapType);
-        return gson.fromJson(gson.toJson(rootData.get("data")), CerberusListResponse.class);
+        final String rootFolder = StringUtils.appendIfMissing(rootPath, "/");
+        final int concurrency = readSecrets
+                ? bulkConcurrency(maxConcurrency, CerberusOperationType.LIST, CerberusOperationType.READ)
+                : bulkConcurrency(maxConcurrency, CerberusOperationType.LIST);
+        logger.debug("traverse: rootPath={}, maxConcurrency={}, readSecrets={}", rootFolder, concurrency, readSecrets);
+
+        final AsyncResultStream<Map.Entry<String, CerberusResponse>> results = new AsyncResultStream<>(concurrency);
+        final AtomicReference<AsyncFanOut<String, Object>> fanOut = new AtomicReference<>();
+        fanOut.set(new AsyncFanOut<>(concurrency,
+                path -> isFolder(path)
+                        ? listAsync(path).thenApply(Object.class::cast)
+                        : readAsync(path).thenApply(Object.class::cast),
+                (path, result) -> {
+                    if (results.isDone()) {
+                        return;
+                    }
+                    if (result instanceof CerberusListResponse) {
+                        for (String key : ((CerberusListResponse) result).getKeys()) {
+                            final String childPath = path + key;
+                            if (isFolder(childPath) || readSecrets) {
+                                fanOut.get().submit(childPath);
+                            } else {
+                                results.add(new AbstractMap.SimpleImmutableEntry<>(childPath, null));
+                            }
+                        }
+                    } else {
+                        results.add(new AbstractMap.SimpleImmutableEntry<>(path, (CerberusResponse) result));
+                    }
+                },
+                (path, e) -> results.fail(e)));
+
+        fanOut.get().submit(rootFolder);
+        fanOut.get().seal().whenComplete((done, throwable) -> {
+            if (throwable == null) {
+                results.complete();
+            } else if (throwable instanceof RuntimeException) {
+                results.fail((RuntimeException) throwable);
+            } else {
+                results.fail(new CerberusClientException("Unexpected error while walking " + rootFolder, throwable));
+            }
+        });
+
+        return results.stream();
+    }
+
+    private static boolean isFolder(final String path) {
+        return path.endsWith("/");
     }
 
     /**
@@ -214,6 +411,7 @@ public class CerberusClient {
      * of secure file summaries. If Cerberus returns an unexpected response code, a {@link CerberusServerException}
      * will be thrown with the code and error details.  If an unexpected I/O error is
      * encountered, a {@link CerberusClientException} will be thrown wrapping the underlying exception.
+     * Concurrent calls for the same page share a single request and result.
      * <p>
      * See https://www.github.com/Nike-Inc/cerberus-management-service/blob/master/API.md for details on what the
      * list files operation returns.
@@ -228,25 +426,179 @@ public class CerberusClient {
         final HttpUrl httpUrl = buildUrl("v1/secure-files/", path, limit, offset);
 
         logger.debug("list: requestUrl={}, limit={}, offset={}", httpUrl, limit, offset);
-        final Response response = ofSupplier(
-                () -> execute(httpUrl, HttpMethod.GET, null)
-        )
-                .withRetry(RETRY)
-                .decorate()
-                .get();
+        return singleFlight.execute("listFiles " + httpUrl, () -> {
+            final Response response = executeWithRetry(CerberusOperationType.LIST, () -> executeIdempotent(httpUrl));
 
-        if (response.code() != HttpStatus.OK) {
-            parseAndThrowApiErrorResponse(response);
+            return toListFilesResponse(response);
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link #listFiles(String)}.
+     *
+     * @param path Path to the data
+     * @return Future of the file metadata at that path
+     */
+    public CompletableFuture<CerberusListFilesResponse> listFilesAsync(final String path) {
+        return listFilesAsync(path, null, null);
+    }
+
+    /**
+     * Asynchronous variant of {@link #listFiles(String, Integer, Integer)}. The request is enqueued on the HTTP
+     * client's dispatcher and retried without blocking a thread.
+     *
+     * @param path   Path to the data
+     * @param limit  The max number of results to return
+     * @param offset The number offset of results to return
+     * @return Future of the file metadata at that path
+     */
+    public CompletableFuture<CerberusListFilesResponse> listFilesAsync(final String path,
+                                                                       final Integer limit,
+                                                                       final Integer offset) {
+        final HttpUrl httpUrl = buildUrl("v1/secure-files/", path, limit, offset);
+        logger.debug("listFilesAsync: requestUrl={}, limit={}, offset={}", httpUrl, limit, offset);
+
+        return executeAsync(httpUrl, HttpMethod.GET, null).thenApply(this::toListFilesResponse);
+    }
+
+    /**
+     * Returns the summaries of every secure file at the specified path, paging through the listing
+     * automatically with Cerberus' default page size.
+     *
+     * @param path Path to the data
+     * @return Iterable over every secure file summary, see {@link #iterateFiles(String, Integer)}
+     */
+    public Iterable<SecureFileSummary> iterateFiles(final String path) {
+        return iterateFiles(path, null);
+    }
+
+    /**
+     * Returns the summaries of every secure file at the specified path, paging through the listing
+     * automatically. Each iterator requests the first page when it is created and then requests each following
+     * page as soon as the previous one arrives, while its summaries are still being consumed.
+     * <p>
+     * Iterators block while waiting for a page. Errors from a page request are thrown from the iterator once it
+     * reaches that page.
+     * </p>
+     *
+     * @param path     Path to the data
+     * @param pageSize The max number of results to request per page, or null for Cerberus' default
+     * @return Iterable over every secure file summary
+     */
+    public Iterable<SecureFileSummary> iterateFiles(final String path, final Integer pageSize) {
+        return () -> new SecureFileIterator(offset -> listFilesAsync(path, pageSize, offset));
+    }
+
+    /**
+     * Streams the summaries of every secure file at the specified path, paging through the listing
+     * automatically with Cerberus' default page size.
+     *
+     * @param path Path to the data
+     * @return Stream of every secure file summary, see {@link #iterateFiles(String, Integer)}
+     */
+    public Stream<SecureFileSummary> streamFiles(final String path) {
+        return streamFiles(path, null);
+    }
+
+    /**
+     * Streams the summaries of every secure file at the specified path, paging through the listing
+     * automatically and prefetching the next page as described in {@link #iterateFiles(String, Integer)}.
+     *
+     * @param path     Path to the data
+     * @param pageSize The max number of results to request per page, or null for Cerberus' default
+     * @return Stream of every secure file summary
+     */
+    public Stream<SecureFileSummary> streamFiles(final String path, final Integer pageSize) {
+        return StreamSupport.stream(iterateFiles(path, pageSize).spliterator(), false);
+    }
+
+    /**
+     * Lists every secure file at the specified path in a single response, requesting the pages after the first
+     * concurrently. See {@link #listAllFilesAsync(String, Integer, int)}.
+     *
+     * @param path Path to the data
+     * @return Metadata for every secure file at the specified path
+     */
+    public CerberusListFilesResponse listAllFiles(final String path) {
+        return listAllFiles(path, null, getMaxRequestsPerHost());
+    }
+
+    /**
+     * Lists every secure file at the specified path in a single response, requesting the pages after the first
+     * concurrently. See {@link #listAllFilesAsync(String, Integer, int)}.
+     *
+     * @param path           Path to the data
+     * @param pageSize       The max number of results to request per page, or null for Cerberus' default
+     * @param maxConcurrency Maximum number of page requests in flight at once
+     * @return Metadata for every secure file at the specified path
+     */
+    public CerberusListFilesResponse listAllFiles(final String path, final Integer pageSize, final int maxConcurrency) {
+        try {
+            return listAllFilesAsync(path, pageSize, maxConcurrency).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CerberusClientException("Unexpected error while listing files.", e.getCause());
         }
+    }
 
-        return parseResponseBody(response, CerberusListFilesResponse.class);
+    /**
+     * Lists every secure file at the specified path in a single response. The first page reports the total file
+     * count and page size, so the offsets of all remaining pages are requested at once with at most the given
+     * number in flight, capped at the HTTP client dispatcher's max requests per host. The pages are merged back
+     * in offset order.
+     * <p>
+     * As with paging by hand, files added or removed while the pages are being read may be missed or repeated.
+     * If any page fails, the returned future completes exceptionally with that page's error.
+     * </p>
+     *
+     * @param path           Path to the data
+     * @param pageSize       The max number of results to request per page, or null for Cerberus' default
+     * @param maxConcurrency Maximum number of page requests in flight at once
+     * @return Future of the metadata for every secure file at the specified path
+     */
+    public CompletableFuture<CerberusListFilesResponse> listAllFilesAsync(final String path,
+                                                                          final Integer pageSize,
+                                                                          final int maxConcurrency) {
+        final int concurrency = bulkConcurrency(maxConcurrency, CerberusOperationType.LIST);
+
+        return listFilesAsync(path, pageSize, 0).thenCompose(firstPage -> {
+            final int limit = firstPage.getLimit();
+            if (!firstPage.isHasNext() || limit < 1) {
+                return CompletableFuture.completedFuture(firstPage);
+            }
+
+            final int pageCount = (firstPage.getTotalFileCount() + limit - 1) / limit;
+            logger.debug("listAllFiles: path={}, pages={}, maxConcurrency={}", path, pageCount, concurrency);
+
+            final CerberusListFilesResponse[] pages = new CerberusListFilesResponse[pageCount];
+            pages[0] = firstPage;
+            final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+            final AsyncFanOut<Integer, CerberusListFilesResponse> fanOut = new AsyncFanOut<>(concurrency,
+                    pageIndex -> failure.get() == null
+                            ? listFilesAsync(path, limit, pageIndex * limit)
+                            : CompletableFuture.completedFuture(null),
+                    (pageIndex, page) -> pages[pageIndex] = page,
+                    (pageIndex, e) -> failure.compareAndSet(null, e));
+            for (int pageIndex = 1; pageIndex < pageCount; pageIndex++) {
+                fanOut.submit(pageIndex);
+            }
+
+            return fanOut.seal().thenApply(done -> {
+                if (failure.get() != null) {
+                    throw failure.get();
+                }
+                return mergePages(pages);
+            });
+        });
     }
 
     /**
      * Read operation for a specified path.  Will return a {@link Map} of the data stored at the specified path.
      * If Cerberus returns an unexpected response code, a {@link CerberusServerException} will be thrown with the code
      * and error details.  If an unexpected I/O error is encountered, a {@link CerberusClientException} will be thrown
-     * wrapping the underlying exception.
+     * wrapping the underlying exception. Concurrent calls for the same path share a single request and result.
      *
      * @param path Path to the data
      * @return Map of the data
@@ -255,25 +607,106 @@ public class CerberusClient {
         final HttpUrl httpUrl = buildUrl(SECRET_PATH_PREFIX, path);
         logger.debug("read: requestUrl={}", httpUrl);
 
-        final Response response = ofSupplier(
-                () -> execute(httpUrl, HttpMethod.GET, null)
-        )
-        .withRetry(RETRY)
-        .decorate()
-        .get();
+        return singleFlight.execute("read " + httpUrl, () -> {
+            final Response response = executeWithRetry(CerberusOperationType.READ, () -> executeIdempotent(httpUrl));
 
-        if (response.code() != HttpStatus.OK) {
-            parseAndThrowApiErrorResponse(response);
+            return toReadResponse(response);
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link #read(String)}. The request is enqueued on the HTTP client's dispatcher and
+     * retried without blocking a thread. The returned future completes exceptionally with the same exceptions the
+     * blocking method would throw.
+     *
+     * @param path Path to the data
+     * @return Future of the data
+     */
+    public CompletableFuture<CerberusResponse> readAsync(final String path) {
+        final HttpUrl httpUrl = buildUrl(SECRET_PATH_PREFIX, path);
+        logger.debug("readAsync: requestUrl={}", httpUrl);
+
+        return executeAsync(httpUrl, HttpMethod.GET, null).thenApply(this::toReadResponse);
+    }
+
+    /**
+     * Reads many paths concurrently, with as many requests in flight as the HTTP client's dispatcher allows per
+     * host. A failure to read one path does not stop the others; it is recorded in the returned response instead.
+     *
+     * @param paths Paths to the data
+     * @return Data and failures for each distinct path
+     */
+    public CerberusBulkReadResponse readAll(final Collection<String> paths) {
+        return readAll(paths, getMaxRequestsPerHost());
+    }
+
+    /**
+     * Reads many paths concurrently with at most the given number of requests in flight. The limit is capped at
+     * the HTTP client dispatcher's max requests per host, as further requests would only queue in the dispatcher.
+     *
+     * @param paths          Paths to the data
+     * @param maxConcurrency Maximum number of reads in flight at once
+     * @return Data and failures for each distinct path
+     */
+    public CerberusBulkReadResponse readAll(final Collection<String> paths, final int maxConcurrency) {
+        try {
+            return readAllAsync(paths, maxConcurrency).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CerberusClientException("Unexpected error while reading paths.", e.getCause());
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #readAll(Collection, int)}.
+     *
+     * @param paths          Paths to the data
+     * @param maxConcurrency Maximum number of reads in flight at once
+     * @return Future of the data and failures for each distinct path
+     */
+    public CompletableFuture<CerberusBulkReadResponse> readAllAsync(final Collection<String> paths,
+                                                                    final int maxConcurrency) {
+        if (paths == null) {
+            throw new IllegalArgumentException("Paths cannot be null.");
         }
 
-        return parseResponseBody(response, CerberusResponse.class);
+        for (String path : paths) {
+            if (path == null) {
+                throw new IllegalArgumentException("Paths cannot contain null.");
+            }
+        }
+
+        final Set<String> distinctPaths = new LinkedHashSet<>(paths);
+        final int concurrency = bulkConcurrency(maxConcurrency, CerberusOperationType.READ);
+        logger.debug("readAll: paths={}, maxConcurrency={}", distinctPaths.size(), concurrency);
+
+        final Map<String, CerberusResponse> responses = new ConcurrentHashMap<>();
+        final Map<String, RuntimeException> failures = new ConcurrentHashMap<>();
+        final AsyncFanOut<String, CerberusResponse> fanOut =
+                new AsyncFanOut<>(concurrency, this::readAsync, responses::put, failures::put);
+        distinctPaths.forEach(fanOut::submit);
+
+        return fanOut.seal().thenApply(done -> {
+            final CerberusBulkReadResponse bulkResponse = new CerberusBulkReadResponse();
+            for (String path : distinctPaths) {
+                if (responses.containsKey(path)) {
+                    bulkResponse.getResponses().put(path, responses.get(path));
+                } else {
+                    bulkResponse.getFailures().put(path, failures.get(path));
+                }
+            }
+            return bulkResponse;
+        });
     }
 
     /**
      * Read the binary contents of the file at the specified path. Will return the file contents stored at the specified path.
      * If Cerberus returns an unexpected response code, a {@link CerberusServerException} will be thrown with the code
      * and error details.  If an unexpected I/O error is encountered, a {@link CerberusClientException} will be thrown
-     * wrapping the underlying exception.
+     * wrapping the underlying exception. Concurrent calls for the same path share a single request; each caller
+     * receives its own copy of the contents.
      *
      * @param path Path to the data
      * @return File contents
@@ -282,18 +715,114 @@ public class CerberusClient {
         final HttpUrl httpUrl = buildUrl(SECURE_FILE_PATH_PREFIX, path);
         logger.debug("read: requestUrl={}", httpUrl);
 
-        final Response response = ofSupplier(
-                () -> execute(httpUrl, HttpMethod.GET, null)
-        )
-                .withRetry(RETRY)
-                .decorate()
-                .get();
+        return singleFlight.execute("readFileAsBytes " + httpUrl, () -> {
+            final Response response = executeWithRetry(CerberusOperationType.READ, () -> executeIdempotent(httpUrl));
 
-        if (response.code() != HttpStatus.OK) {
-            parseAndThrowApiErrorResponse(response);
+            return toFileContents(response);
+        }, byte[]::clone);
+    }
+
+    /**
+     * Asynchronous variant of {@link #readFileAsBytes(String)}. The request is enqueued on the HTTP client's
+     * dispatcher and retried without blocking a thread.
+     *
+     * @param path Path to the data
+     * @return Future of the file contents
+     */
+    public CompletableFuture<byte[]> readFileAsBytesAsync(final String path) {
+        final HttpUrl httpUrl = buildUrl(SECURE_FILE_PATH_PREFIX, path);
+        logger.debug("readFileAsBytesAsync: requestUrl={}", httpUrl);
+
+        return executeAsync(httpUrl, HttpMethod.GET, null).thenApply(this::toFileContents);
+    }
+
+    /**
+     * Streams the binary contents of the file at the specified path to the output stream, copying in fixed-size
+     * chunks so that memory use does not grow with the size of the file. The output stream is not closed.
+     * If Cerberus returns an unexpected response code, a {@link CerberusServerException} will be thrown with the
+     * code and error details.  If an I/O error is encountered while downloading or writing, a
+     * {@link CerberusClientException} will be thrown wrapping the underlying exception.
+     *
+     * @param path         Path to the data
+     * @param outputStream Stream to write the file contents to
+     * @return Number of bytes written
+     */
+    public long readFile(final String path, final OutputStream outputStream) {
+        if (outputStream == null) {
+            throw new IllegalArgumentException("Output stream cannot be null.");
         }
 
-        return responseBodyAsBytes(response);
+        try (Response response = openFile(path)) {
+            final BufferedSource source = response.body().source();
+            final Buffer chunk = new Buffer();
+            long total = 0;
+            long read;
+            while ((read = source.read(chunk, STREAM_CHUNK_SIZE)) != -1) {
+                chunk.writeTo(outputStream);
+                total += read;
+            }
+            return total;
+        } catch (IOException e) {
+            throw toClientException(e);
+        }
+    }
+
+    /**
+     * Downloads the binary contents of the file at the specified path to a local file, writing through a
+     * {@link FileChannel} in fixed-size chunks so that memory use does not grow with the size of the file. The
+     * contents are written to a temporary file in the same directory, which replaces the target once the
+     * download has completed, so a failed download never leaves a partial file behind.
+     * If Cerberus returns an unexpected response code, a {@link CerberusServerException} will be thrown with the
+     * code and error details.  If an I/O error is encountered while downloading or writing, a
+     * {@link CerberusClientException} will be thrown wrapping the underlying exception.
+     *
+     * @param path   Path to the data
+     * @param target Local file to write the contents to, replaced if it exists
+     * @return Number of bytes written
+     */
+    public long readFileTo(final String path, final Path target) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target cannot be null.");
+        }
+
+        Path tempFile = null;
+        try (Response response = openFile(path)) {
+            final Path directory = target.toAbsolutePath().getParent();
+            tempFile = Files.createTempFile(directory, "." + target.getFileName(), ".part");
+
+            final BufferedSource source = response.body().source();
+            long total = 0;
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                long transferred;
+                while ((transferred = channel.transferFrom(source, total, STREAM_CHUNK_SIZE)) > 0) {
+                    total += transferred;
+                }
+                channel.force(false);
+            }
+
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tempFile = null;
+            return total;
+        } catch (IOException e) {
+            throw toClientException(e);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Opens a stream over the binary contents of the file at the specified path. The caller must close the
+     * returned stream to release the underlying connection.
+     * If Cerberus returns an unexpected response code, a {@link CerberusServerException} will be thrown with the
+     * code and error details.  If an unexpected I/O error is encountered, a {@link CerberusClientException} will
+     * be thrown wrapping the underlying exception; I/O errors while reading the stream are thrown as
+     * {@link IOException}.
+     *
+     * @param path Path to the data
+     * @return Stream of the file contents
+     */
+    public InputStream readFileAsStream(final String path) {
+        return openFile(path).body().byteStream();
     }
 
     /**
@@ -308,16 +837,24 @@ public class CerberusClient {
         final HttpUrl httpUrl = buildUrl(SECRET_PATH_PREFIX, path);
         logger.debug("write: requestUrl={}", httpUrl);
 
-        final Response response = ofSupplier(
-                () -> execute(httpUrl, HttpMethod.POST, data)
-        )
-                .withRetry(RETRY)
-                .decorate()
-                .get();
+        final Response response = executeWithRetry(CerberusOperationType.WRITE, () -> execute(httpUrl, HttpMethod.POST, data));
 
-        if (response.code() != HttpStatus.NO_CONTENT) {
-            parseAndThrowApiErrorResponse(response);
-        }
+        checkNoContentResponse(response);
+    }
+
+    /**
+     * Asynchronous variant of {@link #write(String, Map)}. The request is enqueued on the HTTP client's
+     * dispatcher and retried without blocking a thread.
+     *
+     * @param path Path for where to store the data
+     * @param data Data to be stored
+     * @return Future that completes once the data is stored
+     */
+    public CompletableFuture<Void> writeAsync(final String path, final Map<String, String> data) {
+        final HttpUrl httpUrl = buildUrl(SECRET_PATH_PREFIX, path);
+        logger.debug("writeAsync: requestUrl={}", httpUrl);
+
+        return executeAsync(httpUrl, HttpMethod.POST, data).thenAccept(this::checkNoContentResponse);
     }
 
     /**
@@ -329,54 +866,144 @@ public class CerberusClient {
      * @param contents File contents to be stored
      */
     public void writeFile(final String path, final byte[] contents) {
-        final String fileName = StringUtils.substringAfterLast(path, "/");
-        final HttpUrl httpUrl = buildUrl(SECURE_FILE_PATH_PREFIX, path);
-        logger.debug("write: requestUrl={}", httpUrl);
-
-        RequestBody requestBody = new MultipartBody.Builder()
-                .setType(MultipartBody.FORM)
-                .addFormDataPart("file-content", fileName,
-                        RequestBody.create(MediaType.parse("application/octet-stream"), contents))
-                .build();
-
-        Request request = new Request.Builder()
-                .url(httpUrl)
-                .headers(defaultHeaders)
-                .addHeader(HttpHeader.CERBERUS_TOKEN, credentialsProvider.getCredentials().getToken())
-                .addHeader(HttpHeader.ACCEPT, DEFAULT_MEDIA_TYPE.toString())
-                .post(requestBody)
-                .build();
+        writeFile(path, FileRequestBodies.ofBytes(contents));
+    }
 
-        final Response response = execute(request);
+    /**
+     * Write operation for file at specified path with the contents of a local file. The file is streamed through
+     * read-only memory mappings rather than loaded onto the heap, and is re-read if the upload is retried.
+     * If Cerberus returns an unexpected response code, a {@link CerberusServerException} will be thrown with the
+     * code and error details.  If an unexpected I/O error is encountered, a {@link CerberusClientException} will
+     * be thrown wrapping the underlying exception.
+     *
+     * @param path Path for where to store the data
+     * @param file Local file whose contents are to be stored
+     */
+    public void writeFile(final String path, final Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null.");
+        }
 
-        if (response.code() != HttpStatus.NO_CONTENT) {
-            parseAndThrowApiErrorResponse(response);
+        try {
+            writeFile(path, FileRequestBodies.ofPath(file));
+        } catch (IOException e) {
+            throw toClientException(e);
         }
     }
 
     /**
-     * Delete operation for a file path.  If Cerberus returns an unexpected response code, a
-     * {@link CerberusServerException} will be thrown with the code and error details.  If an unexpected I/O
-     * error is encountered, a {@link CerberusClientException} will be thrown wrapping the underlying exception.
+     * Write operation for file at specified path with the contents of a channel, from its current position to its
+     * end. The contents are streamed through read-only memory mappings rather than loaded onto the heap, and are
+     * re-read if the upload is retried. The channel is left open and its position is not changed.
+     * If Cerberus returns an unexpected response code, a {@link CerberusServerException} will be thrown with the
+     * code and error details.  If an unexpected I/O error is encountered, a {@link CerberusClientException} will
+     * be thrown wrapping the underlying exception.
      *
-     * @param path Path to file to be deleted
+     * @param path    Path for where to store the data
+     * @param channel Channel whose remaining contents are to be stored
      */
-    public void deleteFile(final String path) {
-        final HttpUrl httpUrl = buildUrl(SECURE_FILE_PATH_PREFIX, path);
-        logger.debug("delete: requestUrl={}", httpUrl);
-
-        final Response response = ofSupplier(
-                () -> execute(httpUrl, HttpMethod.DELETE, null)
-        )
-                .withRetry(RETRY)
-                .decorate()
-                .get();
+    public void writeFile(final String path, final FileChannel channel) {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel cannot be null.");
+        }
 
-        if (response.code() != HttpStatus.NO_CONTENT) {
-            parseAndThrowApiErrorResponse(response);
+        try {
+            writeFile(path, FileRequestBodies.ofChannel(channel));
+        } catch (IOException e) {
+            throw toClientException(e);
         }
     }
 
+    /**
+     * Write operation for file at specified path with the contents of a stream of known length. The stream is
+     * copied to the request as it is read rather than loaded onto the heap. Since a stream cannot be replayed, the
+     * upload is attempted only once. The stream is not closed.
+     * If Cerberus returns an unexpected response code, a {@link CerberusServerException} will be thrown with the
+     * code and error details.  If an unexpected I/O error is encountered, including the stream ending before
+     * the given length, a {@link CerberusClientException} will be thrown wrapping the underlying exception.
+     *
+     * @param path          Path for where to store the data
+     * @param contents      Stream of the contents to be stored
+     * @param contentLength Exact number of bytes to read from the stream
+     */
+    public void writeFile(final String path, final InputStream contents, final long contentLength) {
+        if (contents == null) {
+            throw new IllegalArgumentException("Contents cannot be null.");
+        }
+
+        if (contentLength < 0) {
+            throw new IllegalArgumentException("Content length cannot be negative.");
+        }
+
+        writeFile(path, FileRequestBodies.ofStream(contents, contentLength));
+    }
+
+    /**
+     * Asynchronous variant of {@link #writeFile(String, byte[])}. The request is enqueued on the HTTP client's
+     * dispatcher and retried without blocking a thread.
+     *
+     * @param path     Path for where to store the data
+     * @param contents File contents to be stored
+     * @return Future that completes once the file is stored
+     */
+    public CompletableFuture<Void> writeFileAsync(final String path, final byte[] contents) {
+        final HttpUrl httpUrl = buildUrl(SECURE_FILE_PATH_PREFIX, path);
+        logger.debug("writeFileAsync: requestUrl={}", httpUrl);
+
+        final RequestBody fileBody = FileRequestBodies.ofBytes(contents);
+        return executeAsync(() -> buildWriteFileRequest(httpUrl, path, fileBody),
+                getRetryPolicy(CerberusOperationType.WRITE).getMaxAttempts())
+                .thenAccept(this::checkNoContentResponse);
+    }
+
+    /**
+     * Uploads the file body, retrying it unless the body can only be written once.
+     */
+    private void writeFile(final String path, final RequestBody fileBody) {
+        final HttpUrl httpUrl = buildUrl(SECURE_FILE_PATH_PREFIX, path);
+        logger.debug("write: requestUrl={}", httpUrl);
+
+        final Response response;
+        if (fileBody.isOneShot()) {
+            response = execute(buildWriteFileRequest(httpUrl, path, fileBody));
+        } else {
+            response = executeWithRetry(CerberusOperationType.WRITE,
+                    () -> execute(buildWriteFileRequest(httpUrl, path, fileBody)));
+        }
+
+        checkNoContentResponse(response);
+    }
+
+    /**
+     * Delete operation for a file path.  If Cerberus returns an unexpected response code, a
+     * {@link CerberusServerException} will be thrown with the code and error details.  If an unexpected I/O
+     * error is encountered, a {@link CerberusClientException} will be thrown wrapping the underlying exception.
+     *
+     * @param path Path to file to be deleted
+     */
+    public void deleteFile(final String path) {
+        final HttpUrl httpUrl = buildUrl(SECURE_FILE_PATH_PREFIX, path);
+        logger.debug("delete: requestUrl={}", httpUrl);
+
+        final Response response = executeWithRetry(CerberusOperationType.DELETE, () -> execute(httpUrl, HttpMethod.DELETE, null));
+
+        checkNoContentResponse(response);
+    }
+
+    /**
+     * Asynchronous variant of {@link #deleteFile(String)}. The request is enqueued on the HTTP client's
+     * dispatcher and retried without blocking a thread.
+     *
+     * @param path Path to file to be deleted
+     * @return Future that completes once the file is deleted
+     */
+    public CompletableFuture<Void> deleteFileAsync(final String path) {
+        final HttpUrl httpUrl = buildUrl(SECURE_FILE_PATH_PREFIX, path);
+        logger.debug("deleteFileAsync: requestUrl={}", httpUrl);
+
+        return executeAsync(httpUrl, HttpMethod.DELETE, null).thenAccept(this::checkNoContentResponse);
+    }
+
     /**
      * Delete operation for a specified path.  If Cerberus returns an unexpected response code, a
      * {@link CerberusServerException} will be thrown with the code and error details.  If an unexpected I/O
@@ -388,16 +1015,61 @@ public class CerberusClient {
         final HttpUrl httpUrl = buildUrl(SECRET_PATH_PREFIX, path);
         logger.debug("delete: requestUrl={}", httpUrl);
 
-        final Response response = ofSupplier(
-                () -> execute(httpUrl, HttpMethod.DELETE, null)
-        )
-                .withRetry(RETRY)
-                .decorate()
-                .get();
+        final Response response = executeWithRetry(CerberusOperationType.DELETE, () -> execute(httpUrl, HttpMethod.DELETE, null));
 
-        if (response.code() != HttpStatus.NO_CONTENT) {
-            parseAndThrowApiErrorResponse(response);
+        checkNoContentResponse(response);
+    }
+
+    /**
+     * Asynchronous variant of {@link #delete(String)}. The request is enqueued on the HTTP client's dispatcher
+     * and retried without blocking a thread.
+     *
+     * @param path Path to data to be deleted
+     * @return Future that completes once the data is deleted
+     */
+    public CompletableFuture<Void> deleteAsync(final String path) {
+        final HttpUrl httpUrl = buildUrl(SECRET_PATH_PREFIX, path);
+        logger.debug("deleteAsync: requestUrl={}", httpUrl);
+
+        return executeAsync(httpUrl, HttpMethod.DELETE, null).thenAccept(this::checkNoContentResponse);
+    }
+
+    /**
+     * Warms the client up so that the first operations do not wait on connection setup and authentication. The
+     * given number of connections are opened to Cerberus in parallel, each with a request to the unauthenticated
+     * health check, which also completes the DNS lookup and TLS handshake, while the first token is fetched from
+     * the credentials provider. At most the HTTP client's max requests per host connect at the same time and the
+     * connection pool keeps at most its max idle connections, so asking for more connections has no effect.
+     * <p>
+     * The returned future completes once all connections are open and the token has been fetched, or
+     * exceptionally if any of them failed. The connections are returned to the pool whatever the health check
+     * responded.
+     * </p>
+     *
+     * @param connections Number of connections to open
+     * @return Future that completes when the client is warm
+     */
+    public CompletableFuture<Void> warmUp(final int connections) {
+        if (connections < 0) {
+            throw new IllegalArgumentException("Connections cannot be negative.");
         }
+
+        final HttpUrl httpUrl = buildUrl("", HEALTHCHECK_PATH);
+        logger.debug("warmUp: requestUrl={}, connections={}", httpUrl, connections);
+
+        final CompletableFuture<?>[] tasks = new CompletableFuture<?>[connections + 1];
+        // the provider may block on STS, so it runs on the dispatcher's threads rather than the caller's
+        tasks[0] = CompletableFuture.runAsync(credentialsProvider::getCredentials,
+                httpClient.dispatcher().executorService());
+        final Request request = new Request.Builder()
+                .url(httpUrl)
+                .headers(defaultHeaders)
+                .get()
+                .build();
+        for (int i = 1; i <= connections; i++) {
+            tasks[i] = executeAsync(() -> request, 1).thenAccept(Response::close);
+        }
+        return CompletableFuture.allOf(tasks);
     }
 
     /**
@@ -419,9 +1091,23 @@ public class CerberusClient {
     /**
      * Gets the Gson object used for serializing and de-serializing requests.
      * @return Gson object
+     * @throws IllegalStateException If the client was configured with a JSON codec that is not backed by Gson
+     * @deprecated Use {@link #getJsonCodec()}
      */
+    @Deprecated
     public Gson getGson() {
-        return gson;
+        if (jsonCodec instanceof GsonCerberusJsonCodec) {
+            return ((GsonCerberusJsonCodec) jsonCodec).getGson();
+        }
+        throw new IllegalStateException("The configured JSON codec is not backed by Gson.");
+    }
+
+    /**
+     * Returns the codec used for serializing and de-serializing request and response bodies.
+     * @return The configured JSON codec
+     */
+    public CerberusJsonCodec getJsonCodec() {
+        return jsonCodec;
     }
 
     /**
@@ -432,6 +1118,130 @@ public class CerberusClient {
         return defaultHeaders;
     }
 
+    /**
+     * Releases the shared HTTP transport of a client created by {@link CerberusClientFactory}. Clients built
+     * around an HTTP client passed in by the caller hold nothing to release. The client must not be used after
+     * it is closed.
+     */
+    @Override
+    public void close() {
+        final CerberusTransport transport = this.transport;
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    /**
+     * @return The policy reads are hedged by, or null if they are not hedged
+     */
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     * Opts the blocking idempotent reads, {@link #read(String)}, {@link #list(String)},
+     * {@link #listFiles(String, Integer, Integer)} and {@link #readFileAsBytes(String)}, into hedging: a read that is
+     * not answered within the policy's delay is sent a second time, the first response is used and the other
+     * request is cancelled. The second request is only sent while the read's circuit breaker is closed and takes
+     * its own permit from the rate limiter, if one is set, without waiting for it. Hedging is off by default.
+     *
+     * @param hedgingPolicy Policy to hedge reads by, or null to stop hedging
+     */
+    public void setHedgingPolicy(final HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    /**
+     * @return The circuit breakers and bulkheads calls are guarded by, or null if they are not guarded
+     */
+    public CerberusResilience getResilience() {
+        return resilience;
+    }
+
+    /**
+     * Guards every call to Cerberus, including each retry, with the circuit breaker and bulkhead of its
+     * {@link CerberusOperationType}. While a circuit breaker is open or a bulkhead is full, calls fail fast with a
+     * {@link CerberusCallNotPermittedException} instead of being retried. Calls are not guarded by default; the
+     * same instance may be shared between clients so that they trip together.
+     *
+     * @param resilience Circuit breakers and bulkheads to guard calls with, or null to stop guarding them
+     */
+    public void setResilience(final CerberusResilience resilience) {
+        if (resilience != null && guardedHttpClient == null) {
+            guardedHttpClient = guardedHttpClient(httpClient);
+        }
+        this.resilience = resilience;
+    }
+
+    /**
+     * @return The limiter requests are held to a target rate by, or null if they are not limited
+     */
+    public CerberusRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Holds every request to Cerberus, including each retry, to the limiter's target rate. A 429 or 503 response
+     * with a Retry-After header pauses the limiter for that long, so that throttling shows up as latency of the
+     * requests that follow rather than as errors. Requests are not limited by default; the same instance may be
+     * shared between clients so that they share the rate.
+     *
+     * @param rateLimiter Limiter to hold requests to, or null to stop limiting them
+     */
+    public void setRateLimiter(final CerberusRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * @param operationType Operation type
+     * @return The policy calls of the operation type are retried by
+     */
+    public CerberusRetryPolicy getRetryPolicy(final CerberusOperationType operationType) {
+        return retryPolicies.get(operationType);
+    }
+
+    /**
+     * Retries calls of every operation type by the given policy, which replaces the default policy of
+     * {@value #DEFAULT_NUM_RETRIES} attempts with full jitter. Each operation type gets a retry budget of its own
+     * with the policy's budget settings, so that e.g. failing writes do not use up the retries of reads.
+     *
+     * @param retryPolicy Retry policy for all operation types
+     */
+    public void setRetryPolicy(final CerberusRetryPolicy retryPolicy) {
+        if (retryPolicy == null) {
+            throw new IllegalArgumentException("Retry policy cannot be null.");
+        }
+
+        this.retryPolicies = retryPolicies(retryPolicy);
+    }
+
+    /**
+     * Retries calls of the operation type by the given policy, e.g. to retry reads more eagerly than writes. The
+     * operation type uses the policy's retry budget, so a policy set for several operation types shares its budget
+     * between them.
+     *
+     * @param operationType Operation type
+     * @param retryPolicy   Retry policy for the operation type
+     */
+    public void setRetryPolicy(final CerberusOperationType operationType, final CerberusRetryPolicy retryPolicy) {
+        if (operationType == null || retryPolicy == null) {
+            throw new IllegalArgumentException("Operation type and retry policy cannot be null.");
+        }
+
+        synchronized (this) {
+            final Map<CerberusOperationType, CerberusRetryPolicy> retryPolicies = new EnumMap<>(this.retryPolicies);
+            retryPolicies.put(operationType, retryPolicy);
+            this.retryPolicies = retryPolicies;
+        }
+    }
+
+    /**
+     * Hands this client the transport reference its HTTP client came from, to be released by {@link #close()}.
+     */
+    void releaseOnClose(final CerberusTransport transport) {
+        this.transport = transport;
+    }
+
     /**
      * Builds the full URL for preforming an operation against Cerberus.
      *
@@ -490,18 +1300,42 @@ public class CerberusClient {
      * @return Response from the server
      */
     protected Response execute(final HttpUrl httpUrl, final String method, final Object requestBody) {
-        try {
-            Request request = buildRequest(httpUrl, method, requestBody);
+        return execute(buildRequest(httpUrl, method, requestBody));
+    }
 
-            return httpClient.newCall(request).execute();
-        } catch (IOException e) {
-            if (e instanceof SSLException
-                    && e.getMessage() != null
-                    && e.getMessage().contains("Unrecognized SSL message, plaintext connection?")) {
-                throw new CerberusClientException("I/O error while communicating with Cerberus. Unrecognized SSL message may be due to a web proxy e.g. AnyConnect", e);
-            } else {
-                throw new CerberusClientException("I/O error while communicating with Cerberus.", e);
+    /**
+     * Executes a GET request, hedged if a {@link HedgingPolicy} is set.
+     *
+     * @param httpUrl The URL to execute the request against
+     * @return Response from the server
+     */
+    protected Response executeIdempotent(final HttpUrl httpUrl) {
+        final HedgingPolicy hedgingPolicy = this.hedgingPolicy;
+        if (hedgingPolicy == null) {
+            return execute(httpUrl, HttpMethod.GET, null);
+        }
+
+        final Request request = buildRequest(httpUrl, HttpMethod.GET, null);
+        awaitRateLimit(request);
+        final CerberusResilience.Permit permit = acquirePermit(request);
+        final CompletableFuture<Response> future =
+                HedgedCall.start(httpClient, request, hedgingPolicy, () -> mayHedge(request), ASYNC_RETRY_SCHEDULER);
+        try {
+            final Response response = future.get();
+            permit.onResponse(response);
+            pauseIfThrottled(response);
+            return response;
+        } catch (InterruptedException e) {
+            permit.release();
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CerberusClientException("Interrupted while waiting for Cerberus.", e);
+        } catch (ExecutionException e) {
+            permit.onFailure(e.getCause());
+            if (e.getCause() instanceof IOException) {
+                throw toClientException((IOException) e.getCause());
             }
+            throw new CerberusClientException("Error while communicating with Cerberus.", e.getCause());
         }
     }
 
@@ -512,17 +1346,393 @@ public class CerberusClient {
      * @return Response from the server
      */
     protected Response execute(final Request request) {
+        awaitRateLimit(request);
+        final CerberusResilience.Permit permit = acquirePermit(request);
         try {
-            return httpClient.newCall(request).execute();
+            final Response response = httpClient.newCall(request).execute();
+            permit.onResponse(response);
+            pauseIfThrottled(response);
+            return response;
         } catch (IOException e) {
-            if (e instanceof SSLException
-                    && e.getMessage() != null
-                    && e.getMessage().contains("Unrecognized SSL message, plaintext connection?")) {
-                throw new CerberusClientException("I/O error while communicating with Cerberus. Unrecognized SSL message may be due to a web proxy e.g. AnyConnect", e);
-            } else {
-                throw new CerberusClientException("I/O error while communicating with Cerberus.", e);
+            permit.onFailure(e);
+            throw toClientException(e);
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Enqueues the HTTP request based on the input parameters. Throttled requests, server errors and I/O failures
+     * are retried with the same attempts and backoff as the blocking operations, but the waits are scheduled
+     * rather than slept.
+     *
+     * @param httpUrl     The URL to execute the request against
+     * @param method      The HTTP method for the request
+     * @param requestBody The request body of the HTTP request
+     * @return Future of the response from the server
+     */
+    protected CompletableFuture<Response> executeAsync(final HttpUrl httpUrl,
+                                                       final String method,
+                                                       final Object requestBody) {
+        return executeAsync(() -> buildRequest(httpUrl, method, requestBody),
+                getRetryPolicy(CerberusOperationType.of(method, httpUrl)).getMaxAttempts());
+    }
+
+    /**
+     * Enqueues the HTTP request built by the supplier, retrying throttled requests, server errors and I/O failures
+     * up to the given number of attempts. The request is rebuilt for every attempt so that each one carries a
+     * current token.
+     *
+     * @param requestSupplier Builds the HTTP request to be made
+     * @param maxAttempts     Maximum number of attempts, including the first
+     * @return Future of the response from the server
+     */
+    protected CompletableFuture<Response> executeAsync(final Supplier<Request> requestSupplier, final int maxAttempts) {
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        enqueue(requestSupplier, 1, maxAttempts, null, future);
+        return future;
+    }
+
+    private void enqueue(final Supplier<Request> requestSupplier,
+                         final int attempt,
+                         final int maxAttempts,
+                         final CerberusRetryPolicy.Backoff previousBackoff,
+                         final CompletableFuture<Response> future) {
+        if (future.isDone()) {
+            return;
+        }
+
+        final Request request;
+        final long waitNanos;
+        try {
+            request = requestSupplier.get();
+            waitNanos = reserveRateLimit(request);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        if (waitNanos == 0) {
+            send(request, requestSupplier, attempt, maxAttempts, previousBackoff, future);
+            return;
+        }
+
+        // the wait for the rate limiter is scheduled rather than slept, like the wait between retries
+        try {
+            ASYNC_RETRY_SCHEDULER.schedule(
+                    () -> send(request, requestSupplier, attempt, maxAttempts, previousBackoff, future),
+                    waitNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new CerberusClientException("Unable to schedule request.", e));
+        }
+    }
+
+    private void send(final Request request,
+                      final Supplier<Request> requestSupplier,
+                      final int attempt,
+                      final int maxAttempts,
+                      final CerberusRetryPolicy.Backoff previousBackoff,
+                      final CompletableFuture<Response> future) {
+        if (future.isDone()) {
+            return;
+        }
+
+        final Call call;
+        final AsyncPermit asyncPermit = new AsyncPermit();
+        final CerberusRetryPolicy retryPolicy;
+        try {
+            retryPolicy = getRetryPolicy(CerberusOperationType.of(request));
+            final OkHttpClient guardedHttpClient = this.guardedHttpClient;
+            call = guardedHttpClient == null
+                    ? httpClient.newCall(request)
+                    : guardedHttpClient.newCall(request.newBuilder().tag(AsyncPermit.class, asyncPermit).build());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        final CerberusRetryPolicy.Backoff backoff =
+                previousBackoff != null ? previousBackoff : retryPolicy.newBackoff();
+
+        future.whenComplete((response, throwable) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(final Call call, final IOException e) {
+                if (e instanceof NotPermittedException) {
+                    future.completeExceptionally(e.getCause());
+                    return;
+                }
+                final CerberusResilience.Permit permit = asyncPermit.permit;
+                if (call.isCanceled()) {
+                    permit.release();
+                } else {
+                    permit.onFailure(e);
+                }
+                // the failure takes from the retry budget even if it was the last attempt
+                if (!call.isCanceled() && retryPolicy.onFailure() && attempt < maxAttempts) {
+                    scheduleRetry(requestSupplier, attempt, maxAttempts, backoff, backoff.nextDelayNanos(), future);
+                } else {
+                    future.completeExceptionally(toClientException(e));
+                }
+            }
+
+            @Override
+            public void onResponse(final Call call, final Response response) {
+                asyncPermit.permit.onResponse(response);
+                pauseIfThrottled(response);
+                if (!RETRY_ON_RESULT.test(response)) {
+                    retryPolicy.onSuccess();
+                } else if (retryPolicy.onFailure() && attempt < maxAttempts) {
+                    final long delayNanos = backoff.nextDelayNanos(retryAfter(response));
+                    if (delayNanos >= 0) {
+                        response.close();
+                        scheduleRetry(requestSupplier, attempt, maxAttempts, backoff, delayNanos, future);
+                        return;
+                    }
+                }
+                if (!future.complete(response)) {
+                    response.close();
+                }
+            }
+        });
+    }
+
+    private void scheduleRetry(final Supplier<Request> requestSupplier,
+                               final int attempt,
+                               final int maxAttempts,
+                               final CerberusRetryPolicy.Backoff backoff,
+                               final long delayNanos,
+                               final CompletableFuture<Response> future) {
+        final long delayInMillis = TimeUnit.NANOSECONDS.toMillis(delayNanos);
+        logger.debug("Retrying asynchronous request in {} ms, attempt {} of {}", delayInMillis, attempt + 1, maxAttempts);
+        try {
+            ASYNC_RETRY_SCHEDULER.schedule(() -> enqueue(requestSupplier, attempt + 1, maxAttempts, backoff, future),
+                    delayInMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new CerberusClientException("Unable to schedule retry of request.", e));
+        }
+    }
+
+    /**
+     * Returns the HTTP client dispatcher's max requests per host, which bounds the useful concurrency of bulk
+     * operations.
+     *
+     * @return Max requests per host
+     */
+    protected int getMaxRequestsPerHost() {
+        return httpClient.dispatcher().getMaxRequestsPerHost();
+    }
+
+    /**
+     * Makes the attempt, retrying I/O errors, 429 and 5xx responses by the retry policy of the operation type.
+     */
+    private Response executeWithRetry(final CerberusOperationType operationType, final Supplier<Response> attempt) {
+        try {
+            return getRetryPolicy(operationType).execute(attempt::get, RETRY_ON_RESULT, CerberusClient::retryAfter);
+        } catch (IOException e) {
+            // the attempts map I/O errors to CerberusClientException themselves
+            throw toClientException(e);
+        }
+    }
+
+    private static Map<CerberusOperationType, CerberusRetryPolicy> retryPolicies(final CerberusRetryPolicy policy) {
+        final Map<CerberusOperationType, CerberusRetryPolicy> policies = new EnumMap<>(CerberusOperationType.class);
+        for (CerberusOperationType operationType : CerberusOperationType.values()) {
+            policies.put(operationType, policy.withOwnRetryBudget());
+        }
+        return policies;
+    }
+
+    /**
+     * Waits for the rate limiter's permit for the request if requests are limited.
+     */
+    private void awaitRateLimit(final Request request) {
+        final long waitNanos = reserveRateLimit(request);
+        if (waitNanos == 0) {
+            return;
+        }
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CerberusClientException("Interrupted while waiting for the rate limiter.", e);
+        }
+    }
+
+    /**
+     * Takes the rate limiter's permit for the request if requests are limited.
+     *
+     * @return How long the request must wait before it is sent
+     */
+    private long reserveRateLimit(final Request request) {
+        final CerberusRateLimiter rateLimiter = this.rateLimiter;
+        if (rateLimiter == null) {
+            return 0;
+        }
+
+        final long waitNanos = rateLimiter.reserveNanos();
+        if (waitNanos < 0) {
+            throw new CerberusRateLimitedException(
+                    "Rate limiter would hold the request longer than " + rateLimiter.getMaxWait() + ".",
+                    CerberusOperationType.of(request), rateLimiter.getMaxWait());
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Pauses the rate limiter for as long as a throttling response asks.
+     */
+    private void pauseIfThrottled(final Response response) {
+        final CerberusRateLimiter rateLimiter = this.rateLimiter;
+        final Duration retryAfter = rateLimiter == null ? null : retryAfter(response);
+        if (retryAfter != null) {
+            logger.warn("Cerberus throttled the request with response code {}, pausing requests for {}",
+                    response.code(), retryAfter);
+            rateLimiter.pause(retryAfter);
+        }
+    }
+
+    /**
+     * Reads the Retry-After header of a 429 or 503 response, given in seconds or as an HTTP date.
+     *
+     * @return How long to wait before the next request, or null if the response does not say
+     */
+    private static Duration retryAfter(final Response response) {
+        if (response.code() != HttpStatus.TOO_MANY_REQUESTS && response.code() != HttpStatus.SERVICE_UNAVAILABLE) {
+            return null;
+        }
+
+        final String retryAfter = StringUtils.trimToNull(response.header(HttpHeader.RETRY_AFTER));
+        if (retryAfter == null) {
+            return null;
+        }
+
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter)));
+        } catch (NumberFormatException e) {
+            // not delay seconds, so it should be an HTTP date
+        }
+
+        try {
+            final Duration untilDate = Duration.between(Instant.now(),
+                    ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return untilDate.isNegative() ? Duration.ZERO : untilDate;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Takes the circuit breaker and bulkhead permit for the request if calls are guarded.
+     */
+    private CerberusResilience.Permit acquirePermit(final Request request) {
+        final CerberusResilience resilience = this.resilience;
+        // health checks, e.g. those of warmUp, are not an operation on secrets and must not trip a circuit breaker
+        return resilience == null || isHealthCheck(request)
+                ? CerberusResilience.Permit.NONE
+                : resilience.acquirePermit(CerberusOperationType.of(request));
+    }
+
+    private CerberusResilience.Permit acquirePermitWithoutWaiting(final Request request) {
+        final CerberusResilience resilience = this.resilience;
+        return resilience == null || isHealthCheck(request)
+                ? CerberusResilience.Permit.NONE
+                : resilience.acquirePermitWithoutWaiting(CerberusOperationType.of(request));
+    }
+
+    private static boolean isHealthCheck(final Request request) {
+        final List<String> segments = request.url().pathSegments();
+        return HEALTHCHECK_PATH.equals(segments.get(segments.size() - 1));
+    }
+
+    /**
+     * Takes the permit of an asynchronous call when the dispatcher starts it rather than when it is enqueued, so
+     * that calls waiting in the dispatcher's queue hold no bulkhead or circuit breaker permit. It does not wait for
+     * a full bulkhead, which would park the dispatcher thread while it holds a slot of the host.
+     */
+    private Response acquireAsyncPermit(final Interceptor.Chain chain) throws IOException {
+        final AsyncPermit asyncPermit = chain.request().tag(AsyncPermit.class);
+        if (asyncPermit != null) {
+            try {
+                asyncPermit.permit = acquirePermitWithoutWaiting(chain.request());
+            } catch (RuntimeException e) {
+                throw new NotPermittedException(e);
+            }
+        }
+        return chain.proceed(chain.request());
+    }
+
+    private OkHttpClient guardedHttpClient(final OkHttpClient httpClient) {
+        final OkHttpClient.Builder builder = httpClient.newBuilder();
+        // first, so that a load balancer's failover happens within the one permit
+        builder.interceptors().add(0, this::acquireAsyncPermit);
+        return builder.build();
+    }
+
+    /**
+     * Caps the concurrency of a bulk operation at the dispatcher's max requests per host and at the bulkheads of
+     * the operation types it calls, so that a full bulkhead does not turn away its own requests.
+     */
+    private int bulkConcurrency(final int maxConcurrency, final CerberusOperationType... operationTypes) {
+        int concurrency = Math.min(maxConcurrency, getMaxRequestsPerHost());
+        final CerberusResilience resilience = this.resilience;
+        if (resilience != null) {
+            for (CerberusOperationType operationType : operationTypes) {
+                concurrency = Math.min(concurrency,
+                        resilience.getBulkhead(operationType).getBulkheadConfig().getMaxConcurrentCalls());
             }
         }
+        return concurrency;
+    }
+
+    /**
+     * The permit of an asynchronous call, set once the call has started.
+     */
+    private static final class AsyncPermit {
+
+        private volatile CerberusResilience.Permit permit = CerberusResilience.Permit.NONE;
+    }
+
+    /**
+     * Carries the reason an asynchronous call was not permitted out of the HTTP client.
+     */
+    private static final class NotPermittedException extends IOException {
+
+        private NotPermittedException(final RuntimeException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Whether the hedge of a request may be sent: the permits taken for the request cover only one send, so the
+     * hedge is skipped unless the circuit breaker is closed and the rate limiter has a permit to spare for it.
+     */
+    private boolean mayHedge(final Request request) {
+        final CerberusResilience resilience = this.resilience;
+        if (resilience != null && resilience.getCircuitBreaker(CerberusOperationType.of(request)).getState()
+                != CircuitBreaker.State.CLOSED) {
+            return false;
+        }
+        final CerberusRateLimiter rateLimiter = this.rateLimiter;
+        return rateLimiter == null || rateLimiter.tryAcquire();
+    }
+
+    /**
+     * Maps an I/O failure while talking to Cerberus to the exception surfaced to callers.
+     */
+    private CerberusClientException toClientException(final IOException e) {
+        if (e instanceof SSLException
+                && e.getMessage() != null
+                && e.getMessage().contains("Unrecognized SSL message, plaintext connection?")) {
+            return new CerberusClientException("I/O error while communicating with Cerberus. Unrecognized SSL message may be due to a web proxy e.g. AnyConnect", e);
+        } else {
+            return new CerberusClientException("I/O error while communicating with Cerberus.", e);
+        }
     }
 
     /**
@@ -541,7 +1751,7 @@ public class CerberusClient {
 
         if (requestBody != null) {
             requestBuilder.addHeader(HttpHeader.CONTENT_TYPE, DEFAULT_MEDIA_TYPE.toString())
-                    .method(method, RequestBody.create(DEFAULT_MEDIA_TYPE, gson.toJson(requestBody)));
+                    .method(method, RequestBody.create(DEFAULT_MEDIA_TYPE, jsonCodec.toJson(requestBody)));
         } else {
             requestBuilder.method(method, null);
         }
@@ -551,7 +1761,125 @@ public class CerberusClient {
 
 
     /**
-     * Convenience method for parsing the HTTP response and mapping it to a class.
+     * Builds the multipart upload request for a secure file.
+     *
+     * @param httpUrl  The URL to execute the request against
+     * @param path     Path for where to store the data
+     * @param fileBody Body of the file contents to be stored
+     * @return The HTTP request
+     */
+    protected Request buildWriteFileRequest(final HttpUrl httpUrl, final String path, final RequestBody fileBody) {
+        final String fileName = StringUtils.substringAfterLast(path, "/");
+
+        RequestBody requestBody = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("file-content", fileName, fileBody)
+                .build();
+        if (fileBody.isOneShot()) {
+            requestBody = FileRequestBodies.oneShot(requestBody);
+        }
+
+        return new Request.Builder()
+                .url(httpUrl)
+                .headers(defaultHeaders)
+                .addHeader(HttpHeader.CERBERUS_TOKEN, credentialsProvider.getCredentials().getToken())
+                .addHeader(HttpHeader.ACCEPT, DEFAULT_MEDIA_TYPE.toString())
+                .post(requestBody)
+                .build();
+    }
+
+    /**
+     * Requests the file at the specified path and returns the successful response with its body unread.
+     */
+    private Response openFile(final String path) {
+        final HttpUrl httpUrl = buildUrl(SECURE_FILE_PATH_PREFIX, path);
+        logger.debug("openFile: requestUrl={}", httpUrl);
+
+        final Response response = executeWithRetry(CerberusOperationType.READ, () -> execute(httpUrl, HttpMethod.GET, null));
+
+        if (response.code() != HttpStatus.OK) {
+            parseAndThrowApiErrorResponse(response);
+        }
+
+        return response;
+    }
+
+    private void deleteQuietly(final Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete temporary file {}", file, e);
+        }
+    }
+
+    private static CerberusListFilesResponse mergePages(final CerberusListFilesResponse[] pages) {
+        final List<List<SecureFileSummary>> pageSummaries = new ArrayList<>(pages.length);
+        for (CerberusListFilesResponse page : pages) {
+            if (page.getSecureFileSummaries() != null) {
+                pageSummaries.add(page.getSecureFileSummaries());
+            }
+        }
+        final List<SecureFileSummary> summaries = CompactSecureFileSummaryList.concat(pageSummaries);
+
+        return new CerberusListFilesResponse()
+                .setHasNext(false)
+                .setNextOffset(null)
+                .setLimit(summaries.size())
+                .setOffset(0)
+                .setFileCountInResult(summaries.size())
+                .setTotalFileCount(pages[0].getTotalFileCount())
+                .setSecureFileSummaries(summaries);
+    }
+
+    private CerberusListResponse toListResponse(final Response response) {
+        if (response.code() == HttpStatus.NOT_FOUND) {
+            response.close();
+            return new CerberusListResponse();
+        } else if (response.code() != HttpStatus.OK) {
+            parseAndThrowApiErrorResponse(response);
+        }
+
+        final ListResponseEnvelope envelope = parseResponseBody(response, ListResponseEnvelope.class);
+        return envelope != null ? envelope.data : null;
+    }
+
+    private CerberusListFilesResponse toListFilesResponse(final Response response) {
+        if (response.code() != HttpStatus.OK) {
+            parseAndThrowApiErrorResponse(response);
+        }
+
+        return parseResponseBody(response, CerberusListFilesResponse.class);
+    }
+
+    private CerberusResponse toReadResponse(final Response response) {
+        if (response.code() != HttpStatus.OK) {
+            parseAndThrowApiErrorResponse(response);
+        }
+
+        return parseResponseBody(response, CerberusResponse.class);
+    }
+
+    private byte[] toFileContents(final Response response) {
+        if (response.code() != HttpStatus.OK) {
+            parseAndThrowApiErrorResponse(response);
+        }
+
+        return responseBodyAsBytes(response);
+    }
+
+    private void checkNoContentResponse(final Response response) {
+        if (response.code() != HttpStatus.NO_CONTENT) {
+            parseAndThrowApiErrorResponse(response);
+        }
+        response.close();
+    }
+
+    /**
+     * Convenience method for parsing the HTTP response and mapping it to a class. The body is decoded in a
+     * single pass as it is read and the response is closed afterwards.
      *
      * @param response      The HTTP response object
      * @param responseClass The class to map the response body to
@@ -559,19 +1887,12 @@ public class CerberusClient {
      * @return Deserialized object from the response body
      */
     protected <M> M parseResponseBody(final Response response, final Class<M> responseClass) {
-        final String responseBodyStr = responseBodyAsString(response);
-        try {
-            return gson.fromJson(responseBodyStr, responseClass);
-        } catch (JsonSyntaxException e) {
-            logger.error("parseResponseBody: responseCode={}, requestUrl={}, response={}",
-                    response.code(), response.request().url(), responseBodyStr);
-            throw new CerberusClientException("Error parsing the response body from Cerberus, response code: "
-                + response.code() + ", response body: " + responseBodyStr, e);
-        }
+        return parseResponseBody(response, (Type) responseClass);
     }
 
     /**
-     * Convenience method for parsing the HTTP response and mapping it to a type.
+     * Convenience method for parsing the HTTP response and mapping it to a type. The body is decoded in a
+     * single pass as it is read and the response is closed afterwards.
      *
      * @param response The HTTP response object
      * @param typeOf   The type to map the response body to
@@ -579,14 +1900,16 @@ public class CerberusClient {
      * @return Deserialized object from the response body
      */
     protected <M> M parseResponseBody(final Response response, final Type typeOf) {
-        final String responseBodyStr = responseBodyAsString(response);
-        try {
-            return gson.fromJson(responseBodyStr, typeOf);
-        } catch (JsonSyntaxException e) {
-            logger.error("parseResponseBody: responseCode={}, requestUrl={}, response={}",
-                    response.code(), response.request().url(), responseBodyStr);
+        try (ResponseBody body = response.body()) {
+            return jsonCodec.fromJson(body.charStream(), typeOf);
+        } catch (IOException e) {
+            throw new CerberusClientException("I/O error while reading the response body from Cerberus, response code: "
+                + response.code(), e);
+        } catch (CerberusJsonException e) {
+            logger.error("parseResponseBody: responseCode={}, requestUrl={}, error={}",
+                    response.code(), response.request().url(), e.getMessage());
             throw new CerberusClientException("Error parsing the response body from Cerberus, response code: "
-                + response.code() + ", response body: " + responseBodyStr, e);
+                + response.code() + ", request URL: " + response.request().url(), e);
         }
     }
 
@@ -600,18 +1923,12 @@ public class CerberusClient {
         logger.debug("parseAndThrowErrorResponse: responseCode={}, requestUrl={}, response={}",
                 response.code(), response.request().url(), responseBodyStr);
 
-        try {
-            ErrorResponse errorResponse = gson.fromJson(responseBodyStr, ErrorResponse.class);
+        ErrorResponse errorResponse = parseErrorResponseBody(response, responseBodyStr, ErrorResponse.class);
 
-            if (errorResponse != null) {
-                throw new CerberusServerException(response.code(), errorResponse.getErrors());
-            } else {
-                throw new CerberusServerException(response.code(), new LinkedList<String>());
-            }
-        } catch (JsonSyntaxException e) {
-            logger.error("ERROR Failed to parse error message, response body received: {}", responseBodyStr);
-            throw new CerberusClientException("Error parsing the error response body from Cerberus, response code: "
-                + response.code() + ", response body: " + responseBodyStr, e);
+        if (errorResponse != null) {
+            throw new CerberusServerException(response.code(), errorResponse.getErrors());
+        } else {
+            throw new CerberusServerException(response.code(), new LinkedList<String>());
         }
     }
 
@@ -625,21 +1942,34 @@ public class CerberusClient {
         logger.debug("parseAndThrowApiErrorResponse: responseCode={}, requestUrl={}, response={}",
                 response.code(), response.request().url(), responseBodyStr);
 
-        try {
-            ApiErrorResponse errorResponse = gson.fromJson(responseBodyStr, ApiErrorResponse.class);
+        ApiErrorResponse errorResponse = parseErrorResponseBody(response, responseBodyStr, ApiErrorResponse.class);
 
-            if (errorResponse != null) {
-                throw new CerberusServerApiException(response.code(), errorResponse.getErrorId(), errorResponse.getErrors());
-            } else {
-                throw new CerberusServerApiException(response.code(), null, new LinkedList<CerberusApiError>());
-            }
-        } catch (JsonSyntaxException e) {
+        if (errorResponse != null) {
+            throw new CerberusServerApiException(response.code(), errorResponse.getErrorId(), errorResponse.getErrors());
+        } else {
+            throw new CerberusServerApiException(response.code(), null, new LinkedList<CerberusApiError>());
+        }
+    }
+
+    private <M> M parseErrorResponseBody(final Response response,
+                                         final String responseBodyStr,
+                                         final Class<M> errorResponseClass) {
+        try {
+            return jsonCodec.fromJson(new StringReader(responseBodyStr), errorResponseClass);
+        } catch (IOException | CerberusJsonException e) {
             logger.error("ERROR Failed to parse error message, response body received: {}", responseBodyStr);
             throw new CerberusClientException("Error parsing the error response body from Cerberus, response code: "
                 + response.code() + ", response body: " + responseBodyStr, e);
         }
     }
 
+    /**
+     * POJO for representing the body of a list response, whose keys are nested under data.
+     */
+    private static class ListResponseEnvelope {
+        private CerberusListResponse data;
+    }
+
     /**
      * POJO for representing error response body from Cerberus.
      */
@@ -671,7 +2001,7 @@ public class CerberusClient {
         try {
             return response.body().string();
         } catch (IOException ioe) {
-            logger.debug("responseBodyAsString: response={}", gson.toJson(response));
+            logger.debug("responseBodyAsString: response={}", response);
             return "ERROR failed to print response body as str: " + ioe.getMessage();
         }
     }
@@ -680,7 +2010,7 @@ public class CerberusClient {
         try {
             return response.body().bytes();
         } catch (IOException ioe) {
-            logger.debug("responseBodyAsString: response={}", gson.toJson(response));
+            logger.debug("responseBodyAsString: response={}", response);
             throw new CerberusClientException("ERROR failed to print: " + response.toString());
         }
     }
@@ -17,19 +17,22 @@
 package com.nike.cerberus.client;
 
 import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
+import com.nike.cerberus.client.endpoint.EndpointSelectionStrategy;
+import com.nike.cerberus.client.endpoint.LoadBalancingInterceptor;
+import com.nike.cerberus.client.json.CerberusJsonCodec;
 import okhttp3.ConnectionSpec;
 import okhttp3.Dispatcher;
 import okhttp3.Headers;
 import okhttp3.OkHttpClient;
 import okhttp3.TlsVersion;
 
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
-import static okhttp3.ConnectionSpec.CLEARTEXT;
 import static okhttp3.ConnectionSpec.MODERN_TLS;
 
 /**
@@ -55,6 +58,67 @@ public class CerberusClientFactory {
     private static final int DEFAULT_MAX_REQUESTS = 200;
     private static final Map<String, String> DEFAULT_HEADERS = new HashMap<>();
 
+    private static volatile CerberusTransportRegistry transportRegistry = new CerberusTransportRegistry();
+
+    /**
+     * Returns the registry that the clients created by this factory, and the credentials providers that do not
+     * get an HTTP client passed in, share their connections through.
+     *
+     * @return Transport registry
+     */
+    public static CerberusTransportRegistry getTransportRegistry() {
+        return transportRegistry;
+    }
+
+    /**
+     * Replaces the transport registry, e.g. to tune the connection pool size and keep-alive. Only clients and
+     * credentials providers created afterwards use the new registry.
+     *
+     * @param registry Transport registry
+     */
+    public static void setTransportRegistry(final CerberusTransportRegistry registry) {
+        if (registry == null) {
+            throw new IllegalArgumentException("Transport registry cannot be null.");
+        }
+
+        transportRegistry = registry;
+    }
+
+    /**
+     * Returns a builder for tuning the shared transports, e.g. to enable HTTP/2 or resize the connection pool,
+     * initialized with the settings currently in use. Apply the result with
+     * {@link #setTransportSettings(CerberusTransportSettings)}.
+     *
+     * @return Transport settings builder
+     */
+    public static CerberusTransportSettings.Builder transportSettings() {
+        return transportRegistry.getSettings().toBuilder();
+    }
+
+    /**
+     * Replaces the transport registry with one that uses the given settings. Only clients and credentials
+     * providers created afterwards use the new settings; existing ones keep their transports until closed.
+     *
+     * @param settings Transport settings
+     */
+    public static void setTransportSettings(final CerberusTransportSettings settings) {
+        setTransportRegistry(new CerberusTransportRegistry(settings));
+    }
+
+    /**
+     * Returns a builder for a client with options beyond those of the {@code getClient} methods, e.g. its own
+     * JSON codec, a rate limiter or load balancing over several Cerberus endpoints.
+     *
+     * @param cerberusUrl                 URL for Cerberus
+     * @param cerberusCredentialsProvider Credential provider for acquiring a token for interacting with Cerberus
+     * @return Client builder
+     */
+    public static ClientBuilder clientBuilder(final String cerberusUrl,
+                                              final CerberusCredentialsProvider cerberusCredentialsProvider) {
+
+        return new ClientBuilder(cerberusUrl, cerberusCredentialsProvider);
+    }
+
     /**
      * Factory method that allows for a user defined Cerberus URL resolver and credentials provider.
      *
@@ -81,22 +145,12 @@ public class CerberusClientFactory {
                                            final CerberusCredentialsProvider cerberusCredentialsProvider,
                                            final Map<String, String> defaultHeaders) {
 
-        List<ConnectionSpec> connectionSpecs = new ArrayList<>();
-        connectionSpecs.add(TLS_1_2_OR_NEWER);
-        // for unit tests
-        connectionSpecs.add(CLEARTEXT);
-
-        return getClient(
+        return withSharedTransport(cerberusUrl, httpClient -> getClient(
                 cerberusUrl,
                 cerberusCredentialsProvider,
                 defaultHeaders,
-                new OkHttpClient.Builder()
-                        .connectTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
-                        .writeTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
-                        .readTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
-                        .connectionSpecs(connectionSpecs)
-                        .build()
-        );
+                httpClient
+        ));
     }
 
     /**
@@ -135,19 +189,62 @@ public class CerberusClientFactory {
                                            final Map<String, String> defaultHeaders,
                                            final OkHttpClient httpClient) {
 
-        if (defaultHeaders == null) {
-            throw new IllegalArgumentException("Default headers cannot be null.");
-        }
+        return new CerberusClient(cerberusUrl,
+                cerberusCredentialsProvider,
+                httpClient,
+                buildHeaders(defaultHeaders));
+    }
 
-        Headers.Builder headers = new Headers.Builder();
-        for (Map.Entry<String, String> header : defaultHeaders.entrySet()) {
-            headers.add(header.getKey(), header.getValue());
-        }
+    /**
+     * Factory method for a client that caches the results of read operations in memory.
+     *
+     * @param cerberusUrl                 URL for Cerberus
+     * @param cerberusCredentialsProvider Credential provider for acquiring a token for interacting with Cerberus
+     * @param defaultHeaders              Map of default header names and values to add to every HTTP request
+     * @param ttl                         How long a read result is served from memory before it is fetched again
+     * @param maxEntries                  Maximum number of paths to keep in memory
+     * @return Caching Cerberus client
+     */
+    public static CachingCerberusClient getCachingClient(final String cerberusUrl,
+                                                         final CerberusCredentialsProvider cerberusCredentialsProvider,
+                                                         final Map<String, String> defaultHeaders,
+                                                         final Duration ttl,
+                                                         final int maxEntries) {
 
-        return new CerberusClient(cerberusUrl,
+        return withSharedTransport(cerberusUrl, httpClient -> new CachingCerberusClient(cerberusUrl,
                 cerberusCredentialsProvider,
                 httpClient,
-                headers.build());
+                buildHeaders(defaultHeaders),
+                ttl,
+                maxEntries));
+    }
+
+    /**
+     * Factory method for a client that caches the results of read operations in memory and, once an entry's
+     * TTL has elapsed, keeps serving it for up to the max staleness while it is refreshed in the background.
+     *
+     * @param cerberusUrl                 URL for Cerberus
+     * @param cerberusCredentialsProvider Credential provider for acquiring a token for interacting with Cerberus
+     * @param defaultHeaders              Map of default header names and values to add to every HTTP request
+     * @param ttl                         How long a read result is served from memory before it is refreshed
+     * @param maxStaleness                How long after the TTL an expired result may still be served
+     * @param maxEntries                  Maximum number of paths to keep in memory
+     * @return Caching Cerberus client
+     */
+    public static CachingCerberusClient getCachingClient(final String cerberusUrl,
+                                                         final CerberusCredentialsProvider cerberusCredentialsProvider,
+                                                         final Map<String, String> defaultHeaders,
+                                                         final Duration ttl,
+                                                         final Duration maxStaleness,
+                                                         final int maxEntries) {
+
+        return withSharedTransport(cerberusUrl, httpClient -> new CachingCerberusClient(cerberusUrl,
+                cerberusCredentialsProvider,
+                httpClient,
+                buildHeaders(defaultHeaders),
+                ttl,
+                maxStaleness,
+                maxEntries));
     }
 
     /**
@@ -204,26 +301,182 @@ public class CerberusClientFactory {
         dispatcher.setMaxRequests(maxRequests);
         dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
 
+        // the client keeps its own dispatcher limits and timeouts but shares the transport's connection pool
+        return withSharedTransport(cerberusUrl, httpClient -> new CerberusClient(cerberusUrl,
+                cerberusCredentialsProvider,
+                httpClient.newBuilder()
+                        .connectTimeout(connectTimeoutMillis, DEFAULT_TIMEOUT_UNIT)
+                        .writeTimeout(writeTimeoutMillis, DEFAULT_TIMEOUT_UNIT)
+                        .readTimeout(readTimeoutMillis, DEFAULT_TIMEOUT_UNIT)
+                        .dispatcher(dispatcher)
+                        .build(),
+                buildHeaders(defaultHeaders)));
+    }
 
-        List<ConnectionSpec> connectionSpecs = new ArrayList<>();
-        connectionSpecs.add(TLS_1_2_OR_NEWER);
-        // for unit tests
-        connectionSpecs.add(CLEARTEXT);
+    /**
+     * Creates a client on the shared transport for the Cerberus URL and hands it the transport reference, which
+     * the client releases when it is closed.
+     */
+    private static <T extends CerberusClient> T withSharedTransport(final String cerberusUrl,
+                                                                    final Function<OkHttpClient, T> clientFactory) {
+
+        final CerberusTransport transport = transportRegistry.acquire(cerberusUrl);
+        try {
+            final T client = clientFactory.apply(transport.getHttpClient());
+            client.releaseOnClose(transport);
+            return client;
+        } catch (RuntimeException e) {
+            transport.close();
+            throw e;
+        }
+    }
+
+    private static Headers buildHeaders(final Map<String, String> defaultHeaders) {
+        if (defaultHeaders == null) {
+            throw new IllegalArgumentException("Default headers cannot be null.");
+        }
 
         Headers.Builder headers = new Headers.Builder();
         for (Map.Entry<String, String> header : defaultHeaders.entrySet()) {
             headers.add(header.getKey(), header.getValue());
         }
+        return headers.build();
+    }
 
-        return new CerberusClient(cerberusUrl,
-                cerberusCredentialsProvider,
-                new OkHttpClient.Builder()
-                        .connectTimeout(connectTimeoutMillis, DEFAULT_TIMEOUT_UNIT)
-                        .writeTimeout(writeTimeoutMillis, DEFAULT_TIMEOUT_UNIT)
-                        .readTimeout(readTimeoutMillis, DEFAULT_TIMEOUT_UNIT)
-                        .dispatcher(dispatcher)
-                        .connectionSpecs(connectionSpecs)
-                        .build(),
-                headers.build());
+    /**
+     * Builder for a {@link CerberusClient}. Options that are not set keep the defaults of
+     * {@link #getClient(String, CerberusCredentialsProvider)}.
+     */
+    public static final class ClientBuilder {
+
+        private final String cerberusUrl;
+
+        private final CerberusCredentialsProvider cerberusCredentialsProvider;
+
+        private Map<String, String> defaultHeaders = DEFAULT_HEADERS;
+
+        private OkHttpClient httpClient;
+
+        private CerberusJsonCodec jsonCodec;
+
+        private CerberusRateLimiter rateLimiter;
+
+        private List<String> endpointUrls;
+
+        private EndpointSelectionStrategy endpointSelectionStrategy;
+
+        private ClientBuilder(final String cerberusUrl, final CerberusCredentialsProvider cerberusCredentialsProvider) {
+            this.cerberusUrl = cerberusUrl;
+            this.cerberusCredentialsProvider = cerberusCredentialsProvider;
+        }
+
+        /**
+         * Sets the HTTP headers added to every request.
+         *
+         * @param defaultHeaders Map of default header names and values to add to every HTTP request
+         * @return This builder
+         */
+        public ClientBuilder defaultHeaders(final Map<String, String> defaultHeaders) {
+            if (defaultHeaders == null) {
+                throw new IllegalArgumentException("Default headers cannot be null.");
+            }
+
+            this.defaultHeaders = defaultHeaders;
+            return this;
+        }
+
+        /**
+         * Sets the HTTP client to send requests with, instead of one from the shared transport registry.
+         *
+         * @param httpClient HTTP client
+         * @return This builder
+         */
+        public ClientBuilder httpClient(final OkHttpClient httpClient) {
+            if (httpClient == null) {
+                throw new IllegalArgumentException("HTTP client cannot be null.");
+            }
+
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Sets the codec for encoding request bodies and decoding response bodies.
+         *
+         * @param jsonCodec JSON codec
+         * @return This builder
+         */
+        public ClientBuilder jsonCodec(final CerberusJsonCodec jsonCodec) {
+            if (jsonCodec == null) {
+                throw new IllegalArgumentException("JSON codec cannot be null.");
+            }
+
+            this.jsonCodec = jsonCodec;
+            return this;
+        }
+
+        /**
+         * Holds the requests of the client to the target rate of a rate limiter, and pauses them when Cerberus
+         * throttles with Retry-After. See {@link CerberusRateLimiter} for how requests are limited.
+         *
+         * @param rateLimiter Limiter to hold requests to, which may be shared between clients
+         * @return This builder
+         */
+        public ClientBuilder rateLimiter(final CerberusRateLimiter rateLimiter) {
+            if (rateLimiter == null) {
+                throw new IllegalArgumentException("Rate limiter cannot be null.");
+            }
+
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Spreads the requests of the client over several Cerberus endpoints, e.g. regional deployments, and fails
+         * over between them. See {@link LoadBalancingInterceptor} for how endpoints are selected, ejected and
+         * re-admitted. The client is built with the first endpoint as its Cerberus URL in place of the URL the
+         * builder was created with, since only requests to the first endpoint are routed between the endpoints.
+         *
+         * @param cerberusUrls URLs of the Cerberus endpoints
+         * @param strategy     How the endpoint of each request is selected
+         * @return This builder
+         */
+        public ClientBuilder endpoints(final List<String> cerberusUrls, final EndpointSelectionStrategy strategy) {
+            if (cerberusUrls == null || cerberusUrls.isEmpty()) {
+                throw new IllegalArgumentException("Cerberus URLs cannot be empty.");
+            }
+            if (strategy == null) {
+                throw new IllegalArgumentException("Endpoint selection strategy cannot be null.");
+            }
+
+            this.endpointUrls = cerberusUrls;
+            this.endpointSelectionStrategy = strategy;
+            return this;
+        }
+
+        /**
+         * @return Cerberus client
+         */
+        public CerberusClient build() {
+            final Headers headers = buildHeaders(defaultHeaders);
+            final LoadBalancingInterceptor loadBalancer = endpointUrls == null ? null
+                    : new LoadBalancingInterceptor(endpointUrls, endpointSelectionStrategy);
+            final String clientUrl = loadBalancer == null ? cerberusUrl : loadBalancer.getEndpoints().get(0).getUrl();
+            final Function<OkHttpClient, CerberusClient> clientFactory = baseClient -> {
+                final OkHttpClient client = loadBalancer == null ? baseClient
+                        : baseClient.newBuilder().addInterceptor(loadBalancer).build();
+                final CerberusClient cerberusClient = jsonCodec == null
+                        ? new CerberusClient(clientUrl, cerberusCredentialsProvider, client, headers)
+                        : new CerberusClient(clientUrl, cerberusCredentialsProvider, client, headers, jsonCodec);
+                if (rateLimiter != null) {
+                    cerberusClient.setRateLimiter(rateLimiter);
+                }
+                return cerberusClient;
+            };
+
+            return httpClient == null
+                    ? withSharedTransport(clientUrl, clientFactory)
+                    : clientFactory.apply(httpClient);
+        }
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+
+/**
+ * The kinds of Cerberus calls that resilience settings are configured for.
+ */
+public enum CerberusOperationType {
+
+    /**
+     * Reading a secret or a secure file.
+     */
+    READ,
+
+    /**
+     * Listing the keys at a path or the secure files of an SDB.
+     */
+    LIST,
+
+    /**
+     * Writing a secret or a secure file.
+     */
+    WRITE,
+
+    /**
+     * Deleting a secret or a secure file.
+     */
+    DELETE;
+
+    /**
+     * Classifies a request to Cerberus by its method and URL.
+     */
+    static CerberusOperationType of(final Request request) {
+        return of(request.method(), request.url());
+    }
+
+    /**
+     * Classifies a request to Cerberus by its method and URL.
+     */
+    static CerberusOperationType of(final String method, final HttpUrl url) {
+        switch (method) {
+            case "GET":
+            case "HEAD":
+                return url.queryParameter("list") != null || url.encodedPath().contains("/v1/secure-files/")
+                        ? LIST : READ;
+            case "DELETE":
+                return DELETE;
+            default:
+                return WRITE;
+        }
+    }
+}
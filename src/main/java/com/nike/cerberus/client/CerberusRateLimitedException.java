@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import java.time.Duration;
+
+/**
+ * Thrown without calling Cerberus when the {@link CerberusRateLimiter} of the client would hold a request longer
+ * than its max wait. Unlike a {@link CerberusCallNotPermittedException}, it does not mean that Cerberus is
+ * unhealthy, only that the client is sending more requests than its target rate; a {@link CachingCerberusClient}
+ * does not serve a cached read in its place. Callers that prefer a stale value over waiting may catch it and
+ * fall back themselves.
+ */
+public class CerberusRateLimitedException extends CerberusClientException {
+    private static final long serialVersionUID = 3468195203817425126L;
+
+    private final CerberusOperationType operationType;
+
+    private final Duration maxWait;
+
+    /**
+     * Constructs the exception for the operation type that was not sent.
+     *
+     * @param message       Message
+     * @param operationType Type of the operation that was not sent
+     * @param maxWait       Longest time the rate limiter holds a request
+     */
+    public CerberusRateLimitedException(final String message,
+                                        final CerberusOperationType operationType,
+                                        final Duration maxWait) {
+        super(message);
+        this.operationType = operationType;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Returns the type of the operation that was not sent.
+     *
+     * @return Operation type
+     */
+    public CerberusOperationType getOperationType() {
+        return operationType;
+    }
+
+    /**
+     * Returns the longest time the rate limiter holds a request.
+     *
+     * @return Max wait of the rate limiter
+     */
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+}
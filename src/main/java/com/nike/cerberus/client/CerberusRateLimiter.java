@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the requests of Cerberus clients to a target rate.
+ * <p>
+ * The limiter is a token bucket that holds up to the burst size in permits and refills at the target rate. Each
+ * request, including each retry, takes a permit, and waits for the next one while the bucket is empty. When
+ * Cerberus throttles with a 429 or 503 response that carries a Retry-After header, the client pauses the limiter
+ * for that long and empties the bucket, so that requests resume at the target rate instead of all at once. A
+ * request that would have to wait longer than the max wait is not sent and fails with a
+ * {@link CerberusRateLimitedException}. A limiter is thread safe and may be shared between clients that call
+ * the same Cerberus.
+ * </p>
+ */
+public final class CerberusRateLimiter {
+
+    public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(30);
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    private final double intervalNanos;
+
+    private final long maxWaitNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final AtomicLong delayedRequests = new AtomicLong();
+
+    /**
+     * Permits left in the bucket, guarded by this.
+     */
+    private double storedPermits;
+
+    /**
+     * Time at which the next request may be sent, guarded by this. Permits only accumulate after it has passed.
+     */
+    private long nextFreeNanos;
+
+    /**
+     * Creates a limiter that allows bursts of one second's worth of requests and waits up to
+     * {@link #DEFAULT_MAX_WAIT} for a permit.
+     *
+     * @param permitsPerSecond Target rate of requests
+     */
+    public CerberusRateLimiter(final double permitsPerSecond) {
+        this(permitsPerSecond, (int) Math.min(Integer.MAX_VALUE, Math.max(1, Math.ceil(permitsPerSecond))),
+                DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * Creates a limiter.
+     *
+     * @param permitsPerSecond Target rate of requests
+     * @param burst            Requests that may be sent at once after the limiter has been idle
+     * @param maxWait          Longest time a request waits for a permit before it fails instead
+     */
+    public CerberusRateLimiter(final double permitsPerSecond, final int burst, final Duration maxWait) {
+        this(permitsPerSecond, burst, maxWait, System::nanoTime);
+    }
+
+    CerberusRateLimiter(final double permitsPerSecond,
+                        final int burst,
+                        final Duration maxWait,
+                        final LongSupplier nanoClock) {
+
+        if (!(permitsPerSecond > 0) || Double.isInfinite(permitsPerSecond)) {
+            throw new IllegalArgumentException("Permits per second must be positive.");
+        }
+
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be positive.");
+        }
+
+        if (maxWait == null || maxWait.isNegative()) {
+            throw new IllegalArgumentException("Max wait cannot be null or negative.");
+        }
+
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.intervalNanos = NANOS_PER_SECOND / permitsPerSecond;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.nanoClock = nanoClock;
+        this.storedPermits = burst;
+        this.nextFreeNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * @return Target rate of requests
+     */
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * @return Requests that may be sent at once after the limiter has been idle
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return Longest time a request waits for a permit
+     */
+    public Duration getMaxWait() {
+        return Duration.ofNanos(maxWaitNanos);
+    }
+
+    /**
+     * @return Number of requests that had to wait for a permit
+     */
+    public long getDelayedRequests() {
+        return delayedRequests.get();
+    }
+
+    /**
+     * Holds all requests for the given time, e.g. as long as Cerberus asked with Retry-After, and empties the
+     * bucket so that requests are paced at the target rate once the pause ends.
+     *
+     * @param duration How long to hold requests
+     */
+    public void pause(final Duration duration) {
+        if (duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException("Duration cannot be null or negative.");
+        }
+
+        final long pauseNanos = duration.compareTo(Duration.ofNanos(Long.MAX_VALUE / 2)) > 0
+                ? Long.MAX_VALUE / 2 : duration.toNanos();
+        synchronized (this) {
+            final long untilNanos = nanoClock.getAsLong() + pauseNanos;
+            storedPermits = 0;
+            if (untilNanos - nextFreeNanos > 0) {
+                nextFreeNanos = untilNanos;
+            }
+        }
+    }
+
+    /**
+     * Takes a permit for a request only if one is free right away, e.g. for an optional extra request.
+     *
+     * @return Whether a permit was taken
+     */
+    boolean tryAcquire() {
+        synchronized (this) {
+            final long nowNanos = nanoClock.getAsLong();
+            if (nowNanos - nextFreeNanos < 0) {
+                return false;
+            }
+            storedPermits = Math.min(burst, storedPermits + (nowNanos - nextFreeNanos) / intervalNanos);
+            nextFreeNanos = nowNanos;
+            if (storedPermits < 1) {
+                return false;
+            }
+            storedPermits -= 1;
+            return true;
+        }
+    }
+
+    /**
+     * Takes a permit for a request.
+     *
+     * @return How long the request must wait before it is sent, or -1 if that is longer than the max wait, in
+     * which case no permit is taken
+     */
+    long reserveNanos() {
+        final long waitNanos;
+        synchronized (this) {
+            final long nowNanos = nanoClock.getAsLong();
+            if (nowNanos - nextFreeNanos > 0) {
+                storedPermits = Math.min(burst, storedPermits + (nowNanos - nextFreeNanos) / intervalNanos);
+                nextFreeNanos = nowNanos;
+            }
+
+            waitNanos = nextFreeNanos - nowNanos;
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+
+            if (storedPermits >= 1) {
+                storedPermits -= 1;
+            } else {
+                // the request waits for the rest of the permit the bucket is refilling
+                nextFreeNanos += (long) Math.ceil((1 - storedPermits) * intervalNanos);
+                storedPermits = 0;
+            }
+        }
+
+        if (waitNanos > 0) {
+            delayedRequests.incrementAndGet();
+        }
+        return waitNanos;
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.event.CircuitBreakerOnStateTransitionEvent;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Circuit breakers and bulkheads that a {@link CerberusClient} guards its calls to Cerberus with, one of each per
+ * {@link CerberusOperationType}.
+ * <p>
+ * Every attempt to call Cerberus, including each retry, first takes a permit from the bulkhead of its operation
+ * type and then from its circuit breaker; an asynchronous call takes them once the HTTP client starts it. I/O errors
+ * and 5xx responses count as failures of the circuit breaker. While a circuit breaker is open, or when too many
+ * calls of the type are in flight for longer than the bulkhead's max wait, the call fails with a
+ * {@link CerberusCallNotPermittedException} that is not retried; a {@link CachingCerberusClient} serves the last
+ * cached read instead if it has one. By default a circuit breaker opens once half of the last 20 calls failed, with
+ * at least 10 calls recorded, and lets 3 trial calls through after 30 seconds; a bulkhead admits 25 concurrent calls
+ * and lets a blocking call wait up to a second for one of them to finish. An asynchronous call does not wait, so that
+ * it never parks a thread of the HTTP client's dispatcher, and fails at once when the bulkhead is full. Bulk
+ * operations such as
+ * {@link CerberusClient#readAll(java.util.Collection)} keep their concurrency within the bulkhead. Health checks
+ * are not guarded.
+ * </p>
+ */
+public final class CerberusResilience {
+
+    public static final CircuitBreakerConfig DEFAULT_CIRCUIT_BREAKER_CONFIG = CircuitBreakerConfig.custom()
+            .failureRateThreshold(50)
+            .slidingWindowSize(20)
+            .minimumNumberOfCalls(10)
+            .waitDurationInOpenState(Duration.ofSeconds(30))
+            .permittedNumberOfCallsInHalfOpenState(3)
+            .build();
+
+    public static final BulkheadConfig DEFAULT_BULKHEAD_CONFIG = BulkheadConfig.custom()
+            .maxConcurrentCalls(25)
+            .maxWaitDuration(Duration.ofSeconds(1))
+            .build();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CerberusResilience.class);
+
+    private final Map<CerberusOperationType, CircuitBreaker> circuitBreakers;
+
+    private final Map<CerberusOperationType, Bulkhead> bulkheads;
+
+    private CerberusResilience(final Builder builder) {
+        final Map<CerberusOperationType, CircuitBreaker> circuitBreakers = new EnumMap<>(CerberusOperationType.class);
+        final Map<CerberusOperationType, Bulkhead> bulkheads = new EnumMap<>(CerberusOperationType.class);
+        for (CerberusOperationType operationType : CerberusOperationType.values()) {
+            final String name = builder.name + "-" + operationType.name().toLowerCase();
+            final CircuitBreaker circuitBreaker =
+                    CircuitBreaker.of(name, builder.circuitBreakerConfigs.get(operationType));
+            circuitBreaker.getEventPublisher().onStateTransition(event ->
+                    LOGGER.warn("Circuit breaker {} changed from {} to {}", event.getCircuitBreakerName(),
+                            event.getStateTransition().getFromState(), event.getStateTransition().getToState()));
+            circuitBreakers.put(operationType, circuitBreaker);
+            bulkheads.put(operationType, Bulkhead.of(name, builder.bulkheadConfigs.get(operationType)));
+        }
+        this.circuitBreakers = Collections.unmodifiableMap(circuitBreakers);
+        this.bulkheads = Collections.unmodifiableMap(bulkheads);
+    }
+
+    /**
+     * Creates circuit breakers and bulkheads with the default configs for every operation type.
+     *
+     * @return Resilience with default settings
+     */
+    public static CerberusResilience ofDefaults() {
+        return builder().build();
+    }
+
+    /**
+     * Returns a builder initialized with the default configs for every operation type.
+     *
+     * @return Resilience builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param operationType Operation type
+     * @return Circuit breaker guarding calls of the operation type
+     */
+    public CircuitBreaker getCircuitBreaker(final CerberusOperationType operationType) {
+        return circuitBreakers.get(operationType);
+    }
+
+    /**
+     * @param operationType Operation type
+     * @return Bulkhead limiting concurrent calls of the operation type
+     */
+    public Bulkhead getBulkhead(final CerberusOperationType operationType) {
+        return bulkheads.get(operationType);
+    }
+
+    /**
+     * Subscribes to the state changes of the circuit breakers of all operation types, e.g. to alert on or export
+     * them. The name of the circuit breaker in an event ends with the lower case operation type.
+     *
+     * @param listener Called with each state change
+     */
+    public void onStateTransition(final Consumer<CircuitBreakerOnStateTransitionEvent> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null.");
+        }
+
+        for (CircuitBreaker circuitBreaker : circuitBreakers.values()) {
+            circuitBreaker.getEventPublisher().onStateTransition(listener::accept);
+        }
+    }
+
+    /**
+     * Takes a bulkhead and then a circuit breaker permit for a call of the operation type, waiting up to the
+     * bulkhead's max wait for a concurrent call to finish.
+     *
+     * @return Permit to be completed with the outcome of the call
+     * @throws CerberusCallNotPermittedException If the bulkhead is full or the circuit breaker is open
+     */
+    Permit acquirePermit(final CerberusOperationType operationType) {
+        return acquirePermit(operationType, true);
+    }
+
+    /**
+     * Takes a bulkhead and then a circuit breaker permit for a call of the operation type without waiting for a
+     * concurrent call to finish, for calls on threads that must not block.
+     *
+     * @return Permit to be completed with the outcome of the call
+     * @throws CerberusCallNotPermittedException If the bulkhead is full or the circuit breaker is open
+     */
+    Permit acquirePermitWithoutWaiting(final CerberusOperationType operationType) {
+        return acquirePermit(operationType, false);
+    }
+
+    private Permit acquirePermit(final CerberusOperationType operationType, final boolean waitForBulkhead) {
+        final Bulkhead bulkhead = bulkheads.get(operationType);
+        // the bulkhead has no non-blocking acquire, so only a permit that looks free is waited for; losing the race
+        // for it is the one case in which a call that must not block still waits
+        final boolean free = waitForBulkhead || bulkhead.getMetrics().getAvailableConcurrentCalls() > 0;
+        if (!free || !bulkhead.tryAcquirePermission()) {
+            throw new CerberusCallNotPermittedException(
+                    String.format("Too many concurrent %s calls to Cerberus.", operationType), operationType,
+                    BulkheadFullException.createBulkheadFullException(bulkhead));
+        }
+
+        final CircuitBreaker circuitBreaker = circuitBreakers.get(operationType);
+        try {
+            circuitBreaker.acquirePermission();
+        } catch (CallNotPermittedException e) {
+            bulkhead.onComplete();
+            throw new CerberusCallNotPermittedException(
+                    String.format("Circuit breaker for %s calls to Cerberus is %s.", operationType,
+                            circuitBreaker.getState()), operationType, e);
+        }
+
+        return new Permit(circuitBreaker, bulkhead, false);
+    }
+
+    /**
+     * Permission for one call. Exactly one of its methods takes effect, so it may be completed from racing
+     * callbacks.
+     */
+    static final class Permit {
+
+        /**
+         * Permit of a client without circuit breakers and bulkheads, on which every method is a no-op.
+         */
+        static final Permit NONE = new Permit(null, null, true);
+
+        private final CircuitBreaker circuitBreaker;
+
+        private final Bulkhead bulkhead;
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicBoolean completed;
+
+        private Permit(final CircuitBreaker circuitBreaker, final Bulkhead bulkhead, final boolean completed) {
+            this.circuitBreaker = circuitBreaker;
+            this.bulkhead = bulkhead;
+            this.completed = new AtomicBoolean(completed);
+        }
+
+        /**
+         * Records a response, as a failure if it is a server error.
+         */
+        void onResponse(final Response response) {
+            if (response.code() >= 500) {
+                onFailure(new CerberusServerException(response.code(), Collections.emptyList()));
+            } else if (completed.compareAndSet(false, true)) {
+                circuitBreaker.onSuccess(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                bulkhead.onComplete();
+            }
+        }
+
+        void onFailure(final Throwable failure) {
+            if (completed.compareAndSet(false, true)) {
+                circuitBreaker.onError(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS, failure);
+                bulkhead.onComplete();
+            }
+        }
+
+        /**
+         * Gives the permit back without recording an outcome, for calls that were cancelled.
+         */
+        void release() {
+            if (completed.compareAndSet(false, true)) {
+                circuitBreaker.releasePermission();
+                bulkhead.onComplete();
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link CerberusResilience}.
+     */
+    public static final class Builder {
+
+        private final Map<CerberusOperationType, CircuitBreakerConfig> circuitBreakerConfigs =
+                new EnumMap<>(CerberusOperationType.class);
+
+        private final Map<CerberusOperationType, BulkheadConfig> bulkheadConfigs =
+                new EnumMap<>(CerberusOperationType.class);
+
+        private String name = "cerberus";
+
+        private Builder() {
+            circuitBreaker(DEFAULT_CIRCUIT_BREAKER_CONFIG);
+            bulkhead(DEFAULT_BULKHEAD_CONFIG);
+        }
+
+        /**
+         * @param name Prefix of the circuit breaker and bulkhead names, followed by the lower case operation type
+         * @return This builder
+         */
+        public Builder name(final String name) {
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("Name cannot be empty.");
+            }
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * @param config Circuit breaker config for every operation type
+         * @return This builder
+         */
+        public Builder circuitBreaker(final CircuitBreakerConfig config) {
+            for (CerberusOperationType operationType : CerberusOperationType.values()) {
+                circuitBreaker(operationType, config);
+            }
+            return this;
+        }
+
+        /**
+         * @param operationType Operation type
+         * @param config        Circuit breaker config for the operation type
+         * @return This builder
+         */
+        public Builder circuitBreaker(final CerberusOperationType operationType, final CircuitBreakerConfig config) {
+            if (operationType == null || config == null) {
+                throw new IllegalArgumentException("Operation type and circuit breaker config cannot be null.");
+            }
+            circuitBreakerConfigs.put(operationType, config);
+            return this;
+        }
+
+        /**
+         * @param config Bulkhead config for every operation type
+         * @return This builder
+         */
+        public Builder bulkhead(final BulkheadConfig config) {
+            for (CerberusOperationType operationType : CerberusOperationType.values()) {
+                bulkhead(operationType, config);
+            }
+            return this;
+        }
+
+        /**
+         * @param operationType Operation type
+         * @param config        Bulkhead config for the operation type
+         * @return This builder
+         */
+        public Builder bulkhead(final CerberusOperationType operationType, final BulkheadConfig config) {
+            if (operationType == null || config == null) {
+                throw new IllegalArgumentException("Operation type and bulkhead config cannot be null.");
+            }
+            bulkheadConfigs.put(operationType, config);
+            return this;
+        }
+
+        /**
+         * @return Circuit breakers and bulkheads for every operation type
+         */
+        public CerberusResilience build() {
+            return new CerberusResilience(this);
+        }
+    }
+}
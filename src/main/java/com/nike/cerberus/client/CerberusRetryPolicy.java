@@ -0,0 +1,589 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * How calls to Cerberus are retried: how many attempts are made, how long is waited between them, and how much of
+ * the load may be retries.
+ * <p>
+ * I/O errors, including a {@link CerberusClientException} caused by one, and results the caller marks as failures,
+ * e.g. 5xx responses, are retried. The wait before a retry grows exponentially from the base delay up to the max
+ * delay, and is randomized by the {@link Jitter} so that the retries of many clients that failed at the same time
+ * do not arrive at Cerberus in lockstep. A failed result may also say how long to wait, e.g. with the Retry-After
+ * header of a 429 response; the retry then waits at least that long, and is not made if that is longer than the
+ * max delay.
+ * </p>
+ * <p>
+ * Retries are also limited by a token bucket retry budget: each failed attempt takes a token and each successful
+ * call returns a fraction of one, and retries stop while the bucket is less than half full. A client whose calls
+ * mostly fail therefore stops adding retries to the load of a struggling Cerberus, and resumes once calls succeed
+ * again. So that a client that makes few calls is not left without retries by a couple of failures, the budget
+ * always allows a minimum number of retries per second, as the retry budgets of Finagle do. The budget is held by
+ * the policy instance; share an instance to share its budget.
+ * </p>
+ */
+public final class CerberusRetryPolicy {
+
+    /**
+     * How the exponential backoff between attempts is randomized.
+     */
+    public enum Jitter {
+
+        /**
+         * Waits exactly the base delay doubled for each previous retry, capped at the max delay.
+         */
+        NONE,
+
+        /**
+         * Waits a random time between zero and the exponential backoff.
+         */
+        FULL,
+
+        /**
+         * Waits a random time between the base delay and three times the previous wait, capped at the max delay.
+         */
+        DECORRELATED
+    }
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(250);
+
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(10);
+
+    public static final Jitter DEFAULT_JITTER = Jitter.FULL;
+
+    public static final int DEFAULT_BUDGET_MAX_TOKENS = 10;
+
+    public static final double DEFAULT_BUDGET_TOKEN_RATIO = 0.1;
+
+    public static final double DEFAULT_BUDGET_MIN_RETRIES_PER_SECOND = 10;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CerberusRetryPolicy.class);
+
+    private final int maxAttempts;
+
+    private final Duration baseDelay;
+
+    private final Duration maxDelay;
+
+    private final Jitter jitter;
+
+    private final RetryBudget retryBudget;
+
+    private CerberusRetryPolicy(final Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelay = builder.baseDelay;
+        this.maxDelay = builder.maxDelay;
+        this.jitter = builder.jitter;
+        this.retryBudget = builder.retryBudget != null
+                ? builder.retryBudget
+                : new RetryBudget(builder.budgetMaxTokens, builder.budgetTokenRatio,
+                        builder.budgetMinRetriesPerSecond, builder.nanoClock);
+    }
+
+    /**
+     * Creates a policy with the default settings and its own retry budget.
+     *
+     * @return Retry policy
+     */
+    public static CerberusRetryPolicy ofDefaults() {
+        return builder().build();
+    }
+
+    /**
+     * Returns a builder initialized with the default settings.
+     *
+     * @return Retry policy builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns a builder initialized with the settings of this policy. Policies built from it share the retry
+     * budget of this policy unless a new one is configured.
+     *
+     * @return Retry policy builder
+     */
+    public Builder toBuilder() {
+        final Builder builder = new Builder()
+                .maxAttempts(maxAttempts)
+                .baseDelay(baseDelay)
+                .maxDelay(maxDelay)
+                .jitter(jitter);
+        builder.retryBudget = retryBudget;
+        return builder;
+    }
+
+    /**
+     * @return Max attempts of a call, including the first
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return Wait before the first retry, before jitter
+     */
+    public Duration getBaseDelay() {
+        return baseDelay;
+    }
+
+    /**
+     * @return Upper bound of the wait between attempts
+     */
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * @return How the wait between attempts is randomized
+     */
+    public Jitter getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @return Tokens left in the retry budget; retries are made while more than half of the max tokens are left
+     */
+    public double getRetryBudgetTokens() {
+        return retryBudget.getTokens();
+    }
+
+    /**
+     * @return Retries per second the retry budget allows even while it is exhausted
+     */
+    public double getRetryBudgetMinRetriesPerSecond() {
+        return retryBudget.minRetriesPerSecond;
+    }
+
+    /**
+     * Returns a policy with the settings of this one and a new, full retry budget of the same size.
+     *
+     * @return Retry policy with its own budget
+     */
+    CerberusRetryPolicy withOwnRetryBudget() {
+        return toBuilder()
+                .retryBudget((int) (retryBudget.maxTokens / RetryBudget.SCALE),
+                        (double) retryBudget.tokensPerSuccess / RetryBudget.SCALE, retryBudget.minRetriesPerSecond)
+                .nanoClock(retryBudget.nanoClock)
+                .build();
+    }
+
+    /**
+     * Makes an attempt, retrying it according to this policy while it throws an I/O error or returns a result
+     * that is a failure. A failed result that is retried is closed if it is {@link Closeable}. If the thread is
+     * interrupted while waiting, no more retries are made.
+     *
+     * @param attempt       The attempt to make
+     * @param retryOnResult Whether a result is a failure that should be retried, e.g. a 5xx response
+     * @param <T>           Type of the result
+     * @return The first result that is not a failure, or the last result if no more retries may be made
+     * @throws IOException The I/O error of the last attempt, if no more retries may be made
+     */
+    public <T> T execute(final Attempt<T> attempt, final Predicate<? super T> retryOnResult) throws IOException {
+        return execute(attempt, retryOnResult, result -> null);
+    }
+
+    /**
+     * Makes an attempt like {@link #execute(Attempt, Predicate)}, waiting at least as long as a failed result asks
+     * before it is retried.
+     *
+     * @param attempt       The attempt to make
+     * @param retryOnResult Whether a result is a failure that should be retried, e.g. a 5xx response
+     * @param retryAfter    How long a failed result asks to wait before the retry, or null if it does not
+     * @param <T>           Type of the result
+     * @return The first result that is not a failure, or the last result if no more retries may be made
+     * @throws IOException The I/O error of the last attempt, if no more retries may be made
+     */
+    public <T> T execute(final Attempt<T> attempt,
+                         final Predicate<? super T> retryOnResult,
+                         final Function<? super T, Duration> retryAfter) throws IOException {
+        final Backoff backoff = newBackoff();
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            final T result;
+            try {
+                result = attempt.call();
+            } catch (IOException | RuntimeException e) {
+                if (!isRetryable(e) || !retryAfterFailure(attemptNumber, backoff, null)) {
+                    throw e;
+                }
+                LOGGER.debug("Attempt {} of {} failed, retrying", attemptNumber, maxAttempts, e);
+                continue;
+            }
+
+            if (!retryOnResult.test(result)) {
+                onSuccess();
+                return result;
+            }
+            if (!retryAfterFailure(attemptNumber, backoff, retryAfter.apply(result))) {
+                return result;
+            }
+            LOGGER.debug("Attempt {} of {} failed with result {}, retrying", attemptNumber, maxAttempts, result);
+            if (result instanceof Closeable) {
+                try {
+                    ((Closeable) result).close();
+                } catch (IOException e) {
+                    LOGGER.debug("Failed to close the result of a failed attempt", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Whether the failure is an I/O error, or caused by one, rather than e.g. a call that was not permitted
+     */
+    static boolean isRetryable(final Throwable failure) {
+        return failure instanceof IOException
+                || (failure instanceof CerberusClientException && failure.getCause() instanceof IOException);
+    }
+
+    /**
+     * Starts the backoff of a new call, which keeps the previous wait for decorrelated jitter.
+     */
+    Backoff newBackoff() {
+        return new Backoff();
+    }
+
+    /**
+     * Returns a token fraction to the retry budget for a successful call.
+     */
+    void onSuccess() {
+        retryBudget.onSuccess();
+    }
+
+    /**
+     * Takes a token from the retry budget for a failed attempt.
+     *
+     * @return Whether the budget still allows a retry
+     */
+    boolean onFailure() {
+        return retryBudget.onFailure();
+    }
+
+    private boolean retryAfterFailure(final int attemptNumber, final Backoff backoff, final Duration retryAfter) {
+        final boolean budgetLeft = onFailure();
+        if (attemptNumber >= maxAttempts) {
+            return false;
+        }
+        if (!budgetLeft) {
+            LOGGER.debug("Retry budget exhausted, not retrying");
+            return false;
+        }
+
+        final long delayNanos = backoff.nextDelayNanos(retryAfter);
+        if (delayNanos < 0) {
+            LOGGER.debug("Asked to retry after {}, which is longer than the max delay, not retrying", retryAfter);
+            return false;
+        }
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * A functional interface for an attempt to call Cerberus.
+     *
+     * @param <T> Type of the result
+     */
+    @FunctionalInterface
+    public interface Attempt<T> {
+
+        /**
+         * @return Result of the attempt
+         * @throws IOException If the attempt failed with an I/O error
+         */
+        T call() throws IOException;
+    }
+
+    /**
+     * The waits between the attempts of one call.
+     */
+    final class Backoff {
+
+        private int retries;
+
+        private long previousDelayNanos = baseDelay.toNanos();
+
+        /**
+         * @return How long to wait before the next retry
+         */
+        long nextDelayNanos() {
+            final long baseNanos = baseDelay.toNanos();
+            final long maxNanos = maxDelay.toNanos();
+            final long delayNanos;
+            switch (jitter) {
+                case DECORRELATED:
+                    final long upperNanos = Math.min(maxNanos, Math.max(baseNanos, previousDelayNanos) * 3);
+                    delayNanos = upperNanos <= baseNanos
+                            ? baseNanos : ThreadLocalRandom.current().nextLong(baseNanos, upperNanos + 1);
+                    break;
+                case FULL:
+                    delayNanos = ThreadLocalRandom.current().nextLong(exponentialNanos(baseNanos, maxNanos) + 1);
+                    break;
+                default:
+                    delayNanos = exponentialNanos(baseNanos, maxNanos);
+            }
+            retries++;
+            previousDelayNanos = delayNanos;
+            return delayNanos;
+        }
+
+        /**
+         * @param retryAfter How long the failed attempt asked to wait, or null if it did not
+         * @return How long to wait before the next retry, or -1 if asked to wait longer than the max delay
+         */
+        long nextDelayNanos(final Duration retryAfter) {
+            if (retryAfter == null) {
+                return nextDelayNanos();
+            }
+            if (retryAfter.compareTo(maxDelay) > 0) {
+                return -1;
+            }
+            return Math.max(nextDelayNanos(), retryAfter.toNanos());
+        }
+
+        private long exponentialNanos(final long baseNanos, final long maxNanos) {
+            long delayNanos = baseNanos;
+            for (int i = 0; i < retries && delayNanos < maxNanos; i++) {
+                delayNanos *= 2;
+            }
+            return Math.min(delayNanos, maxNanos);
+        }
+    }
+
+    /**
+     * Token bucket of a retry budget, with a second bucket that refills at the min retries per second and allows
+     * retries once the first is exhausted. Tokens are kept in thousandths so that fractional returns add up
+     * exactly.
+     */
+    private static final class RetryBudget {
+
+        private static final long SCALE = 1000;
+
+        private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+        private final long maxTokens;
+
+        private final long tokensPerSuccess;
+
+        private final double minRetriesPerSecond;
+
+        private final long maxFloorTokens;
+
+        private final LongSupplier nanoClock;
+
+        private long tokens;
+
+        private long floorTokens;
+
+        private long floorRefilledNanos;
+
+        private RetryBudget(final int maxTokens,
+                            final double tokenRatio,
+                            final double minRetriesPerSecond,
+                            final LongSupplier nanoClock) {
+            this.maxTokens = maxTokens * SCALE;
+            this.tokensPerSuccess = Math.round(tokenRatio * SCALE);
+            this.minRetriesPerSecond = minRetriesPerSecond;
+            // a second's worth of retries, and at least one so that a floor below one per second is reachable
+            this.maxFloorTokens = minRetriesPerSecond > 0 ? (long) (Math.max(1, minRetriesPerSecond) * SCALE) : 0;
+            this.nanoClock = nanoClock;
+            this.tokens = this.maxTokens;
+            this.floorTokens = maxFloorTokens;
+            this.floorRefilledNanos = nanoClock.getAsLong();
+        }
+
+        synchronized double getTokens() {
+            return (double) tokens / SCALE;
+        }
+
+        synchronized void onSuccess() {
+            tokens = Math.min(maxTokens, tokens + tokensPerSuccess);
+        }
+
+        synchronized boolean onFailure() {
+            tokens = Math.max(0, tokens - SCALE);
+            if (tokens > maxTokens / 2) {
+                return true;
+            }
+
+            final long nowNanos = nanoClock.getAsLong();
+            final double refill = (nowNanos - floorRefilledNanos) / NANOS_PER_SECOND * minRetriesPerSecond * SCALE;
+            floorTokens = (long) Math.min(maxFloorTokens, floorTokens + refill);
+            floorRefilledNanos = nowNanos;
+            if (floorTokens < SCALE) {
+                return false;
+            }
+            floorTokens -= SCALE;
+            return true;
+        }
+    }
+
+    /**
+     * Builder for {@link CerberusRetryPolicy}.
+     */
+    public static final class Builder {
+
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+        private Duration baseDelay = DEFAULT_BASE_DELAY;
+
+        private Duration maxDelay = DEFAULT_MAX_DELAY;
+
+        private Jitter jitter = DEFAULT_JITTER;
+
+        private int budgetMaxTokens = DEFAULT_BUDGET_MAX_TOKENS;
+
+        private double budgetTokenRatio = DEFAULT_BUDGET_TOKEN_RATIO;
+
+        private double budgetMinRetriesPerSecond = DEFAULT_BUDGET_MIN_RETRIES_PER_SECOND;
+
+        private LongSupplier nanoClock = System::nanoTime;
+
+        /**
+         * Budget shared with the policy this builder was created from, until a new budget is configured.
+         */
+        private RetryBudget retryBudget;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxAttempts Max attempts of a call, including the first; 1 disables retries
+         * @return This builder
+         */
+        public Builder maxAttempts(final int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("Max attempts must be positive.");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param baseDelay Wait before the first retry, before jitter
+         * @return This builder
+         */
+        public Builder baseDelay(final Duration baseDelay) {
+            if (baseDelay == null || baseDelay.isNegative()) {
+                throw new IllegalArgumentException("Base delay cannot be null or negative.");
+            }
+            this.baseDelay = baseDelay;
+            return this;
+        }
+
+        /**
+         * @param maxDelay Upper bound of the wait between attempts
+         * @return This builder
+         */
+        public Builder maxDelay(final Duration maxDelay) {
+            if (maxDelay == null || maxDelay.isNegative()) {
+                throw new IllegalArgumentException("Max delay cannot be null or negative.");
+            }
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * @param jitter How the wait between attempts is randomized
+         * @return This builder
+         */
+        public Builder jitter(final Jitter jitter) {
+            if (jitter == null) {
+                throw new IllegalArgumentException("Jitter cannot be null.");
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Configures a new retry budget that allows {@value #DEFAULT_BUDGET_MIN_RETRIES_PER_SECOND} retries per
+         * second even while it is exhausted.
+         *
+         * @param maxTokens  Tokens in a full bucket; each failed attempt takes one
+         * @param tokenRatio Fraction of a token each successful call returns
+         * @return This builder
+         */
+        public Builder retryBudget(final int maxTokens, final double tokenRatio) {
+            return retryBudget(maxTokens, tokenRatio, DEFAULT_BUDGET_MIN_RETRIES_PER_SECOND);
+        }
+
+        /**
+         * Configures a new retry budget.
+         *
+         * @param maxTokens           Tokens in a full bucket; each failed attempt takes one
+         * @param tokenRatio          Fraction of a token each successful call returns
+         * @param minRetriesPerSecond Retries allowed per second even while the bucket is less than half full; 0
+         *                            leaves retries to the bucket alone
+         * @return This builder
+         */
+        public Builder retryBudget(final int maxTokens, final double tokenRatio, final double minRetriesPerSecond) {
+            if (maxTokens < 1) {
+                throw new IllegalArgumentException("Max tokens must be positive.");
+            }
+            if (!(tokenRatio > 0 && tokenRatio <= maxTokens)) {
+                throw new IllegalArgumentException("Token ratio must be positive and at most the max tokens.");
+            }
+            if (!(minRetriesPerSecond >= 0) || Double.isInfinite(minRetriesPerSecond)) {
+                throw new IllegalArgumentException("Min retries per second cannot be negative.");
+            }
+            this.budgetMaxTokens = maxTokens;
+            this.budgetTokenRatio = tokenRatio;
+            this.budgetMinRetriesPerSecond = minRetriesPerSecond;
+            this.retryBudget = null;
+            return this;
+        }
+
+        /**
+         * @param nanoClock Clock the retry budget's min retries per second are measured by
+         * @return This builder
+         */
+        Builder nanoClock(final LongSupplier nanoClock) {
+            this.nanoClock = nanoClock;
+            return this;
+        }
+
+        /**
+         * @return Retry policy
+         */
+        public CerberusRetryPolicy build() {
+            if (maxDelay.compareTo(baseDelay) < 0) {
+                throw new IllegalArgumentException("Max delay cannot be less than the base delay.");
+            }
+            return new CerberusRetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import okhttp3.OkHttpClient;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A reference to an HTTP transport shared through a {@link CerberusTransportRegistry}. Every reference to the same
+ * endpoint and TLS configuration hands out an {@link OkHttpClient} backed by the same connection pool and
+ * dispatcher. Closing the reference releases it; the pool and dispatcher are shut down once the last reference is
+ * released, after which the client must no longer be used.
+ */
+public final class CerberusTransport implements Closeable {
+
+    private final CerberusTransportRegistry registry;
+
+    private final Object key;
+
+    private final OkHttpClient httpClient;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    CerberusTransport(final CerberusTransportRegistry registry, final Object key, final OkHttpClient httpClient) {
+        this.registry = registry;
+        this.key = key;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Returns the shared HTTP client. Use {@link OkHttpClient#newBuilder()} to derive a client with other
+     * timeouts that still shares the connection pool and dispatcher.
+     *
+     * @return Shared HTTP client
+     */
+    public OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Releases this reference. Calling it more than once has no further effect.
+     */
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            registry.release(key);
+        }
+    }
+}
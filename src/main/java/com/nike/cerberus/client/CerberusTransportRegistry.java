@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import okhttp3.ConnectionPool;
+import okhttp3.ConnectionSpec;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.X509TrustManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.nike.cerberus.client.CerberusClientFactory.DEFAULT_TIMEOUT;
+import static com.nike.cerberus.client.CerberusClientFactory.DEFAULT_TIMEOUT_UNIT;
+import static com.nike.cerberus.client.CerberusClientFactory.TLS_1_2_OR_NEWER;
+import static okhttp3.ConnectionSpec.CLEARTEXT;
+
+/**
+ * Shares HTTP transports between the Cerberus clients and credentials providers that talk to the same endpoint.
+ * <p>
+ * A transport is an {@link OkHttpClient} with its own connection pool and dispatcher, keyed by the scheme, host
+ * and port of the Cerberus URL and by the TLS configuration. {@link #acquire(String)} hands out a reference
+ * counted {@link CerberusTransport}; the transport is created on the first reference and its idle connections are
+ * evicted and its dispatcher shut down when the last reference is closed. The {@link CerberusTransportSettings}
+ * given to the registry apply to every transport it creates.
+ * </p>
+ */
+public final class CerberusTransportRegistry {
+
+    /**
+     * Same as the OkHttp default.
+     */
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+
+    /**
+     * Same as the OkHttp default.
+     */
+    public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofMinutes(5);
+
+    /**
+     * Same as the OkHttp default.
+     */
+    public static final int DEFAULT_MAX_REQUESTS = 64;
+
+    /**
+     * Same as the OkHttp default.
+     */
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+
+    private final CerberusTransportSettings settings;
+
+    private final Map<TransportKey, SharedTransport> transports = new HashMap<>();
+
+    /**
+     * Creates a registry whose transports use the default {@link CerberusTransportSettings}.
+     */
+    public CerberusTransportRegistry() {
+        this(CerberusTransportSettings.builder().build());
+    }
+
+    /**
+     * Creates a registry with the connection pool and dispatcher settings of every transport it creates.
+     *
+     * @param maxIdleConnections Max idle connections kept per transport
+     * @param keepAlive          How long an idle connection is kept before it is evicted
+     * @param maxRequests        Max asynchronous HTTP requests in-flight per transport
+     * @param maxRequestsPerHost Max asynchronous HTTP requests in-flight per host and transport
+     */
+    public CerberusTransportRegistry(final int maxIdleConnections,
+                                     final Duration keepAlive,
+                                     final int maxRequests,
+                                     final int maxRequestsPerHost) {
+
+        this(CerberusTransportSettings.builder()
+                .maxIdleConnections(maxIdleConnections)
+                .keepAlive(keepAlive)
+                .maxRequests(maxRequests)
+                .maxRequestsPerHost(maxRequestsPerHost)
+                .build());
+    }
+
+    /**
+     * Creates a registry with the settings of every transport it creates.
+     *
+     * @param settings Transport settings
+     */
+    public CerberusTransportRegistry(final CerberusTransportSettings settings) {
+        if (settings == null) {
+            throw new IllegalArgumentException("Transport settings cannot be null.");
+        }
+
+        this.settings = settings;
+    }
+
+    /**
+     * @return The settings of the transports this registry creates
+     */
+    public CerberusTransportSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Acquires a reference to the transport for the Cerberus URL using the default TLS configuration.
+     *
+     * @param cerberusUrl URL for Cerberus
+     * @return Transport reference, to be closed when no longer used
+     */
+    public CerberusTransport acquire(final String cerberusUrl) {
+        return acquire(cerberusUrl, null, null);
+    }
+
+    /**
+     * Acquires a reference to the transport for the Cerberus URL using the specified SSLSocketFactory and
+     * TrustManager. Pass {@code null} for both to use the default TLS configuration.
+     *
+     * @param cerberusUrl      URL for Cerberus
+     * @param sslSocketFactory the factory to use for TLS
+     * @param trustManager     the trust manager to use for TLS
+     * @return Transport reference, to be closed when no longer used
+     */
+    public CerberusTransport acquire(final String cerberusUrl,
+                                     final SSLSocketFactory sslSocketFactory,
+                                     final X509TrustManager trustManager) {
+
+        if (cerberusUrl == null) {
+            throw new IllegalArgumentException("Cerberus URL cannot be null.");
+        }
+
+        if ((sslSocketFactory == null) != (trustManager == null)) {
+            throw new IllegalArgumentException("SSL socket factory and trust manager must be set together.");
+        }
+
+        final TransportKey key = new TransportKey(origin(cerberusUrl), sslSocketFactory, trustManager);
+        synchronized (transports) {
+            SharedTransport transport = transports.get(key);
+            if (transport == null) {
+                transport = new SharedTransport(createHttpClient(sslSocketFactory, trustManager));
+                transports.put(key, transport);
+            }
+            transport.references++;
+            return new CerberusTransport(this, key, transport.httpClient);
+        }
+    }
+
+    /**
+     * Returns the number of transports that are currently referenced.
+     *
+     * @return Number of transports
+     */
+    public int size() {
+        synchronized (transports) {
+            return transports.size();
+        }
+    }
+
+    void release(final Object key) {
+        final SharedTransport transport;
+        synchronized (transports) {
+            transport = transports.get(key);
+            if (transport == null || --transport.references > 0) {
+                return;
+            }
+            transports.remove(key);
+        }
+
+        transport.httpClient.dispatcher().executorService().shutdown();
+        transport.httpClient.connectionPool().evictAll();
+    }
+
+    private OkHttpClient createHttpClient(final SSLSocketFactory sslSocketFactory,
+                                          final X509TrustManager trustManager) {
+
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(settings.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(settings.getMaxRequestsPerHost());
+
+        final List<ConnectionSpec> connectionSpecs = new ArrayList<>();
+        connectionSpecs.add(TLS_1_2_OR_NEWER);
+
+        final OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
+                .writeTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
+                .readTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
+                .connectionPool(new ConnectionPool(settings.getMaxIdleConnections(),
+                        settings.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .protocols(settings.getProtocols())
+                .pingInterval(settings.getPingInterval().toMillis(), TimeUnit.MILLISECONDS);
+
+        if (sslSocketFactory != null) {
+            builder.sslSocketFactory(sslSocketFactory, trustManager);
+        } else {
+            // for unit tests
+            connectionSpecs.add(CLEARTEXT);
+        }
+
+        return builder.connectionSpecs(connectionSpecs).build();
+    }
+
+    /**
+     * Reduces the URL to the part that selects a connection, so that clients of different paths on the same
+     * Cerberus share a transport.
+     */
+    private static String origin(final String cerberusUrl) {
+        final HttpUrl url = HttpUrl.parse(cerberusUrl);
+        return url == null ? cerberusUrl : url.scheme() + "://" + url.host() + ":" + url.port();
+    }
+
+    /**
+     * Transport with the number of open references to it. Guarded by the registry's map.
+     */
+    private static final class SharedTransport {
+        private final OkHttpClient httpClient;
+        private int references;
+
+        private SharedTransport(final OkHttpClient httpClient) {
+            this.httpClient = httpClient;
+        }
+    }
+
+    /**
+     * Endpoint and TLS configuration of a transport. TLS objects are compared by identity since they rarely
+     * implement equality.
+     */
+    private static final class TransportKey {
+        private final String origin;
+        private final SSLSocketFactory sslSocketFactory;
+        private final X509TrustManager trustManager;
+
+        private TransportKey(final String origin,
+                             final SSLSocketFactory sslSocketFactory,
+                             final X509TrustManager trustManager) {
+            this.origin = origin;
+            this.sslSocketFactory = sslSocketFactory;
+            this.trustManager = trustManager;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TransportKey)) {
+                return false;
+            }
+            final TransportKey other = (TransportKey) o;
+            return origin.equals(other.origin)
+                    && sslSocketFactory == other.sslSocketFactory
+                    && trustManager == other.trustManager;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * origin.hashCode() + System.identityHashCode(sslSocketFactory))
+                    + System.identityHashCode(trustManager);
+        }
+    }
+}
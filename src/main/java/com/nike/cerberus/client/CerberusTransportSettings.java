@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import okhttp3.Protocol;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Connection settings of the transports created by a {@link CerberusTransportRegistry}.
+ * <p>
+ * By default a transport negotiates HTTP/2 over TLS when Cerberus offers it and falls back to HTTP/1.1, keeps up
+ * to 5 idle connections for 5 minutes and allows 64 asynchronous requests in flight, 5 of them per host; these
+ * are the OkHttp defaults. HTTP/2 multiplexes all requests over a single connection, so when it is used the max
+ * requests per host can be raised without opening more connections. Use {@link Protocol#H2_PRIOR_KNOWLEDGE} to
+ * speak HTTP/2 to a cleartext endpoint, e.g. a sidecar proxy.
+ * </p>
+ */
+public final class CerberusTransportSettings {
+
+    private static final List<Protocol> DEFAULT_PROTOCOLS =
+            Collections.unmodifiableList(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+
+    private final List<Protocol> protocols;
+
+    private final int maxIdleConnections;
+
+    private final Duration keepAlive;
+
+    private final Duration pingInterval;
+
+    private final int maxRequests;
+
+    private final int maxRequestsPerHost;
+
+    private CerberusTransportSettings(final Builder builder) {
+        this.protocols = builder.protocols;
+        this.maxIdleConnections = builder.maxIdleConnections;
+        this.keepAlive = builder.keepAlive;
+        this.pingInterval = builder.pingInterval;
+        this.maxRequests = builder.maxRequests;
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+    }
+
+    /**
+     * Returns a builder initialized with the default settings.
+     *
+     * @return Settings builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Protocols offered to Cerberus, in order of preference
+     */
+    public List<Protocol> getProtocols() {
+        return protocols;
+    }
+
+    /**
+     * @return Max idle connections kept per transport
+     */
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    /**
+     * @return How long an idle connection is kept before it is evicted
+     */
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @return Interval of HTTP/2 pings on an open connection, zero if pings are disabled
+     */
+    public Duration getPingInterval() {
+        return pingInterval;
+    }
+
+    /**
+     * @return Max asynchronous HTTP requests in flight per transport
+     */
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * @return Max asynchronous HTTP requests in flight per host and transport
+     */
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    /**
+     * Returns a builder initialized with these settings.
+     *
+     * @return Settings builder
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .protocols(protocols)
+                .maxIdleConnections(maxIdleConnections)
+                .keepAlive(keepAlive)
+                .pingInterval(pingInterval)
+                .maxRequests(maxRequests)
+                .maxRequestsPerHost(maxRequestsPerHost);
+    }
+
+    /**
+     * Builder for {@link CerberusTransportSettings}.
+     */
+    public static final class Builder {
+
+        private List<Protocol> protocols = DEFAULT_PROTOCOLS;
+
+        private int maxIdleConnections = CerberusTransportRegistry.DEFAULT_MAX_IDLE_CONNECTIONS;
+
+        private Duration keepAlive = CerberusTransportRegistry.DEFAULT_KEEP_ALIVE;
+
+        private Duration pingInterval = Duration.ZERO;
+
+        private int maxRequests = CerberusTransportRegistry.DEFAULT_MAX_REQUESTS;
+
+        private int maxRequestsPerHost = CerberusTransportRegistry.DEFAULT_MAX_REQUESTS_PER_HOST;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the protocols offered to Cerberus, in order of preference. The list must contain
+         * {@link Protocol#HTTP_1_1}, or consist of {@link Protocol#H2_PRIOR_KNOWLEDGE} only.
+         *
+         * @param protocols Protocols to offer
+         * @return This builder
+         */
+        public Builder protocols(final List<Protocol> protocols) {
+            if (protocols == null) {
+                throw new IllegalArgumentException("Protocols cannot be null.");
+            }
+
+            final List<Protocol> copy = new ArrayList<>(protocols);
+            final boolean priorKnowledge = copy.contains(Protocol.H2_PRIOR_KNOWLEDGE);
+            if (priorKnowledge ? copy.size() != 1 : !copy.contains(Protocol.HTTP_1_1)) {
+                throw new IllegalArgumentException(
+                        "Protocols must contain HTTP/1.1 or consist of H2_PRIOR_KNOWLEDGE only: " + copy);
+            }
+            if (copy.contains(Protocol.HTTP_1_0) || copy.contains(null)) {
+                throw new IllegalArgumentException("Protocols must not contain HTTP/1.0 or null: " + copy);
+            }
+
+            this.protocols = Collections.unmodifiableList(copy);
+            return this;
+        }
+
+        /**
+         * Sets how many idle connections each transport keeps.
+         *
+         * @param maxIdleConnections Max idle connections
+         * @return This builder
+         */
+        public Builder maxIdleConnections(final int maxIdleConnections) {
+            if (maxIdleConnections < 0) {
+                throw new IllegalArgumentException("Max idle connections cannot be negative.");
+            }
+
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * Sets how long an idle connection is kept before it is evicted.
+         *
+         * @param keepAlive Keep-alive of idle connections
+         * @return This builder
+         */
+        public Builder keepAlive(final Duration keepAlive) {
+            if (keepAlive == null || keepAlive.isNegative() || keepAlive.isZero()) {
+                throw new IllegalArgumentException("Keep-alive must be positive.");
+            }
+
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * Sets the interval of HTTP/2 pings, which detect connections that were silently dropped, e.g. by a load
+         * balancer, before a request is sent on them. Zero disables pings.
+         *
+         * @param pingInterval Ping interval
+         * @return This builder
+         */
+        public Builder pingInterval(final Duration pingInterval) {
+            if (pingInterval == null || pingInterval.isNegative()) {
+                throw new IllegalArgumentException("Ping interval cannot be negative.");
+            }
+
+            this.pingInterval = pingInterval;
+            return this;
+        }
+
+        /**
+         * Sets how many asynchronous requests each transport runs at the same time.
+         *
+         * @param maxRequests Max requests in flight
+         * @return This builder
+         */
+        public Builder maxRequests(final int maxRequests) {
+            if (maxRequests < 1) {
+                throw new IllegalArgumentException("Max requests must be positive.");
+            }
+
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * Sets how many asynchronous requests each transport runs against one host at the same time.
+         *
+         * @param maxRequestsPerHost Max requests in flight per host
+         * @return This builder
+         */
+        public Builder maxRequestsPerHost(final int maxRequestsPerHost) {
+            if (maxRequestsPerHost < 1) {
+                throw new IllegalArgumentException("Max requests per host must be positive.");
+            }
+
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * @return The settings
+         */
+        public CerberusTransportSettings build() {
+            return new CerberusTransportSettings(this);
+        }
+    }
+}
@@ -17,14 +17,11 @@
 package com.nike.cerberus.client;
 
 import com.nike.cerberus.client.auth.DefaultCerberusCredentialsProviderChain;
-import okhttp3.ConnectionSpec;
 import okhttp3.OkHttpClient;
 
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.X509TrustManager;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -42,14 +39,7 @@ public final class DefaultCerberusClientFactory {
      * @return Cerberus client
      */
     public static CerberusClient getClient(String cerberusUrl, String region) {
-
-        final Map<String, String> defaultHeaders = new HashMap<>();
-        defaultHeaders.put(ClientVersion.CERBERUS_CLIENT_HEADER, ClientVersion.getClientHeaderValue());
-
-        return CerberusClientFactory.getClient(
-                cerberusUrl,
-                new DefaultCerberusCredentialsProviderChain(cerberusUrl, region),
-                defaultHeaders);
+        return createClient(cerberusUrl, region, null, null);
     }
 
     /**
@@ -65,25 +55,36 @@ public final class DefaultCerberusClientFactory {
      * @return Cerberus client
      */
     public static CerberusClient getClient(String cerberusUrl, String region, SSLSocketFactory sslSocketFactory, X509TrustManager trustManager) {
+        if (sslSocketFactory == null || trustManager == null) {
+            throw new IllegalArgumentException("SSL socket factory and trust manager cannot be null.");
+        }
 
-        final Map<String, String> defaultHeaders = new HashMap<>();
-        defaultHeaders.put(ClientVersion.CERBERUS_CLIENT_HEADER, ClientVersion.getClientHeaderValue());
+        return createClient(cerberusUrl, region, sslSocketFactory, trustManager);
+    }
 
-        List<ConnectionSpec> connectionSpecs = new ArrayList<>();
-        connectionSpecs.add(CerberusClientFactory.TLS_1_2_OR_NEWER);
+    /**
+     * Creates the client and its credentials provider chain on a single reference to the shared transport, which
+     * the client releases when it is closed.
+     */
+    private static CerberusClient createClient(String cerberusUrl, String region, SSLSocketFactory sslSocketFactory, X509TrustManager trustManager) {
 
-        OkHttpClient httpClient = new OkHttpClient.Builder()
-                .connectTimeout(CerberusClientFactory.DEFAULT_TIMEOUT, CerberusClientFactory.DEFAULT_TIMEOUT_UNIT)
-                .writeTimeout(CerberusClientFactory.DEFAULT_TIMEOUT, CerberusClientFactory.DEFAULT_TIMEOUT_UNIT)
-                .readTimeout(CerberusClientFactory.DEFAULT_TIMEOUT, CerberusClientFactory.DEFAULT_TIMEOUT_UNIT)
-                .sslSocketFactory(sslSocketFactory, trustManager)
-                .connectionSpecs(connectionSpecs)
-                .build();
+        final Map<String, String> defaultHeaders = new HashMap<>();
+        defaultHeaders.put(ClientVersion.CERBERUS_CLIENT_HEADER, ClientVersion.getClientHeaderValue());
 
-        return CerberusClientFactory.getClient(
-                cerberusUrl,
-                new DefaultCerberusCredentialsProviderChain(cerberusUrl, region, httpClient),
-                defaultHeaders,
-                httpClient);
+        final CerberusTransport transport = CerberusClientFactory.getTransportRegistry()
+                .acquire(cerberusUrl, sslSocketFactory, trustManager);
+        try {
+            final OkHttpClient httpClient = transport.getHttpClient();
+            final CerberusClient client = CerberusClientFactory.getClient(
+                    cerberusUrl,
+                    new DefaultCerberusCredentialsProviderChain(cerberusUrl, region, httpClient),
+                    defaultHeaders,
+                    httpClient);
+            client.releaseOnClose(transport);
+            return client;
+        } catch (RuntimeException e) {
+            transport.close();
+            throw e;
+        }
     }
 }
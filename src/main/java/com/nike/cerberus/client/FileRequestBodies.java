@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Request bodies for secure file uploads that stream their contents instead of holding them on the heap.
+ * <p>
+ * Bodies backed by a local file write the file through read-only memory mappings and can be written any number
+ * of times, so requests using them can be retried. Bodies backed by an {@link InputStream} can only be written
+ * once.
+ * </p>
+ */
+final class FileRequestBodies {
+
+    static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
+    /**
+     * Largest region mapped at once, which keeps files over 2 GB within the limits of a {@link MappedByteBuffer}.
+     */
+    private static final long MAX_MAPPING_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Bytes of a mapping handed to the sink at once. Okio copies whatever it is given into its buffer before
+     * emitting it, so writing a whole mapping would put the mapping on the heap.
+     */
+    static final int WRITE_CHUNK_SIZE = 8192;
+
+    private FileRequestBodies() {
+    }
+
+    /**
+     * @param contents File contents
+     * @return Replayable body of the contents
+     */
+    static RequestBody ofBytes(final byte[] contents) {
+        return RequestBody.create(OCTET_STREAM, contents);
+    }
+
+    /**
+     * @param file Local file to upload, opened for each write of the body
+     * @return Replayable body of the file's contents
+     * @throws IOException If the size of the file cannot be read
+     */
+    static RequestBody ofPath(final Path file) throws IOException {
+        final long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+        }
+
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return OCTET_STREAM;
+            }
+
+            @Override
+            public long contentLength() {
+                return size;
+            }
+
+            @Override
+            public void writeTo(final BufferedSink sink) throws IOException {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    writeMapped(channel, 0, size, sink);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param channel Channel to upload from its current position to its end, which remains open and whose
+     *                position is not changed
+     * @return Replayable body of the channel's contents
+     * @throws IOException If the position or size of the channel cannot be read
+     */
+    static RequestBody ofChannel(final FileChannel channel) throws IOException {
+        final long start = channel.position();
+        final long length = Math.max(0, channel.size() - start);
+
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return OCTET_STREAM;
+            }
+
+            @Override
+            public long contentLength() {
+                return length;
+            }
+
+            @Override
+            public void writeTo(final BufferedSink sink) throws IOException {
+                writeMapped(channel, start, length, sink);
+            }
+        };
+    }
+
+    /**
+     * @param inputStream   Stream of the contents, which is read once and not closed
+     * @param contentLength Exact number of bytes to read from the stream
+     * @return One-shot body of the stream's contents
+     */
+    static RequestBody ofStream(final InputStream inputStream, final long contentLength) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return OCTET_STREAM;
+            }
+
+            @Override
+            public long contentLength() {
+                return contentLength;
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return true;
+            }
+
+            @Override
+            public void writeTo(final BufferedSink sink) throws IOException {
+                // throws EOFException if the stream ends before contentLength bytes
+                sink.write(Okio.source(inputStream), contentLength);
+            }
+        };
+    }
+
+    /**
+     * @param delegate Body to wrap, such as a multipart body containing a one-shot part
+     * @return Body that writes the delegate and reports itself as one-shot so it is never replayed
+     */
+    static RequestBody oneShot(final RequestBody delegate) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return delegate.contentType();
+            }
+
+            @Override
+            public long contentLength() throws IOException {
+                return delegate.contentLength();
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return true;
+            }
+
+            @Override
+            public void writeTo(final BufferedSink sink) throws IOException {
+                delegate.writeTo(sink);
+            }
+        };
+    }
+
+    private static void writeMapped(final FileChannel channel,
+                                    final long start,
+                                    final long length,
+                                    final BufferedSink sink) throws IOException {
+        long position = start;
+        final long end = start + length;
+        while (position < end) {
+            final long regionSize = Math.min(MAX_MAPPING_SIZE, end - position);
+            final MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+            while (region.hasRemaining()) {
+                final ByteBuffer chunk = region.duplicate();
+                chunk.limit(Math.min(region.limit(), region.position() + WRITE_CHUNK_SIZE));
+                region.position(region.position() + sink.write(chunk));
+                sink.emitCompleteSegments();
+            }
+            position += regionSize;
+        }
+    }
+}
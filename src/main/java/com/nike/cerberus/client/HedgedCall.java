@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * One idempotent request sent according to a {@link HedgingPolicy}: if it is not answered within the hedge delay
+ * and the policy has a hedge to spare, the same request is sent again. The first response below 500 completes the
+ * future and the other call is cancelled. A server error or I/O failure only completes the future once no other
+ * call is left to wait for, so that the client's retries see the failure as if a single request had been sent.
+ */
+final class HedgedCall {
+
+    private final OkHttpClient httpClient;
+
+    private final Request request;
+
+    private final HedgingPolicy policy;
+
+    private final BooleanSupplier hedgePermit;
+
+    private final CompletableFuture<Response> future = new CompletableFuture<>();
+
+    /**
+     * Guards the fields below.
+     */
+    private final Object monitor = new Object();
+
+    private final List<Call> calls = new ArrayList<>(2);
+
+    private int pendingCalls;
+
+    private Call winningCall;
+
+    private Call serverErrorCall;
+
+    private Response serverError;
+
+    private IOException ioFailure;
+
+    private HedgedCall(final OkHttpClient httpClient,
+                       final Request request,
+                       final HedgingPolicy policy,
+                       final BooleanSupplier hedgePermit) {
+        this.httpClient = httpClient;
+        this.request = request;
+        this.policy = policy;
+        this.hedgePermit = hedgePermit;
+    }
+
+    /**
+     * Sends the request and schedules its hedge. The caller holds the permits for the first request only; the
+     * hedge is sent only if the hedge permit grants one for it as well.
+     *
+     * @param hedgePermit Asked whether the hedge may be sent when it is due, taking whatever it needs to send it
+     * @return Future of the first response, failed with the last I/O failure if no call got a response
+     */
+    static CompletableFuture<Response> start(final OkHttpClient httpClient,
+                                             final Request request,
+                                             final HedgingPolicy policy,
+                                             final BooleanSupplier hedgePermit,
+                                             final ScheduledExecutorService scheduler) {
+        final HedgedCall hedgedCall = new HedgedCall(httpClient, request, policy, hedgePermit);
+        policy.readStarted();
+        hedgedCall.send(false);
+
+        Future<?> hedge = null;
+        try {
+            hedge = scheduler.schedule(hedgedCall::hedge, policy.hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // the request simply goes unhedged
+        }
+
+        final Future<?> scheduledHedge = hedge;
+        hedgedCall.future.whenComplete((response, throwable) -> {
+            if (scheduledHedge != null) {
+                scheduledHedge.cancel(false);
+            }
+            hedgedCall.cancelLosers();
+        });
+        return hedgedCall.future;
+    }
+
+    private void hedge() {
+        if (!future.isDone() && policy.tryStartHedge(hedgePermit)) {
+            send(true);
+        }
+    }
+
+    private void send(final boolean isHedge) {
+        final Call call = httpClient.newCall(request);
+        synchronized (monitor) {
+            if (future.isDone()) {
+                return;
+            }
+            calls.add(call);
+            pendingCalls++;
+        }
+
+        final long startNanos = System.nanoTime();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(final Call call, final IOException e) {
+                failed(call, null, e);
+            }
+
+            @Override
+            public void onResponse(final Call call, final Response response) {
+                if (response.code() >= 500) {
+                    failed(call, response, null);
+                    return;
+                }
+                policy.recordLatency(System.nanoTime() - startNanos);
+                synchronized (monitor) {
+                    pendingCalls--;
+                    if (future.isDone()) {
+                        response.close();
+                        return;
+                    }
+                    if (isHedge) {
+                        policy.hedgeWon();
+                    }
+                    complete(call, response);
+                }
+            }
+        });
+    }
+
+    private void failed(final Call call, final Response response, final IOException e) {
+        synchronized (monitor) {
+            pendingCalls--;
+            if (future.isDone()) {
+                closeQuietly(response);
+                return;
+            }
+            if (response != null) {
+                closeQuietly(serverError);
+                serverErrorCall = call;
+                serverError = response;
+            } else {
+                ioFailure = e;
+            }
+            if (pendingCalls > 0) {
+                return;
+            }
+
+            // a server error is passed on as the response of an unhedged request would be
+            if (serverError != null) {
+                complete(serverErrorCall, serverError);
+            } else {
+                future.completeExceptionally(ioFailure);
+            }
+        }
+    }
+
+    /**
+     * Completes the future with the response of the given call. Called with the monitor held, so that the winning
+     * call is known before {@link #cancelLosers()} runs.
+     */
+    private void complete(final Call call, final Response response) {
+        winningCall = call;
+        future.complete(response);
+    }
+
+    /**
+     * Cancels the calls other than the winning one and closes a server error that did not win.
+     */
+    private void cancelLosers() {
+        synchronized (monitor) {
+            for (Call call : calls) {
+                if (call != winningCall) {
+                    call.cancel();
+                }
+            }
+            if (serverErrorCall != winningCall) {
+                closeQuietly(serverError);
+            }
+        }
+    }
+
+    private static void closeQuietly(final Response response) {
+        if (response != null) {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Decides when the idempotent reads of a {@link CerberusClient} send a second, hedged request.
+ * <p>
+ * A read that has not been answered after the hedge delay is sent again and the first answer wins. The delay is
+ * the configured percentile of the latencies of recent reads, bounded by a min and max delay, so that only the
+ * slowest reads are hedged; until enough reads have been measured the max delay is used. Each read earns
+ * {@code maxHedgeRate} of a hedge and each hedge spends a whole one, with up to {@value #MAX_SAVED_HEDGES} saved for
+ * bursts, so that hedges cannot add more than that fraction of load when Cerberus slows down as a whole. A policy is
+ * thread safe and may be shared between clients.
+ * </p>
+ */
+public final class HedgingPolicy {
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+
+    public static final double DEFAULT_MAX_HEDGE_RATE = 0.05;
+
+    public static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(10);
+
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(1);
+
+    /**
+     * Hedges that can be saved up for a burst of slow reads.
+     */
+    static final int MAX_SAVED_HEDGES = 10;
+
+    /**
+     * Number of recent latencies the percentile is taken over.
+     */
+    private static final int WINDOW_SIZE = 1024;
+
+    /**
+     * Latencies measured before the percentile is used instead of the max delay.
+     */
+    private static final int MIN_SAMPLES = 32;
+
+    /**
+     * Latencies recorded between recalculations of the delay, so that the window is not sorted for every read.
+     */
+    private static final int RECALCULATE_INTERVAL = 64;
+
+    /**
+     * Fixed point scale of saved hedges, so that e.g. ten reads at a rate of 0.1 earn exactly one hedge.
+     */
+    private static final long HEDGE = 1_000_000;
+
+    private final double percentile;
+
+    private final long hedgeSharePerRead;
+
+    private final long minDelayNanos;
+
+    private final long maxDelayNanos;
+
+    /**
+     * Guards the window, the sample count and the saved hedges.
+     */
+    private final Object monitor = new Object();
+
+    private final long[] window = new long[WINDOW_SIZE];
+
+    private long samples;
+
+    private long savedHedges;
+
+    private volatile long delayNanos;
+
+    private final AtomicLong hedgedRequests = new AtomicLong();
+
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    /**
+     * Creates a policy that hedges reads slower than the 95th percentile, at most 5% of them.
+     */
+    public HedgingPolicy() {
+        this(DEFAULT_PERCENTILE, DEFAULT_MAX_HEDGE_RATE);
+    }
+
+    /**
+     * Creates a policy with the default min and max delay.
+     *
+     * @param percentile   Percentile of recent read latencies after which a read is hedged, between 0 and 1
+     * @param maxHedgeRate Max fraction of reads that are hedged, between 0 and 1
+     */
+    public HedgingPolicy(final double percentile, final double maxHedgeRate) {
+        this(percentile, maxHedgeRate, DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Creates a policy.
+     *
+     * @param percentile   Percentile of recent read latencies after which a read is hedged, between 0 and 1
+     * @param maxHedgeRate Max fraction of reads that are hedged, between 0 and 1
+     * @param minDelay     Shortest time a read is given before it is hedged
+     * @param maxDelay     Longest time a read is given before it is hedged, also used until enough reads are measured
+     */
+    public HedgingPolicy(final double percentile,
+                         final double maxHedgeRate,
+                         final Duration minDelay,
+                         final Duration maxDelay) {
+
+        if (!(percentile > 0 && percentile < 1)) {
+            throw new IllegalArgumentException("Percentile must be greater than 0 and less than 1.");
+        }
+
+        if (!(maxHedgeRate >= 0 && maxHedgeRate <= 1)) {
+            throw new IllegalArgumentException("Max hedge rate must be between 0 and 1.");
+        }
+
+        if (minDelay == null || maxDelay == null || minDelay.isNegative() || maxDelay.compareTo(minDelay) < 0) {
+            throw new IllegalArgumentException("Delays cannot be negative and the max delay cannot be less than the min delay.");
+        }
+
+        this.percentile = percentile;
+        this.hedgeSharePerRead = Math.round(maxHedgeRate * HEDGE);
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.delayNanos = maxDelayNanos;
+    }
+
+    /**
+     * @return How long a read is currently given before it is hedged
+     */
+    public Duration getHedgeDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    /**
+     * @return Number of hedged requests sent
+     */
+    public long getHedgedRequests() {
+        return hedgedRequests.get();
+    }
+
+    /**
+     * @return Number of hedged requests that were answered before the request they hedged
+     */
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    long hedgeDelayNanos() {
+        return delayNanos;
+    }
+
+    /**
+     * Earns the share of a hedge of a new read.
+     */
+    void readStarted() {
+        synchronized (monitor) {
+            savedHedges = Math.min(MAX_SAVED_HEDGES * HEDGE, savedHedges + hedgeSharePerRead);
+        }
+    }
+
+    /**
+     * Spends a hedge if one has been earned.
+     *
+     * @return Whether a hedged request may be sent
+     */
+    boolean tryStartHedge() {
+        return tryStartHedge(() -> true);
+    }
+
+    /**
+     * Spends a hedge if one has been earned and the hedged request is permitted, e.g. by a circuit breaker or
+     * rate limiter. The permit is only asked for once a hedge has been earned, and the hedge is only spent if the
+     * permit is granted.
+     *
+     * @param permit Asked whether the hedged request may be sent, taking whatever it needs to send it
+     * @return Whether a hedged request may be sent
+     */
+    boolean tryStartHedge(final BooleanSupplier permit) {
+        synchronized (monitor) {
+            if (savedHedges < HEDGE || !permit.getAsBoolean()) {
+                return false;
+            }
+            savedHedges -= HEDGE;
+        }
+        hedgedRequests.incrementAndGet();
+        return true;
+    }
+
+    void hedgeWon() {
+        hedgesWon.incrementAndGet();
+    }
+
+    /**
+     * Adds the latency of an answered request to the window and recalculates the delay every
+     * {@value #RECALCULATE_INTERVAL} latencies.
+     */
+    void recordLatency(final long latencyNanos) {
+        final long[] sorted;
+        synchronized (monitor) {
+            window[(int) (samples % WINDOW_SIZE)] = latencyNanos;
+            samples++;
+            if (samples < MIN_SAMPLES || (samples != MIN_SAMPLES && samples % RECALCULATE_INTERVAL != 0)) {
+                return;
+            }
+            sorted = Arrays.copyOf(window, (int) Math.min(samples, WINDOW_SIZE));
+        }
+
+        Arrays.sort(sorted);
+        final long percentileNanos = sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+        delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, percentileNanos));
+    }
+}
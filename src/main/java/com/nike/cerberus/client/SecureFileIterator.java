@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
+import com.nike.cerberus.client.model.SecureFileSummary;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntFunction;
+
+/**
+ * Iterates over the secure file summaries of every page of a listing.
+ * <p>
+ * The first page is requested when the iterator is created. Each time a page arrives the request for the next
+ * page is started before any of its summaries are handed out, so the next page is usually in hand by the time
+ * the current one has been consumed.
+ * </p>
+ */
+class SecureFileIterator implements Iterator<SecureFileSummary> {
+
+    private final IntFunction<CompletableFuture<CerberusListFilesResponse>> pageLoader;
+
+    private Iterator<SecureFileSummary> currentPage = Collections.emptyIterator();
+
+    private CompletableFuture<CerberusListFilesResponse> nextPage;
+
+    /**
+     * @param pageLoader Starts the request for the page at the given offset
+     */
+    SecureFileIterator(final IntFunction<CompletableFuture<CerberusListFilesResponse>> pageLoader) {
+        this.pageLoader = pageLoader;
+        this.nextPage = pageLoader.apply(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext()) {
+            if (nextPage == null) {
+                return false;
+            }
+
+            final CerberusListFilesResponse page = await(nextPage);
+            nextPage = hasMorePages(page) ? pageLoader.apply(page.getNextOffset()) : null;
+            currentPage = page.getSecureFileSummaries() == null
+                    ? Collections.emptyIterator()
+                    : page.getSecureFileSummaries().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public SecureFileSummary next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    private static boolean hasMorePages(final CerberusListFilesResponse page) {
+        // guard against a page that points back at itself, which would otherwise loop forever
+        return page.isHasNext() && page.getNextOffset() != null && page.getNextOffset() > page.getOffset();
+    }
+
+    private static CerberusListFilesResponse await(final CompletableFuture<CerberusListFilesResponse> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CerberusClientException("Unexpected error while listing files.", e.getCause());
+        }
+    }
+}
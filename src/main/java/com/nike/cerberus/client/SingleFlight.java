@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent calls that share a key into a single execution.
+ * <p>
+ * The first caller for a key runs the call; callers that arrive while it is running wait for and receive the
+ * same result, or the same exception. Once the call completes the key is released, so later callers start a
+ * new execution.
+ * </p>
+ */
+class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the call, or waits for the in-flight call with the same key.
+     *
+     * @param key  Identifies calls that can share a result
+     * @param call The call to run
+     * @param <T>  Result type of the call
+     * @return Result of the call
+     */
+    <T> T execute(final String key, final Supplier<T> call) {
+        return execute(key, call, UnaryOperator.identity());
+    }
+
+    /**
+     * Runs the call, or waits for the in-flight call with the same key.
+     *
+     * @param key            Identifies calls that can share a result
+     * @param call           The call to run
+     * @param copyForWaiters Applied to the result before it is handed to each waiting caller
+     * @param <T>            Result type of the call
+     * @return Result of the call
+     */
+    @SuppressWarnings("unchecked")
+    <T> T execute(final String key, final Supplier<T> call, final UnaryOperator<T> copyForWaiters) {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        final CompletableFuture<Object> inFlight = calls.putIfAbsent(key, future);
+
+        if (inFlight != null) {
+            return copyForWaiters.apply((T) await(inFlight));
+        }
+
+        try {
+            final T result = call.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, future);
+        }
+    }
+
+    private Object await(final CompletableFuture<Object> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CerberusClientException("Unexpected error while waiting for an in-flight request.", cause);
+        }
+    }
+}
@@ -16,7 +16,10 @@
 
 package com.nike.cerberus.client.auth.aws;
 
+import com.nike.cerberus.client.CerberusClientException;
+import com.nike.cerberus.client.CerberusRetryPolicy;
 import com.nike.cerberus.client.CerberusServerException;
+import com.nike.cerberus.client.CerberusTransport;
 import com.nike.cerberus.client.ClientVersion;
 import com.nike.cerberus.client.auth.CerberusCredentials;
 import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
@@ -26,15 +29,20 @@ import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.nike.cerberus.client.CerberusClientFactory.*;
-import static okhttp3.ConnectionSpec.CLEARTEXT;
 
 /**
  * {@link CerberusCredentialsProvider} implementation that uses some AWS
@@ -42,8 +50,12 @@ import static okhttp3.ConnectionSpec.CLEARTEXT;
  * response using STS Auth. If the assigned role has been granted the appropriate
  * provisioned for usage of Cerberus, it will succeed and have a token that can be
  * used to interact with Cerberus.
+ * <p>
+ * Background refresh can optionally be enabled, in which case the token is renewed ahead of its expiry so that
+ * callers of {@link #getCredentials()} do not wait on authentication once the provider is warm.
+ * </p>
  */
-public abstract class BaseAwsCredentialsProvider implements CerberusCredentialsProvider {
+public abstract class BaseAwsCredentialsProvider implements CerberusCredentialsProvider, Closeable {
 
     public static final MediaType DEFAULT_MEDIA_TYPE = MediaType.parse("application/json; charset=utf-8");
 
@@ -53,16 +65,41 @@ public abstract class BaseAwsCredentialsProvider implements CerberusCredentialsP
 
     protected static final int DEFAULT_RETRY_INTERVAL_IN_MILLIS = 200;
 
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    protected static final int MIN_BACKGROUND_REFRESH_DELAY_IN_MILLIS = 1000;
 
-    private final Lock readLock = readWriteLock.readLock();
+    protected static final int MAX_BACKGROUND_RETRY_INTERVAL_IN_MILLIS = 60_000;
 
-    private final Lock writeLock = readWriteLock.writeLock();
+    /**
+     * Serializes calls to {@link #authenticate()} between request threads and the background refresh. Readers
+     * of a valid token never take this lock.
+     */
+    private final Lock refreshLock = new ReentrantLock();
+
+    /**
+     * The token handed out by {@link #getCredentials()}, published after each successful authentication.
+     */
+    private volatile CredentialsSnapshot snapshot;
+
+    private final Object refreshScheduleMonitor = new Object();
+
+    private ScheduledExecutorService refreshScheduler;
+
+    private boolean ownsRefreshScheduler;
+
+    private double refreshLeaseFraction;
+
+    private ScheduledFuture<?> scheduledRefresh;
 
     protected final int paddingTimeInSeconds = 60;
 
+    /**
+     * Set by {@link #authenticate()}; read once it returns to publish the token to callers.
+     */
     protected volatile TokenCerberusCredentials credentials;
 
+    /**
+     * Set by {@link #authenticate()}; read once it returns to publish the token to callers.
+     */
     protected volatile DateTime expireDateTime = DateTime.now().minus(paddingTimeInSeconds);
 
     protected final String cerberusUrl;
@@ -71,6 +108,17 @@ public abstract class BaseAwsCredentialsProvider implements CerberusCredentialsP
 
     private final OkHttpClient httpClient;
 
+    /**
+     * The reference to the shared transport registry held by this provider, if it did not get its own client.
+     * Guarded by {@code this}.
+     */
+    private CerberusTransport transport;
+
+    private volatile CerberusRetryPolicy retryPolicy = CerberusRetryPolicy.builder()
+            .maxAttempts(DEFAULT_AUTH_RETRIES)
+            .baseDelay(Duration.ofMillis(DEFAULT_RETRY_INTERVAL_IN_MILLIS))
+            .build();
+
     /**
      * Constructor to setup credentials provider
      *
@@ -118,41 +166,206 @@ public abstract class BaseAwsCredentialsProvider implements CerberusCredentialsP
 
     /**
      * Returns the Cerberus credentials. If none have been acquired yet or has
-     * expired, triggers a refresh.
+     * expired, triggers a refresh. Only one thread authenticates per expiry;
+     * threads that queued up behind it receive the refreshed token.
      *
      * @return Cerberus credentials
      */
     @Override
     public CerberusCredentials getCredentials() {
-        readLock.lock();
+        final CredentialsSnapshot current = snapshot;
+        if (current != null && current.isValid(System.nanoTime())) {
+            return current.credentials;
+        }
+
+        refreshLock.lock();
         try {
-            boolean needsToAuthenticate = false;
-            if (credentials == null) {
-                // initial state: no credentials
-                needsToAuthenticate = true;
-            } else if (expireDateTime.isBeforeNow()) {
-                // credentials have expired
-                needsToAuthenticate = true;
+            // another thread may have refreshed the token while this one waited for the lock
+            final CredentialsSnapshot latest = snapshot;
+            if (latest != null && latest.isValid(System.nanoTime())) {
+                return latest.credentials;
+            }
+
+            if (latest != null) {
                 LOGGER.info("Cerberus credentials have expired {}, re-authenticating...", expireDateTime);
             }
-            if (needsToAuthenticate) {
-                // Release the read lock and acquire a write lock
-                readLock.unlock();
-                writeLock.lock();
-
-                try {
-                    authenticate();
-                } finally {
-                    // Acquire the read lock before releasing the write lock
-                    readLock.lock();
-                    writeLock.unlock();
-                }
+            authenticate();
+            final CredentialsSnapshot refreshed = publishSnapshot();
+            scheduleBackgroundRefresh();
+            return refreshed.credentials;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the token that {@link #authenticate()} stored in {@link #credentials} and {@link #expireDateTime},
+     * converting the wall-clock expiry into a monotonic deadline.
+     */
+    private CredentialsSnapshot publishSnapshot() {
+        if (credentials == null) {
+            throw new CerberusClientException("Authentication completed without providing Cerberus credentials");
+        }
+        final long remainingMillis = expireDateTime.getMillis() - System.currentTimeMillis();
+        final CredentialsSnapshot published = new CredentialsSnapshot(credentials,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+        snapshot = published;
+        return published;
+    }
+
+    /**
+     * Renews the token in the background on a daemon thread owned by this provider. See
+     * {@link #enableBackgroundRefresh(ScheduledExecutorService, double)}.
+     *
+     * @param leaseFraction Fraction of the token's remaining lifetime after which it is renewed, between 0 and 1
+     */
+    public void enableBackgroundRefresh(double leaseFraction) {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "cerberus-credentials-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        enableBackgroundRefresh(scheduler, leaseFraction, true);
+    }
+
+    /**
+     * Renews the token in the background once the given fraction of its lifetime has elapsed, so that request
+     * threads do not block on authentication. Failed renewals are retried with exponential backoff for as long
+     * as the current token is still valid; after that, the next call to {@link #getCredentials()} authenticates
+     * as usual. If no token has been acquired yet, one is requested right away.
+     *
+     * @param scheduler     Scheduler to run the renewals on
+     * @param leaseFraction Fraction of the token's remaining lifetime after which it is renewed, between 0 and 1
+     */
+    public void enableBackgroundRefresh(ScheduledExecutorService scheduler, double leaseFraction) {
+        enableBackgroundRefresh(scheduler, leaseFraction, false);
+    }
+
+    private void enableBackgroundRefresh(ScheduledExecutorService scheduler, double leaseFraction, boolean ownsScheduler) {
+        if (scheduler == null) {
+            throw new IllegalArgumentException("Scheduler cannot be null.");
+        }
+
+        if (!(leaseFraction > 0 && leaseFraction <= 1)) {
+            throw new IllegalArgumentException("Lease fraction must be greater than 0 and at most 1.");
+        }
+
+        disableBackgroundRefresh();
+        synchronized (refreshScheduleMonitor) {
+            this.refreshScheduler = scheduler;
+            this.ownsRefreshScheduler = ownsScheduler;
+            this.refreshLeaseFraction = leaseFraction;
+        }
+
+        if (snapshot == null) {
+            scheduleBackgroundRefresh(0, 0);
+        } else {
+            scheduleBackgroundRefresh();
+        }
+    }
+
+    /**
+     * Stops renewing the token in the background. Tokens are then only refreshed by {@link #getCredentials()}
+     * once they have expired.
+     */
+    public void disableBackgroundRefresh() {
+        synchronized (refreshScheduleMonitor) {
+            if (scheduledRefresh != null) {
+                scheduledRefresh.cancel(false);
+                scheduledRefresh = null;
+            }
+            if (refreshScheduler != null && ownsRefreshScheduler) {
+                refreshScheduler.shutdownNow();
+            }
+            refreshScheduler = null;
+        }
+    }
+
+    /**
+     * @return The policy authentication requests are retried by
+     */
+    public CerberusRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Retries authentication requests by the given policy instead of the default policy of
+     * {@value #DEFAULT_AUTH_RETRIES} attempts with full jitter.
+     *
+     * @param retryPolicy Retry policy for authentication requests
+     */
+    public void setRetryPolicy(final CerberusRetryPolicy retryPolicy) {
+        if (retryPolicy == null) {
+            throw new IllegalArgumentException("Retry policy cannot be null.");
+        }
+
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Schedules the next background renewal for when the configured fraction of the current token's remaining
+     * lifetime has elapsed. Does nothing if background refresh is disabled.
+     */
+    private void scheduleBackgroundRefresh() {
+        synchronized (refreshScheduleMonitor) {
+            if (refreshScheduler == null) {
+                return;
+            }
+            final long delayMillis = Math.max(MIN_BACKGROUND_REFRESH_DELAY_IN_MILLIS,
+                    (long) (remainingMillis() * refreshLeaseFraction));
+            scheduleBackgroundRefresh(delayMillis, 0);
+        }
+    }
+
+    private void scheduleBackgroundRefresh(long delayMillis, int failedAttempts) {
+        synchronized (refreshScheduleMonitor) {
+            if (refreshScheduler == null) {
+                return;
+            }
+            if (scheduledRefresh != null) {
+                scheduledRefresh.cancel(false);
+            }
+            try {
+                scheduledRefresh = refreshScheduler.schedule(
+                        () -> refreshInBackground(failedAttempts), delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                LOGGER.warn("Background refresh of Cerberus credentials could not be scheduled", e);
+                scheduledRefresh = null;
             }
+        }
+    }
 
-            return new TokenCerberusCredentials(credentials.getToken());
+    private void refreshInBackground(int failedAttempts) {
+        refreshLock.lock();
+        try {
+            authenticate();
+            publishSnapshot();
+            scheduleBackgroundRefresh();
+        } catch (RuntimeException e) {
+            final long remainingMillis = remainingMillis();
+            if (remainingMillis <= 0) {
+                LOGGER.warn("Background refresh of Cerberus credentials failed, the next request will re-authenticate", e);
+                return;
+            }
+            final long retryMillis = Math.min(remainingMillis, Math.min(MAX_BACKGROUND_RETRY_INTERVAL_IN_MILLIS,
+                    DEFAULT_RETRY_INTERVAL_IN_MILLIS * (long) Math.pow(2, failedAttempts)));
+            LOGGER.warn(String.format("Background refresh of Cerberus credentials failed, retrying in %d ms", retryMillis), e);
+            scheduleBackgroundRefresh(retryMillis, failedAttempts + 1);
         } finally {
-            readLock.unlock();
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Milliseconds until the published token expires, or zero if there is none.
+     */
+    private long remainingMillis() {
+        final CredentialsSnapshot current = snapshot;
+        if (current == null) {
+            return 0;
         }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(current.expiresAtNanos - System.nanoTime()));
     }
 
     /**
@@ -162,43 +375,37 @@ public abstract class BaseAwsCredentialsProvider implements CerberusCredentialsP
     abstract protected void authenticate();
 
     /**
-     * Executes an HTTP request and retries if a 500 level error is returned
+     * Executes an HTTP request and retries I/O errors and 500 level responses by the configured retry policy
+     *
+     * @param request The request to execute
+     * @return Any HTTP response with status code below 500, or the last error response if only 500's are returned
+     * @throws IOException If an IOException occurs during the last retry, then rethrow the error
+     */
+    protected Response executeRequestWithRetry(Request request) throws IOException {
+        return executeRequestWithRetry(request, retryPolicy);
+    }
+
+    /**
+     * Executes an HTTP request and retries if a 500 level error is returned. The retries draw from the retry
+     * budget of the configured retry policy.
      *
      * @param request               The request to execute
-     * @param numRetries            The maximum number of times to retry
-     * @param sleepIntervalInMillis Time in milliseconds to sleep between retries. Zero for no sleep.
+     * @param numRetries            The maximum number of attempts
+     * @param sleepIntervalInMillis Time in milliseconds to sleep before the first retry, before jitter
      * @return Any HTTP response with status code below 500, or the last error response if only 500's are returned
      * @throws IOException If an IOException occurs during the last retry, then rethrow the error
      */
     protected Response executeRequestWithRetry(Request request, int numRetries, int sleepIntervalInMillis) throws IOException {
-        IOException exception = null;
-        Response response = null;
-        for (int retryNumber = 0; retryNumber < numRetries; retryNumber++) {
-            try {
-                response = httpClient.newCall(request).execute();
-                if (response.code() < 500) {
-                    return response;
-                }
-            } catch (IOException ioe) {
-                LOGGER.debug(String.format("Failed to call %s %s. Retrying...", request.method(), request.url()), ioe);
-                exception = ioe;
-            }
-            sleep(sleepIntervalInMillis * (long) Math.pow(2, retryNumber));
-        }
-
-        if (exception != null) {
-            throw exception;
-        } else {
-            return response;
-        }
+        final CerberusRetryPolicy policy = retryPolicy.toBuilder()
+                .maxAttempts(Math.max(1, numRetries))
+                .baseDelay(Duration.ofMillis(sleepIntervalInMillis))
+                .maxDelay(Duration.ofMillis(Math.max(sleepIntervalInMillis, retryPolicy.getMaxDelay().toMillis())))
+                .build();
+        return executeRequestWithRetry(request, policy);
     }
 
-    private void sleep(long milliseconds) {
-        try {
-            TimeUnit.MILLISECONDS.sleep(milliseconds);
-        } catch (InterruptedException ie) {
-            LOGGER.warn("Sleep interval interrupted.", ie);
-        }
+    private Response executeRequestWithRetry(final Request request, final CerberusRetryPolicy policy) throws IOException {
+        return policy.execute(() -> httpClient.newCall(request).execute(), response -> response.code() >= 500);
     }
 
     protected void parseAndThrowErrorResponse(final int responseCode, final String responseBody) {
@@ -213,18 +420,63 @@ public abstract class BaseAwsCredentialsProvider implements CerberusCredentialsP
         return cerberusUrl;
     }
 
+    /**
+     * Immutable pairing of a token with the monotonic time at which it expires.
+     */
+    private static final class CredentialsSnapshot {
+        private final TokenCerberusCredentials credentials;
+        private final long expiresAtNanos;
+
+        private CredentialsSnapshot(TokenCerberusCredentials credentials, long expiresAtNanos) {
+            this.credentials = credentials;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isValid(long nowNanos) {
+            return nowNanos - expiresAtNanos < 0;
+        }
+    }
+
+    /**
+     * Returns the HTTP client used for authentication. Unless one was passed to the constructor, it comes from the
+     * shared transport registry of {@link com.nike.cerberus.client.CerberusClientFactory}, so that it shares its
+     * connections with the Cerberus clients of the same URL. The provider holds a single reference to the shared
+     * transport no matter how often this is called; it is released by {@link #close()}.
+     *
+     * @return HTTP client for authentication
+     */
     public OkHttpClient createHttpClient() {
+        if (httpClient != null) {
+            return httpClient;
+        }
+        return acquireTransport().getHttpClient();
+    }
 
-        List<ConnectionSpec> connectionSpecs = new ArrayList<>();
-        connectionSpecs.add(TLS_1_2_OR_NEWER);
-        // for unit tests
-        connectionSpecs.add(CLEARTEXT);
+    /**
+     * Stops the background refresh and releases the shared HTTP transport, if the provider acquired one. The
+     * provider must not be used after it is closed.
+     */
+    @Override
+    public void close() {
+        disableBackgroundRefresh();
+        final CerberusTransport transport;
+        synchronized (this) {
+            transport = this.transport;
+            this.transport = null;
+        }
+        if (transport != null) {
+            transport.close();
+        }
+    }
 
-        return new OkHttpClient.Builder()
-                .connectTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
-                .writeTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
-                .readTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
-                .connectionSpecs(connectionSpecs)
-                .build();
+    /**
+     * Acquires the shared transport for the Cerberus URL unless the provider already holds a reference to it, so
+     * the provider never pins more than one transport.
+     */
+    private synchronized CerberusTransport acquireTransport() {
+        if (transport == null) {
+            transport = getTransportRegistry().acquire(cerberusUrl);
+        }
+        return transport;
     }
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.endpoint;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One Cerberus endpoint of a {@link LoadBalancingInterceptor} and the health and latency statistics it is selected
+ * by.
+ */
+public final class CerberusEndpoint {
+
+    private final String url;
+
+    private final AtomicInteger outstandingRequests = new AtomicInteger();
+
+    /**
+     * Guards the fields below.
+     */
+    private final Object monitor = new Object();
+
+    private boolean measured;
+
+    private double latencyEwmaNanos;
+
+    private long lastSampleNanos;
+
+    private int consecutiveFailures;
+
+    private int ejections;
+
+    private long ejectedUntilNanos;
+
+    CerberusEndpoint(final String url) {
+        this.url = url;
+    }
+
+    /**
+     * @return Base URL of the endpoint, ending with a slash
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return Number of requests in flight to the endpoint
+     */
+    public int getOutstandingRequests() {
+        return outstandingRequests.get();
+    }
+
+    /**
+     * @return Moving average of the endpoint's response latency in milliseconds, or -1 if it was not measured yet
+     */
+    public double getLatencyEwmaMillis() {
+        synchronized (monitor) {
+            return measured ? latencyEwmaNanos / TimeUnit.MILLISECONDS.toNanos(1) : -1;
+        }
+    }
+
+    /**
+     * @return Number of failed requests since the last successful one
+     */
+    public int getConsecutiveFailures() {
+        synchronized (monitor) {
+            return consecutiveFailures;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+
+    void requestStarted() {
+        outstandingRequests.incrementAndGet();
+    }
+
+    void requestEnded() {
+        outstandingRequests.decrementAndGet();
+    }
+
+    boolean isMeasured() {
+        synchronized (monitor) {
+            return measured;
+        }
+    }
+
+    double latencyEwmaNanos() {
+        synchronized (monitor) {
+            return latencyEwmaNanos;
+        }
+    }
+
+    boolean isEjected(final long nowNanos) {
+        synchronized (monitor) {
+            return ejections > 0 && nowNanos - ejectedUntilNanos < 0;
+        }
+    }
+
+    long ejectedUntilNanos() {
+        synchronized (monitor) {
+            return ejectedUntilNanos;
+        }
+    }
+
+    /**
+     * Folds a response latency into the moving average, weighting the previous average by how recently it was
+     * updated, and re-admits the endpoint if it was ejected.
+     */
+    void recordSuccess(final long latencyNanos, final long nowNanos, final long decayNanos) {
+        synchronized (monitor) {
+            if (measured) {
+                final double weight = Math.exp(-(double) Math.max(0, nowNanos - lastSampleNanos) / decayNanos);
+                latencyEwmaNanos = latencyEwmaNanos * weight + latencyNanos * (1 - weight);
+            } else {
+                latencyEwmaNanos = latencyNanos;
+                measured = true;
+            }
+            lastSampleNanos = nowNanos;
+            consecutiveFailures = 0;
+            ejections = 0;
+        }
+    }
+
+    /**
+     * Counts a failed request and ejects the endpoint once the threshold of consecutive failures is reached. Each
+     * ejection that follows without a success in between lasts twice as long, up to the max ejection time.
+     *
+     * @return Whether the endpoint was ejected by this failure
+     */
+    boolean recordFailure(final long nowNanos,
+                          final int failureThreshold,
+                          final long baseEjectionNanos,
+                          final long maxEjectionNanos) {
+        synchronized (monitor) {
+            consecutiveFailures++;
+            if (consecutiveFailures < failureThreshold || (ejections > 0 && nowNanos - ejectedUntilNanos < 0)) {
+                return false;
+            }
+            long ejectionNanos = baseEjectionNanos;
+            for (int i = 0; i < ejections && ejectionNanos < maxEjectionNanos; i++) {
+                ejectionNanos *= 2;
+            }
+            ejectionNanos = Math.min(ejectionNanos, maxEjectionNanos);
+            ejections++;
+            ejectedUntilNanos = nowNanos + ejectionNanos;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.endpoint;
+
+/**
+ * How {@link LoadBalancingInterceptor} picks the endpoint for a request among the endpoints that are not ejected.
+ */
+public enum EndpointSelectionStrategy {
+
+    /**
+     * Picks the endpoint with the lowest exponentially weighted moving average of its response latency,
+     * multiplied by the number of its requests in flight plus one, so that a fast endpoint is not piled onto.
+     * Endpoints without a measurement yet are assumed to be as fast as the average measured endpoint.
+     */
+    EWMA_LATENCY,
+
+    /**
+     * Picks the endpoint with the fewest requests in flight.
+     */
+    LEAST_OUTSTANDING_REQUESTS
+}
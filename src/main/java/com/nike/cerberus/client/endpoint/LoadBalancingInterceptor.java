@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.endpoint;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Spreads the requests of a Cerberus client over several Cerberus endpoints, e.g. regional deployments.
+ * <p>
+ * The client is created with the first endpoint as its URL; this application interceptor moves each request to
+ * the endpoint picked by the {@link EndpointSelectionStrategy}, keeping the rest of the URL. A GET or HEAD request
+ * that fails with an I/O error or a 5xx response is sent to the next best endpoint it has not tried yet, so the
+ * client's own retries see a failure only when no endpoint could serve the request. Other requests are only sent
+ * elsewhere when the connection to the endpoint could not be established, so they never reach more than one
+ * endpoint; their retries are left to the client, where they count against its retry budget, circuit breaker and
+ * rate limiter.
+ * An endpoint that fails several requests in a row is ejected and not selected for a while; it is re-admitted
+ * once that time has passed, and ejected for twice as long if its next request fails too. If every endpoint is
+ * ejected, the one that was ejected first is tried anyway.
+ * </p>
+ */
+public final class LoadBalancingInterceptor implements Interceptor {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+    public static final Duration DEFAULT_BASE_EJECTION_TIME = Duration.ofSeconds(10);
+
+    public static final Duration DEFAULT_MAX_EJECTION_TIME = Duration.ofMinutes(5);
+
+    /**
+     * Age at which a latency sample's weight in the moving average has decayed to 1/e.
+     */
+    public static final Duration DEFAULT_LATENCY_DECAY = Duration.ofSeconds(10);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadBalancingInterceptor.class);
+
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD"));
+
+    private final List<CerberusEndpoint> endpoints;
+
+    private final EndpointSelectionStrategy strategy;
+
+    private final int failureThreshold;
+
+    private final long baseEjectionNanos;
+
+    private final long maxEjectionNanos;
+
+    private final long latencyDecayNanos;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates an interceptor with the default ejection and latency settings.
+     *
+     * @param cerberusUrls Base URLs of the Cerberus endpoints; requests are built against the first one
+     * @param strategy     How endpoints are selected
+     */
+    public LoadBalancingInterceptor(final List<String> cerberusUrls, final EndpointSelectionStrategy strategy) {
+        this(cerberusUrls, strategy, DEFAULT_FAILURE_THRESHOLD, DEFAULT_BASE_EJECTION_TIME,
+                DEFAULT_MAX_EJECTION_TIME, DEFAULT_LATENCY_DECAY);
+    }
+
+    /**
+     * Creates an interceptor.
+     *
+     * @param cerberusUrls      Base URLs of the Cerberus endpoints; requests are built against the first one
+     * @param strategy          How endpoints are selected
+     * @param failureThreshold  Consecutive failures after which an endpoint is ejected
+     * @param baseEjectionTime  How long an endpoint is ejected the first time
+     * @param maxEjectionTime   Upper bound of the doubling ejection time
+     * @param latencyDecay      Age at which a latency sample's weight in the moving average has decayed to 1/e
+     */
+    public LoadBalancingInterceptor(final List<String> cerberusUrls,
+                                    final EndpointSelectionStrategy strategy,
+                                    final int failureThreshold,
+                                    final Duration baseEjectionTime,
+                                    final Duration maxEjectionTime,
+                                    final Duration latencyDecay) {
+        this(cerberusUrls, strategy, failureThreshold, baseEjectionTime, maxEjectionTime, latencyDecay,
+                System::nanoTime);
+    }
+
+    LoadBalancingInterceptor(final List<String> cerberusUrls,
+                             final EndpointSelectionStrategy strategy,
+                             final int failureThreshold,
+                             final Duration baseEjectionTime,
+                             final Duration maxEjectionTime,
+                             final Duration latencyDecay,
+                             final LongSupplier nanoClock) {
+
+        if (cerberusUrls == null || cerberusUrls.isEmpty()) {
+            throw new IllegalArgumentException("Cerberus URLs cannot be empty.");
+        }
+
+        if (strategy == null) {
+            throw new IllegalArgumentException("Endpoint selection strategy cannot be null.");
+        }
+
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold must be positive.");
+        }
+
+        if (!isPositive(baseEjectionTime) || !isPositive(maxEjectionTime) || !isPositive(latencyDecay)) {
+            throw new IllegalArgumentException("Ejection times and latency decay must be positive.");
+        }
+
+        final List<CerberusEndpoint> endpoints = new ArrayList<>(cerberusUrls.size());
+        for (String cerberusUrl : cerberusUrls) {
+            endpoints.add(new CerberusEndpoint(baseUrl(cerberusUrl)));
+        }
+
+        this.endpoints = Collections.unmodifiableList(endpoints);
+        this.strategy = strategy;
+        this.failureThreshold = failureThreshold;
+        this.baseEjectionNanos = baseEjectionTime.toNanos();
+        this.maxEjectionNanos = Math.max(baseEjectionNanos, maxEjectionTime.toNanos());
+        this.latencyDecayNanos = latencyDecay.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return The endpoints in the order they were given
+     */
+    public List<CerberusEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    @Override
+    public Response intercept(final Chain chain) throws IOException {
+        final Request request = chain.request();
+        final String url = request.url().toString();
+        final String primaryUrl = endpoints.get(0).getUrl();
+        if (!url.startsWith(primaryUrl)) {
+            return chain.proceed(request);
+        }
+
+        final String relativeUrl = url.substring(primaryUrl.length());
+        final boolean idempotent = IDEMPOTENT_METHODS.contains(request.method());
+        final boolean replayable = request.body() == null || !request.body().isOneShot();
+        final List<CerberusEndpoint> tried = new ArrayList<>(endpoints.size());
+        CerberusEndpoint endpoint = select(tried);
+        while (true) {
+            tried.add(endpoint);
+            final Request routedRequest = request.newBuilder().url(endpoint.getUrl() + relativeUrl).build();
+
+            final long startNanos = nanoClock.getAsLong();
+            Response response = null;
+            IOException failure = null;
+            endpoint.requestStarted();
+            try {
+                response = chain.proceed(routedRequest);
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                endpoint.requestEnded();
+            }
+
+            if (failure != null) {
+                if (chain.call().isCanceled()) {
+                    throw failure;
+                }
+                recordFailure(endpoint);
+                final boolean failOver = replayable && (idempotent || isConnectFailure(failure));
+                final CerberusEndpoint next = failOver ? select(tried) : null;
+                if (next == null) {
+                    throw failure;
+                }
+                LOGGER.warn("I/O error from Cerberus endpoint {}, failing over to {}", endpoint, next, failure);
+                endpoint = next;
+                continue;
+            }
+
+            final long nowNanos = nanoClock.getAsLong();
+            if (response.code() < 500) {
+                endpoint.recordSuccess(nowNanos - startNanos, nowNanos, latencyDecayNanos);
+                return response;
+            }
+
+            recordFailure(endpoint);
+            final CerberusEndpoint next = idempotent ? select(tried) : null;
+            if (next == null) {
+                return response;
+            }
+            LOGGER.warn("Response code {} from Cerberus endpoint {}, failing over to {}", response.code(), endpoint,
+                    next);
+            response.close();
+            endpoint = next;
+        }
+    }
+
+    /**
+     * Whether the request failed before it could be sent, because no connection to the endpoint was established.
+     */
+    private static boolean isConnectFailure(final IOException failure) {
+        return failure instanceof ConnectException
+                || failure instanceof NoRouteToHostException
+                || failure instanceof UnknownHostException;
+    }
+
+    /**
+     * Picks the best endpoint that is not ejected and was not tried yet, or the endpoint whose ejection ends
+     * first if all of those are ejected.
+     *
+     * @return The endpoint, or null if every endpoint was tried
+     */
+    CerberusEndpoint select(final List<CerberusEndpoint> tried) {
+        final long nowNanos = nanoClock.getAsLong();
+        final double defaultLatencyNanos = averageMeasuredLatencyNanos();
+        final int size = endpoints.size();
+        // start the scan at a random endpoint so that ties are spread evenly
+        final int offset = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+
+        CerberusEndpoint best = null;
+        double bestCost = Double.MAX_VALUE;
+        CerberusEndpoint firstReadmitted = null;
+        for (int i = 0; i < size; i++) {
+            final CerberusEndpoint candidate = endpoints.get((offset + i) % size);
+            if (tried.contains(candidate)) {
+                continue;
+            }
+            if (candidate.isEjected(nowNanos)) {
+                if (firstReadmitted == null
+                        || candidate.ejectedUntilNanos() - firstReadmitted.ejectedUntilNanos() < 0) {
+                    firstReadmitted = candidate;
+                }
+                continue;
+            }
+            final double cost = cost(candidate, defaultLatencyNanos);
+            if (cost < bestCost) {
+                best = candidate;
+                bestCost = cost;
+            }
+        }
+        return best != null ? best : firstReadmitted;
+    }
+
+    private double cost(final CerberusEndpoint endpoint, final double defaultLatencyNanos) {
+        final int outstandingRequests = endpoint.getOutstandingRequests();
+        if (strategy == EndpointSelectionStrategy.LEAST_OUTSTANDING_REQUESTS) {
+            return outstandingRequests;
+        }
+        final double latencyNanos = endpoint.isMeasured() ? endpoint.latencyEwmaNanos() : defaultLatencyNanos;
+        // + 1 so that outstanding requests still count while no endpoint has been measured
+        return (latencyNanos + 1) * (outstandingRequests + 1);
+    }
+
+    private double averageMeasuredLatencyNanos() {
+        double total = 0;
+        int measured = 0;
+        for (CerberusEndpoint endpoint : endpoints) {
+            if (endpoint.isMeasured()) {
+                total += endpoint.latencyEwmaNanos();
+                measured++;
+            }
+        }
+        return measured == 0 ? 0 : total / measured;
+    }
+
+    private void recordFailure(final CerberusEndpoint endpoint) {
+        if (endpoint.recordFailure(nanoClock.getAsLong(), failureThreshold, baseEjectionNanos, maxEjectionNanos)) {
+            LOGGER.warn("Ejected Cerberus endpoint {} after {} consecutive failures", endpoint,
+                    endpoint.getConsecutiveFailures());
+        }
+    }
+
+    private static String baseUrl(final String cerberusUrl) {
+        final HttpUrl url = cerberusUrl == null ? null : HttpUrl.parse(cerberusUrl);
+        if (url == null) {
+            throw new IllegalArgumentException("Invalid Cerberus URL: " + cerberusUrl);
+        }
+        return StringUtils.appendIfMissing(url.toString(), "/");
+    }
+
+    private static boolean isPositive(final Duration duration) {
+        return duration != null && !duration.isNegative() && !duration.isZero();
+    }
+}
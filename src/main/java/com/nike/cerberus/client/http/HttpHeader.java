@@ -22,4 +22,6 @@ public class HttpHeader {
     public static final String ACCEPT = "Accept";
 
     public static final String CONTENT_TYPE = "Content-Type";
+
+    public static final String RETRY_AFTER = "Retry-After";
 }
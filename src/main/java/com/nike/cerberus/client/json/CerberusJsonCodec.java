@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+
+/**
+ * Converts between JSON and the objects exchanged with Cerberus. The client uses it to encode request bodies and
+ * to decode response and error bodies, so a codec must handle the types in {@code com.nike.cerberus.client.model}
+ * as well as the client's own error body types. Cerberus uses snake case field names, e.g. the
+ * {@code sizeInBytes} field is {@code size_in_bytes} in JSON, and fields that are absent from the JSON keep
+ * their default values.
+ * <p>
+ * Implementations must be thread safe.
+ * </p>
+ */
+public interface CerberusJsonCodec {
+
+    /**
+     * Decodes a single JSON value from the reader. The caller owns and closes the reader.
+     *
+     * @param reader Source of the JSON text
+     * @param type   Type to decode to
+     * @param <T>    Represents the type to decode to
+     * @return The decoded object, or null if the JSON is the literal null
+     * @throws IOException            If reading from the reader fails
+     * @throws CerberusJsonException  If the JSON is malformed or does not match the type
+     */
+    <T> T fromJson(Reader reader, Type type) throws IOException;
+
+    /**
+     * Encodes an object as JSON. Null fields are omitted.
+     *
+     * @param value Object to encode
+     * @return JSON text
+     */
+    String toJson(Object value);
+}
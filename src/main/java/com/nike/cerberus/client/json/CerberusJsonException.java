@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.json;
+
+/**
+ * Thrown by a {@link CerberusJsonCodec} when JSON is malformed or cannot be mapped to the requested type.
+ */
+public class CerberusJsonException extends RuntimeException {
+
+    /**
+     * Constructs the exception with a message and underlying exception.
+     *
+     * @param message Message
+     * @param t       Underlying exception
+     */
+    public CerberusJsonException(String message, Throwable t) {
+        super(message, t);
+    }
+
+    /**
+     * Constructs the exception with a message.
+     *
+     * @param message Message
+     */
+    public CerberusJsonException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.json;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.MalformedJsonException;
+import com.nike.cerberus.client.model.adapter.CerberusTypeAdapterFactory;
+import com.nike.cerberus.client.model.adapter.SecureFileListingMode;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+
+/**
+ * JSON codec backed by Gson. The default instance streams the model classes through the hand-written adapters
+ * from {@link CerberusTypeAdapterFactory} and binds everything else reflectively with snake case field names.
+ */
+public class GsonCerberusJsonCodec implements CerberusJsonCodec {
+
+    private final Gson gson;
+
+    /**
+     * Creates the codec with the client's default Gson configuration.
+     */
+    public GsonCerberusJsonCodec() {
+        this(SecureFileListingMode.EAGER);
+    }
+
+    /**
+     * Creates the codec with the client's default Gson configuration and the given decoding of secure file
+     * listings.
+     *
+     * @param listingMode How the secure file summaries of a listing are decoded
+     */
+    public GsonCerberusJsonCodec(final SecureFileListingMode listingMode) {
+        this(new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .disableHtmlEscaping()
+                .registerTypeAdapterFactory(new CerberusTypeAdapterFactory(listingMode))
+                .create());
+    }
+
+    /**
+     * Creates the codec with a caller configured Gson, which must follow the conventions described on
+     * {@link CerberusJsonCodec}.
+     *
+     * @param gson Gson instance to encode and decode with
+     */
+    public GsonCerberusJsonCodec(final Gson gson) {
+        if (gson == null) {
+            throw new IllegalArgumentException("Gson cannot be null.");
+        }
+
+        this.gson = gson;
+    }
+
+    @Override
+    public <T> T fromJson(final Reader reader, final Type type) throws IOException {
+        try {
+            return gson.fromJson(reader, type);
+        } catch (JsonSyntaxException | JsonIOException e) {
+            if (isReadFailure(e.getCause())) {
+                throw (IOException) e.getCause();
+            }
+            throw new CerberusJsonException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toJson(final Object value) {
+        return gson.toJson(value);
+    }
+
+    /**
+     * Gson reports every exception from the reader as a JSON error. Only a premature end of input or malformed
+     * text is one; anything else is a failure to read the body.
+     */
+    private static boolean isReadFailure(final Throwable cause) {
+        return cause instanceof IOException
+                && !(cause instanceof EOFException)
+                && !(cause instanceof MalformedJsonException);
+    }
+
+    /**
+     * Returns the underlying Gson instance.
+     * @return Gson object
+     */
+    public Gson getGson() {
+        return gson;
+    }
+}
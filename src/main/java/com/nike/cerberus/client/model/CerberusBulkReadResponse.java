@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represent the outcome of reading many paths at once. Every requested path appears in exactly one of the maps.
+ */
+public class CerberusBulkReadResponse {
+
+    private Map<String, CerberusResponse> responses = new LinkedHashMap<>();
+
+    private Map<String, RuntimeException> failures = new LinkedHashMap<>();
+
+    /**
+     * Returns the data read for each path that succeeded, in the order the paths were requested
+     *
+     * @return Map of path to response
+     */
+    public Map<String, CerberusResponse> getResponses() {
+        return responses;
+    }
+
+    public CerberusBulkReadResponse setResponses(Map<String, CerberusResponse> responses) {
+        this.responses = responses;
+        return this;
+    }
+
+    /**
+     * Returns the exception raised for each path that failed, in the order the paths were requested
+     *
+     * @return Map of path to failure
+     */
+    public Map<String, RuntimeException> getFailures() {
+        return failures;
+    }
+
+    public CerberusBulkReadResponse setFailures(Map<String, RuntimeException> failures) {
+        this.failures = failures;
+        return this;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.nike.cerberus.client.model.CerberusAuthResponse;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link CerberusAuthResponse} without reflection.
+ */
+public class CerberusAuthResponseTypeAdapter extends TypeAdapter<CerberusAuthResponse> {
+
+    @Override
+    public void write(final JsonWriter out, final CerberusAuthResponse value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("client_token").value(value.getClientToken());
+        out.name("policies");
+        JsonValues.writeStrings(out, value.getPolicies());
+        out.name("metadata");
+        JsonValues.writeStringMap(out, value.getMetadata());
+        out.name("lease_duration").value(value.getLeaseDuration());
+        out.name("renewable").value(value.isRenewable());
+        out.endObject();
+    }
+
+    @Override
+    public CerberusAuthResponse read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final CerberusAuthResponse response = new CerberusAuthResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "client_token":
+                    response.setClientToken(JsonValues.readString(in));
+                    break;
+                case "policies":
+                    response.setPolicies(JsonValues.readStringSet(in));
+                    break;
+                case "metadata":
+                    response.setMetadata(JsonValues.readStringMap(in));
+                    break;
+                case "lease_duration":
+                    response.setLeaseDuration(JsonValues.readInt(in, response.getLeaseDuration()));
+                    break;
+                case "renewable":
+                    response.setRenewable(JsonValues.readBoolean(in, response.isRenewable()));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return response;
+    }
+}
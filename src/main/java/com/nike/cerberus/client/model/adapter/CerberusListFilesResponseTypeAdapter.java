@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link CerberusListFilesResponse} without reflection.
+ */
+public class CerberusListFilesResponseTypeAdapter extends TypeAdapter<CerberusListFilesResponse> {
+
+    private final SecureFileListingMode listingMode;
+
+    private final SecureFileSummaryTypeAdapter summaryAdapter;
+
+    /**
+     * Creates an adapter that decodes listings in {@link SecureFileListingMode#EAGER} mode.
+     */
+    public CerberusListFilesResponseTypeAdapter() {
+        this(SecureFileListingMode.EAGER);
+    }
+
+    /**
+     * @param listingMode How the secure file summaries of a listing are decoded
+     */
+    public CerberusListFilesResponseTypeAdapter(final SecureFileListingMode listingMode) {
+        if (listingMode == null) {
+            throw new IllegalArgumentException("Listing mode cannot be null.");
+        }
+
+        this.listingMode = listingMode;
+        this.summaryAdapter = new SecureFileSummaryTypeAdapter(listingMode != SecureFileListingMode.EAGER);
+    }
+
+    @Override
+    public void write(final JsonWriter out, final CerberusListFilesResponse value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("has_next").value(value.isHasNext());
+        out.name("next_offset").value(value.getNextOffset());
+        out.name("limit").value(value.getLimit());
+        out.name("offset").value(value.getOffset());
+        out.name("file_count_in_result").value(value.getFileCountInResult());
+        out.name("total_file_count").value(value.getTotalFileCount());
+        out.name("secure_file_summaries");
+        JsonValues.writeList(out, value.getSecureFileSummaries(), summaryAdapter);
+        out.endObject();
+    }
+
+    @Override
+    public CerberusListFilesResponse read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final CerberusListFilesResponse response = new CerberusListFilesResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "has_next":
+                    response.setHasNext(JsonValues.readBoolean(in, response.isHasNext()));
+                    break;
+                case "next_offset":
+                    response.setNextOffset(JsonValues.readInteger(in));
+                    break;
+                case "limit":
+                    response.setLimit(JsonValues.readInt(in, response.getLimit()));
+                    break;
+                case "offset":
+                    response.setOffset(JsonValues.readInt(in, response.getOffset()));
+                    break;
+                case "file_count_in_result":
+                    response.setFileCountInResult(JsonValues.readInt(in, response.getFileCountInResult()));
+                    break;
+                case "total_file_count":
+                    response.setTotalFileCount(JsonValues.readInt(in, response.getTotalFileCount()));
+                    break;
+                case "secure_file_summaries":
+                    response.setSecureFileSummaries(listingMode == SecureFileListingMode.COMPACT
+                            ? readCompactSummaries(in)
+                            : JsonValues.readList(in, summaryAdapter));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+    private CompactSecureFileSummaryList readCompactSummaries(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final CompactSecureFileSummaryList summaries = new CompactSecureFileSummaryList();
+        in.beginArray();
+        while (in.hasNext()) {
+            summaryAdapter.readInto(in, summaries);
+        }
+        in.endArray();
+        summaries.trimToSize();
+        return summaries;
+    }
+}
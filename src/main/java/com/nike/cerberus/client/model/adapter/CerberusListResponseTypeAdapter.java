@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.nike.cerberus.client.model.CerberusListResponse;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link CerberusListResponse} without reflection.
+ */
+public class CerberusListResponseTypeAdapter extends TypeAdapter<CerberusListResponse> {
+
+    @Override
+    public void write(final JsonWriter out, final CerberusListResponse value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("keys");
+        JsonValues.writeStrings(out, value.getKeys());
+        out.endObject();
+    }
+
+    @Override
+    public CerberusListResponse read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final CerberusListResponse response = new CerberusListResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("keys".equals(in.nextName())) {
+                response.setKeys(JsonValues.readStringList(in));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return response;
+    }
+}
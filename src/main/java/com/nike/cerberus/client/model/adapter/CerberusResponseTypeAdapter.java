@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.nike.cerberus.client.model.CerberusResponse;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link CerberusResponse} without reflection.
+ */
+public class CerberusResponseTypeAdapter extends TypeAdapter<CerberusResponse> {
+
+    @Override
+    public void write(final JsonWriter out, final CerberusResponse value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("data");
+        JsonValues.writeStringMap(out, value.getData());
+        out.endObject();
+    }
+
+    @Override
+    public CerberusResponse read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final CerberusResponse response = new CerberusResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("data".equals(in.nextName())) {
+                response.setData(JsonValues.readStringMap(in));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return response;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.nike.cerberus.client.model.CerberusAuthResponse;
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
+import com.nike.cerberus.client.model.CerberusListResponse;
+import com.nike.cerberus.client.model.CerberusResponse;
+import com.nike.cerberus.client.model.SecureFileSummary;
+import org.joda.time.DateTime;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Supplies hand-written type adapters for the Cerberus model classes and {@link DateTime}, so that decoding
+ * responses does not go through Gson's reflective binding. The adapters use the same snake case field names as
+ * the {@code LOWER_CASE_WITH_UNDERSCORES} naming policy. Subclasses of the models are left to Gson.
+ */
+public class CerberusTypeAdapterFactory implements TypeAdapterFactory {
+
+    private final Map<Class<?>, TypeAdapter<?>> adapters = new HashMap<>();
+
+    /**
+     * Creates the factory with listings decoded in {@link SecureFileListingMode#EAGER} mode.
+     */
+    public CerberusTypeAdapterFactory() {
+        this(SecureFileListingMode.EAGER);
+    }
+
+    /**
+     * @param listingMode How the secure file summaries of a listing are decoded
+     */
+    public CerberusTypeAdapterFactory(final SecureFileListingMode listingMode) {
+        if (listingMode == null) {
+            throw new IllegalArgumentException("Listing mode cannot be null.");
+        }
+
+        final TypeAdapter<SecureFileSummary> summaryAdapter =
+                new SecureFileSummaryTypeAdapter(listingMode != SecureFileListingMode.EAGER).nullSafe();
+
+        adapters.put(CerberusResponse.class, new CerberusResponseTypeAdapter().nullSafe());
+        adapters.put(CerberusListResponse.class, new CerberusListResponseTypeAdapter().nullSafe());
+        adapters.put(CerberusListFilesResponse.class, new CerberusListFilesResponseTypeAdapter(listingMode).nullSafe());
+        adapters.put(SecureFileSummary.class, summaryAdapter);
+        adapters.put(LazySecureFileSummary.class, summaryAdapter);
+        adapters.put(CerberusAuthResponse.class, new CerberusAuthResponseTypeAdapter().nullSafe());
+        adapters.put(DateTime.class, new DateTimeTypeAdapter().nullSafe());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+        return (TypeAdapter<T>) adapters.get(type.getRawType());
+    }
+}
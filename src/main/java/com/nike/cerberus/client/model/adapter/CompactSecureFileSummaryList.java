@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.nike.cerberus.client.model.SecureFileSummary;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Unmodifiable list of secure file summaries stored as one array per field rather than one object per file.
+ * Timestamps are kept as the text Cerberus sent, and a value equal to the one before it, such as the SDB ID or
+ * the user that uploaded a batch of files, is stored once. Each call to {@link #get(int)} returns a new summary
+ * that parses its timestamps on first access.
+ */
+public final class CompactSecureFileSummaryList extends AbstractList<SecureFileSummary> implements RandomAccess {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+
+    private String[] sdboxIds;
+
+    private String[] paths;
+
+    private int[] sizesInBytes;
+
+    private String[] names;
+
+    private String[] createdBys;
+
+    private String[] createdTs;
+
+    private String[] lastUpdatedBys;
+
+    private String[] lastUpdatedTs;
+
+    CompactSecureFileSummaryList() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private CompactSecureFileSummaryList(final int capacity) {
+        sdboxIds = new String[capacity];
+        paths = new String[capacity];
+        sizesInBytes = new int[capacity];
+        names = new String[capacity];
+        createdBys = new String[capacity];
+        createdTs = new String[capacity];
+        lastUpdatedBys = new String[capacity];
+        lastUpdatedTs = new String[capacity];
+    }
+
+    /**
+     * Concatenates lists of summaries, keeping the compact representation when every list has it.
+     *
+     * @param lists Lists to concatenate, in order
+     * @return A compact list if every input is one, otherwise a new {@link ArrayList}
+     */
+    public static List<SecureFileSummary> concat(final List<List<SecureFileSummary>> lists) {
+        int total = 0;
+        boolean allCompact = true;
+        for (List<SecureFileSummary> list : lists) {
+            total += list.size();
+            allCompact &= list instanceof CompactSecureFileSummaryList;
+        }
+
+        if (!allCompact) {
+            final List<SecureFileSummary> result = new ArrayList<>(total);
+            lists.forEach(result::addAll);
+            return result;
+        }
+
+        final CompactSecureFileSummaryList result = new CompactSecureFileSummaryList(total);
+        for (List<SecureFileSummary> list : lists) {
+            final CompactSecureFileSummaryList compact = (CompactSecureFileSummaryList) list;
+            for (int i = 0; i < compact.size; i++) {
+                result.append(compact.sdboxIds[i], compact.paths[i], compact.sizesInBytes[i], compact.names[i],
+                        compact.createdBys[i], compact.createdTs[i], compact.lastUpdatedBys[i],
+                        compact.lastUpdatedTs[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public SecureFileSummary get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return new LazySecureFileSummary()
+                .setCreatedTsText(createdTs[index])
+                .setLastUpdatedTsText(lastUpdatedTs[index])
+                .setSdboxId(sdboxIds[index])
+                .setPath(paths[index])
+                .setSizeInBytes(sizesInBytes[index])
+                .setName(names[index])
+                .setCreatedBy(createdBys[index])
+                .setLastUpdatedBy(lastUpdatedBys[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    void append(final String sdboxId,
+                final String path,
+                final int sizeInBytes,
+                final String name,
+                final String createdBy,
+                final String createdTs,
+                final String lastUpdatedBy,
+                final String lastUpdatedTs) {
+
+        if (size == paths.length) {
+            grow();
+        }
+
+        sdboxIds[size] = shared(sdboxIds, sdboxId);
+        paths[size] = path;
+        sizesInBytes[size] = sizeInBytes;
+        names[size] = name;
+        createdBys[size] = shared(createdBys, createdBy);
+        this.createdTs[size] = createdTs;
+        lastUpdatedBys[size] = shared(lastUpdatedBys, lastUpdatedBy);
+        this.lastUpdatedTs[size] = lastUpdatedTs;
+        size++;
+    }
+
+    /**
+     * Releases the unused capacity once decoding is done.
+     */
+    void trimToSize() {
+        if (size < paths.length) {
+            resize(size);
+        }
+    }
+
+    private String shared(final String[] column, final String value) {
+        final String previous = size > 0 ? column[size - 1] : null;
+        return previous != null && previous.equals(value) ? previous : value;
+    }
+
+    private void grow() {
+        resize(Math.max(INITIAL_CAPACITY, paths.length + (paths.length >> 1)));
+    }
+
+    private void resize(final int capacity) {
+        sdboxIds = Arrays.copyOf(sdboxIds, capacity);
+        paths = Arrays.copyOf(paths, capacity);
+        sizesInBytes = Arrays.copyOf(sizesInBytes, capacity);
+        names = Arrays.copyOf(names, capacity);
+        createdBys = Arrays.copyOf(createdBys, capacity);
+        createdTs = Arrays.copyOf(createdTs, capacity);
+        lastUpdatedBys = Arrays.copyOf(lastUpdatedBys, capacity);
+        lastUpdatedTs = Arrays.copyOf(lastUpdatedTs, capacity);
+    }
+}
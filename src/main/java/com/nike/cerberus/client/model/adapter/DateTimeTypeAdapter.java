@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.joda.time.DateTime;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link DateTime} values as ISO-8601 strings. Timestamps in the form Cerberus emits,
+ * {@code yyyy-MM-dd'T'HH:mm:ss[.SSS]} followed by {@code Z} or {@code +HH:mm}, are decoded directly; anything
+ * else goes through Joda's ISO parser. Either way the result equals {@code new DateTime(value)}.
+ */
+public class DateTimeTypeAdapter extends TypeAdapter<DateTime> {
+
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    @Override
+    public void write(final JsonWriter out, final DateTime value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(value.toString());
+    }
+
+    @Override
+    public DateTime read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return parse(in.nextString());
+    }
+
+    static DateTime parse(final String value) {
+        final long millis = parseMillis(value);
+        return millis == Long.MIN_VALUE ? new DateTime(value) : new DateTime(millis);
+    }
+
+    /**
+     * Returns the instant of a timestamp in the canonical form, or {@link Long#MIN_VALUE} for any other input.
+     */
+    private static long parseMillis(final String value) {
+        final int length = value.length();
+        if (length < 20 || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T'
+                || value.charAt(13) != ':' || value.charAt(16) != ':') {
+            return Long.MIN_VALUE;
+        }
+
+        final int year = digits(value, 0, 4);
+        final int month = digits(value, 5, 2);
+        final int day = digits(value, 8, 2);
+        final int hour = digits(value, 11, 2);
+        final int minute = digits(value, 14, 2);
+        final int second = digits(value, 17, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+
+        int index = 19;
+        int millisOfSecond = 0;
+        if (value.charAt(index) == '.') {
+            millisOfSecond = length > index + 4 ? digits(value, index + 1, 3) : -1;
+            if (millisOfSecond < 0) {
+                return Long.MIN_VALUE;
+            }
+            index += 4;
+        }
+
+        final int offsetMinutes;
+        if (index == length - 1 && value.charAt(index) == 'Z') {
+            offsetMinutes = 0;
+        } else if (index == length - 6 && value.charAt(index + 3) == ':'
+                && (value.charAt(index) == '+' || value.charAt(index) == '-')) {
+            final int offsetHours = digits(value, index + 1, 2);
+            final int offsetMinutesOfHour = digits(value, index + 4, 2);
+            if (offsetHours < 0 || offsetHours > 23 || offsetMinutesOfHour < 0 || offsetMinutesOfHour > 59) {
+                return Long.MIN_VALUE;
+            }
+            final int offset = offsetHours * 60 + offsetMinutesOfHour;
+            offsetMinutes = value.charAt(index) == '-' ? -offset : offset;
+        } else {
+            return Long.MIN_VALUE;
+        }
+
+        return epochDay(year, month, day) * MILLIS_PER_DAY
+                + ((hour * 60L + minute - offsetMinutes) * 60L + second) * 1000L
+                + millisOfSecond;
+    }
+
+    private static int digits(final String value, final int start, final int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static int lengthOfMonth(final int year, final int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 in the proleptic Gregorian calendar.
+     */
+    private static long epochDay(final int year, final int month, final int day) {
+        final long y = month <= 2 ? year - 1 : year;
+        final long era = y / 400;
+        final long yearOfEra = y - era * 400;
+        final long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+}
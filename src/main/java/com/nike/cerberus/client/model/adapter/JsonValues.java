@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and writes the JSON values shared by the model type adapters, accepting the same inputs as Gson's
+ * built-in adapters for the corresponding Java types.
+ */
+final class JsonValues {
+
+    private JsonValues() {
+    }
+
+    static String readString(final JsonReader in) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        } else if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    /**
+     * Reads an int, keeping the current value when the JSON value is null as reflective binding does for
+     * primitive fields.
+     */
+    static int readInt(final JsonReader in, final int current) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return current;
+        }
+        return in.nextInt();
+    }
+
+    static Integer readInteger(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+
+    /**
+     * Reads a boolean, keeping the current value when the JSON value is null as reflective binding does for
+     * primitive fields.
+     */
+    static boolean readBoolean(final JsonReader in, final boolean current) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return current;
+        } else if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    static Map<String, String> readStringMap(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final Map<String, String> map = new LinkedHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            map.put(in.nextName(), readString(in));
+        }
+        in.endObject();
+        return map;
+    }
+
+    static List<String> readStringList(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return readStrings(in, new ArrayList<>());
+    }
+
+    static Set<String> readStringSet(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return readStrings(in, new LinkedHashSet<>());
+    }
+
+    static <T> List<T> readList(final JsonReader in, final TypeAdapter<T> elementAdapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final List<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(elementAdapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    static void writeStringMap(final JsonWriter out, final Map<String, String> map) throws IOException {
+        if (map == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            out.name(entry.getKey()).value(entry.getValue());
+        }
+        out.endObject();
+    }
+
+    static void writeStrings(final JsonWriter out, final Collection<String> strings) throws IOException {
+        if (strings == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (String string : strings) {
+            out.value(string);
+        }
+        out.endArray();
+    }
+
+    static <T> void writeList(final JsonWriter out,
+                              final List<T> list,
+                              final TypeAdapter<T> elementAdapter) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (T element : list) {
+            elementAdapter.write(out, element);
+        }
+        out.endArray();
+    }
+
+    private static <C extends Collection<String>> C readStrings(final JsonReader in, final C strings)
+            throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            strings.add(readString(in));
+        }
+        in.endArray();
+        return strings;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.nike.cerberus.client.model.SecureFileSummary;
+import org.joda.time.DateTime;
+
+/**
+ * Secure file summary that parses its timestamps on first access. The unparsed text is volatile so that a
+ * reader which sees it cleared also sees the parsed value.
+ */
+final class LazySecureFileSummary extends SecureFileSummary {
+
+    private volatile String createdTsText;
+
+    private volatile String lastUpdatedTsText;
+
+    LazySecureFileSummary setCreatedTsText(final String createdTsText) {
+        super.setCreatedTs(null);
+        this.createdTsText = createdTsText;
+        return this;
+    }
+
+    LazySecureFileSummary setLastUpdatedTsText(final String lastUpdatedTsText) {
+        super.setLastUpdatedTs(null);
+        this.lastUpdatedTsText = lastUpdatedTsText;
+        return this;
+    }
+
+    @Override
+    public DateTime getCreatedTs() {
+        final String text = createdTsText;
+        if (text != null) {
+            super.setCreatedTs(DateTimeTypeAdapter.parse(text));
+            createdTsText = null;
+        }
+        return super.getCreatedTs();
+    }
+
+    @Override
+    public SecureFileSummary setCreatedTs(final DateTime createdTs) {
+        createdTsText = null;
+        return super.setCreatedTs(createdTs);
+    }
+
+    @Override
+    public DateTime getLastUpdatedTs() {
+        final String text = lastUpdatedTsText;
+        if (text != null) {
+            super.setLastUpdatedTs(DateTimeTypeAdapter.parse(text));
+            lastUpdatedTsText = null;
+        }
+        return super.getLastUpdatedTs();
+    }
+
+    @Override
+    public SecureFileSummary setLastUpdatedTs(final DateTime lastUpdatedTs) {
+        lastUpdatedTsText = null;
+        return super.setLastUpdatedTs(lastUpdatedTs);
+    }
+}
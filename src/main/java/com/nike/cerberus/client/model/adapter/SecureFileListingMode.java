@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.nike.cerberus.client.model.SecureFileSummary;
+
+/**
+ * How the secure file summaries of a listing are decoded.
+ */
+public enum SecureFileListingMode {
+
+    /**
+     * Every summary is a {@link SecureFileSummary} with its timestamps parsed while the listing is decoded.
+     */
+    EAGER,
+
+    /**
+     * Summaries keep their timestamps as the text Cerberus sent and parse them the first time
+     * {@link SecureFileSummary#getCreatedTs()} or {@link SecureFileSummary#getLastUpdatedTs()} is called. A
+     * malformed timestamp is then reported by that call instead of failing the listing. The text takes more
+     * memory than a parsed timestamp, so this mode suits listings that are consumed right away.
+     */
+    LAZY_TIMESTAMPS,
+
+    /**
+     * Like {@link #LAZY_TIMESTAMPS}, and the summaries are held column by column in a
+     * {@link CompactSecureFileSummaryList} instead of one object per file. The list is unmodifiable and each
+     * {@code get} returns a new summary, so changes to a returned summary are not reflected in the list.
+     */
+    COMPACT
+}
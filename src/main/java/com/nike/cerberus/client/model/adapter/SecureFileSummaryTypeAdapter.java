@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.nike.cerberus.client.model.SecureFileSummary;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link SecureFileSummary} without reflection.
+ */
+public class SecureFileSummaryTypeAdapter extends TypeAdapter<SecureFileSummary> {
+
+    private final DateTimeTypeAdapter dateTimeAdapter = new DateTimeTypeAdapter();
+
+    private final boolean lazyTimestamps;
+
+    /**
+     * Creates an adapter that parses timestamps while reading.
+     */
+    public SecureFileSummaryTypeAdapter() {
+        this(false);
+    }
+
+    /**
+     * @param lazyTimestamps Whether read summaries keep their timestamps as text until they are accessed
+     */
+    public SecureFileSummaryTypeAdapter(final boolean lazyTimestamps) {
+        this.lazyTimestamps = lazyTimestamps;
+    }
+
+    @Override
+    public void write(final JsonWriter out, final SecureFileSummary value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("sdbox_id").value(value.getSdboxId());
+        out.name("path").value(value.getPath());
+        out.name("size_in_bytes").value(value.getSizeInBytes());
+        out.name("name").value(value.getName());
+        out.name("created_by").value(value.getCreatedBy());
+        out.name("created_ts");
+        dateTimeAdapter.write(out, value.getCreatedTs());
+        out.name("last_updated_by").value(value.getLastUpdatedBy());
+        out.name("last_updated_ts");
+        dateTimeAdapter.write(out, value.getLastUpdatedTs());
+        out.endObject();
+    }
+
+    @Override
+    public SecureFileSummary read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final LazySecureFileSummary lazySummary = lazyTimestamps ? new LazySecureFileSummary() : null;
+        final SecureFileSummary summary = lazySummary != null ? lazySummary : new SecureFileSummary();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "sdbox_id":
+                    summary.setSdboxId(JsonValues.readString(in));
+                    break;
+                case "path":
+                    summary.setPath(JsonValues.readString(in));
+                    break;
+                case "size_in_bytes":
+                    summary.setSizeInBytes(JsonValues.readInt(in, summary.getSizeInBytes()));
+                    break;
+                case "name":
+                    summary.setName(JsonValues.readString(in));
+                    break;
+                case "created_by":
+                    summary.setCreatedBy(JsonValues.readString(in));
+                    break;
+                case "created_ts":
+                    if (lazySummary != null) {
+                        lazySummary.setCreatedTsText(JsonValues.readString(in));
+                    } else {
+                        summary.setCreatedTs(dateTimeAdapter.read(in));
+                    }
+                    break;
+                case "last_updated_by":
+                    summary.setLastUpdatedBy(JsonValues.readString(in));
+                    break;
+                case "last_updated_ts":
+                    if (lazySummary != null) {
+                        lazySummary.setLastUpdatedTsText(JsonValues.readString(in));
+                    } else {
+                        summary.setLastUpdatedTs(dateTimeAdapter.read(in));
+                    }
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return summary;
+    }
+
+    /**
+     * Reads a summary straight into the columns of a compact list, without creating a summary object. A JSON
+     * null is skipped.
+     */
+    void readInto(final JsonReader in, final CompactSecureFileSummaryList summaries) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return;
+        }
+
+        String sdboxId = null;
+        String path = null;
+        int sizeInBytes = 0;
+        String name = null;
+        String createdBy = null;
+        String createdTs = null;
+        String lastUpdatedBy = null;
+        String lastUpdatedTs = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "sdbox_id":
+                    sdboxId = JsonValues.readString(in);
+                    break;
+                case "path":
+                    path = JsonValues.readString(in);
+                    break;
+                case "size_in_bytes":
+                    sizeInBytes = JsonValues.readInt(in, sizeInBytes);
+                    break;
+                case "name":
+                    name = JsonValues.readString(in);
+                    break;
+                case "created_by":
+                    createdBy = JsonValues.readString(in);
+                    break;
+                case "created_ts":
+                    createdTs = JsonValues.readString(in);
+                    break;
+                case "last_updated_by":
+                    lastUpdatedBy = JsonValues.readString(in);
+                    break;
+                case "last_updated_ts":
+                    lastUpdatedTs = JsonValues.readString(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        summaries.append(sdboxId, path, sizeInBytes, name, createdBy, createdTs, lastUpdatedBy, lastUpdatedTs);
+    }
+}
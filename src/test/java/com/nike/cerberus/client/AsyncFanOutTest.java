@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the AsyncFanOut class
+ */
+public class AsyncFanOutTest {
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(8);
+
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void runs_every_item_with_bounded_concurrency() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final Map<Integer, Integer> results = new ConcurrentHashMap<>();
+        final AsyncFanOut<Integer, Integer> fanOut = new AsyncFanOut<>(3, item -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            final CompletableFuture<Integer> future = new CompletableFuture<>();
+            executor.schedule(() -> {
+                running.decrementAndGet();
+                future.complete(item * 2);
+            }, 20, TimeUnit.MILLISECONDS);
+            return future;
+        }, results::put, (item, e) -> { throw e; });
+
+        for (int i = 0; i < 20; i++) {
+            fanOut.submit(i);
+        }
+        fanOut.seal().get(5, TimeUnit.SECONDS);
+
+        assertThat(results).hasSize(20);
+        assertThat(results.get(7)).isEqualTo(14);
+        assertThat(maxRunning.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void records_failures_without_stopping_other_items() throws Exception {
+        final Map<Integer, Integer> results = new ConcurrentHashMap<>();
+        final Map<Integer, RuntimeException> failures = new ConcurrentHashMap<>();
+        final AsyncFanOut<Integer, Integer> fanOut = new AsyncFanOut<>(2, item -> {
+            if (item % 2 == 0) {
+                throw new CerberusClientException("even");
+            }
+            return CompletableFuture.supplyAsync(() -> item, executor);
+        }, results::put, failures::put);
+
+        for (int i = 0; i < 10; i++) {
+            fanOut.submit(i);
+        }
+        fanOut.seal().get(5, TimeUnit.SECONDS);
+
+        assertThat(results.keySet()).containsOnly(1, 3, 5, 7, 9);
+        assertThat(failures.keySet()).containsOnly(0, 2, 4, 6, 8);
+        assertThat(failures.get(0)).hasMessage("even");
+    }
+
+    @Test
+    public void items_submitted_from_callbacks_are_run_before_completion() throws Exception {
+        final AtomicInteger visited = new AtomicInteger();
+        final AtomicReference<AsyncFanOut<Integer, Integer>> holder = new AtomicReference<>();
+        holder.set(new AsyncFanOut<>(4, depth -> CompletableFuture.supplyAsync(() -> depth, executor),
+                (depth, result) -> {
+                    visited.incrementAndGet();
+                    if (depth < 3) {
+                        holder.get().submit(depth + 1);
+                        holder.get().submit(depth + 1);
+                    }
+                }, (depth, e) -> { throw e; }));
+
+        holder.get().submit(0);
+        holder.get().seal().get(5, TimeUnit.SECONDS);
+
+        assertThat(visited.get()).isEqualTo(15);
+    }
+
+    @Test
+    public void already_completed_calls_do_not_overflow_the_stack() throws Exception {
+        final AtomicInteger results = new AtomicInteger();
+        final AsyncFanOut<Integer, Integer> fanOut = new AsyncFanOut<>(1, CompletableFuture::completedFuture,
+                (item, result) -> results.incrementAndGet(), (item, e) -> { throw e; });
+
+        for (int i = 0; i < 100_000; i++) {
+            fanOut.submit(i);
+        }
+        fanOut.seal().get(5, TimeUnit.SECONDS);
+
+        assertThat(results.get()).isEqualTo(100_000);
+    }
+
+    @Test
+    public void empty_fan_out_completes_when_sealed() throws Exception {
+        final AsyncFanOut<Integer, Integer> fanOut = new AsyncFanOut<>(1, CompletableFuture::completedFuture,
+                (item, result) -> { }, (item, e) -> { });
+
+        assertThat(fanOut.seal().get(1, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void callback_failure_completes_exceptionally() throws Exception {
+        final AsyncFanOut<Integer, Integer> fanOut = new AsyncFanOut<>(1, CompletableFuture::completedFuture,
+                (item, result) -> { throw new IllegalStateException("callback"); }, (item, e) -> { });
+
+        fanOut.submit(1);
+        fanOut.seal().get(1, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void submit_throws_error_if_item_is_null() {
+        new AsyncFanOut<Integer, Integer>(1, CompletableFuture::completedFuture, (item, result) -> { }, (item, e) -> { })
+                .submit(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_max_concurrency_is_not_positive() {
+        new AsyncFanOut<Integer, Integer>(0, CompletableFuture::completedFuture, (item, result) -> { }, (item, e) -> { });
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the AsyncResultStream class
+ */
+public class AsyncResultStreamTest {
+
+    @Test
+    public void results_are_streamed_in_order_until_complete() {
+        final AsyncResultStream<Integer> results = new AsyncResultStream<>(4);
+        results.add(1);
+        results.add(2);
+        results.complete();
+
+        assertThat(results.stream().collect(Collectors.toList())).containsExactly(1, 2);
+    }
+
+    @Test
+    public void producer_blocks_while_the_buffer_is_full() throws Exception {
+        final AsyncResultStream<Integer> results = new AsyncResultStream<>(2);
+        results.add(1);
+        results.add(2);
+
+        final CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            results.add(3);
+            results.complete();
+        });
+        try {
+            producer.get(300, TimeUnit.MILLISECONDS);
+            throw new AssertionError("Expected the producer to block");
+        } catch (TimeoutException expected) {
+            // the buffer holds two results
+        }
+
+        final Iterator<Integer> iterator = results.stream().iterator();
+        assertThat(iterator.next()).isEqualTo(1);
+        producer.get(5, TimeUnit.SECONDS);
+        assertThat(iterator.next()).isEqualTo(2);
+        assertThat(iterator.next()).isEqualTo(3);
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void blocked_producer_is_released_when_the_stream_is_closed() throws Exception {
+        final AsyncResultStream<Integer> results = new AsyncResultStream<>(1);
+        results.add(1);
+        final Stream<Integer> stream = results.stream();
+
+        final CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> results.add(2));
+        stream.close();
+
+        producer.get(5, TimeUnit.SECONDS);
+        assertThat(results.isDone()).isTrue();
+    }
+
+    @Test(expected = CerberusClientException.class)
+    public void failure_is_rethrown_to_the_consumer() {
+        final AsyncResultStream<Integer> results = new AsyncResultStream<>(1);
+        results.fail(new CerberusClientException("failed"));
+
+        results.stream().count();
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
+import com.nike.cerberus.client.auth.TokenCerberusCredentials;
+import com.nike.cerberus.client.model.CerberusResponse;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the CachingCerberusClient class
+ */
+public class CachingCerberusClientTest {
+
+    private MockWebServer mockWebServer;
+
+    private String cerberusUrl;
+
+    private CerberusCredentialsProvider cerberusCredentialsProvider;
+
+    @Before
+    public void setup() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        cerberusUrl = "http://localhost:" + mockWebServer.getPort();
+        cerberusCredentialsProvider = mock(CerberusCredentialsProvider.class);
+        when(cerberusCredentialsProvider.getCredentials()).thenReturn(new TokenCerberusCredentials("TOKEN"));
+    }
+
+    @After
+    public void teardown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_max_entries_is_not_positive() {
+        getClient(Duration.ofMinutes(1), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_ttl_is_negative() {
+        getClient(Duration.ofMinutes(-1), 10);
+    }
+
+    @Test
+    public void read_serves_repeated_reads_from_memory() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        CachingCerberusClient cerberusClient = getClient(Duration.ofMinutes(1), 10);
+
+        CerberusResponse first = cerberusClient.read("app/api-key");
+        CerberusResponse second = cerberusClient.read("app/api-key");
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void read_fetches_again_after_ttl_expires() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        CachingCerberusClient cerberusClient = getClient(Duration.ofMillis(1), 10);
+
+        cerberusClient.read("app/api-key");
+        Thread.sleep(5);
+        cerberusClient.read("app/api-key");
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void read_evicts_least_recently_used_path_when_full() {
+        for (int i = 0; i < 4; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        }
+        CachingCerberusClient cerberusClient = getClient(Duration.ofMinutes(1), 2);
+
+        cerberusClient.read("app/a");
+        cerberusClient.read("app/b");
+        cerberusClient.read("app/a");
+        cerberusClient.read("app/c");
+        assertThat(cerberusClient.size()).isEqualTo(2);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+
+        cerberusClient.read("app/a");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+
+        cerberusClient.read("app/b");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void write_invalidates_cached_path() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        CachingCerberusClient cerberusClient = getClient(Duration.ofMinutes(1), 10);
+
+        cerberusClient.read("app/api-key");
+        Map<String, String> data = new HashMap<>();
+        data.put("key", "value");
+        cerberusClient.write("app/api-key", data);
+        cerberusClient.read("app/api-key");
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void read_that_overlaps_a_write_does_not_cache_the_old_value() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"))
+                .setBodyDelay(500, TimeUnit.MILLISECONDS));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("{\"data\":{\"value\":\"written\"}}"));
+        CachingCerberusClient cerberusClient = getClient(Duration.ofMinutes(1), 10);
+        final Map<String, String> data = new HashMap<>();
+        data.put("value", "written");
+
+        final CompletableFuture<CerberusResponse> slowRead =
+                CompletableFuture.supplyAsync(() -> cerberusClient.read("app/api-key"));
+        mockWebServer.takeRequest(5, TimeUnit.SECONDS);
+        cerberusClient.write("app/api-key", data);
+
+        assertThat(slowRead.get(5, TimeUnit.SECONDS).getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(cerberusClient.read("app/api-key").getData().get("value")).isEqualTo("written");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void readAsync_shares_cache_with_read_and_writeAsync_invalidates() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        CachingCerberusClient cerberusClient = getClient(Duration.ofMinutes(1), 10);
+
+        CerberusResponse first = cerberusClient.readAsync("app/api-key").get(5, TimeUnit.SECONDS);
+        assertThat(cerberusClient.read("app/api-key")).isSameAs(first);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+
+        Map<String, String> data = new HashMap<>();
+        data.put("key", "value");
+        cerberusClient.writeAsync("app/api-key", data).get(5, TimeUnit.SECONDS);
+        cerberusClient.readAsync("app/api-key").get(5, TimeUnit.SECONDS);
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void read_errors_are_not_cached() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404).setBody(getResponseJson("error")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        CachingCerberusClient cerberusClient = getClient(Duration.ofMinutes(1), 10);
+
+        try {
+            cerberusClient.read("app/api-key");
+            throw new AssertionError("Expected CerberusServerApiException, but was not thrown");
+        } catch (CerberusServerApiException se) {
+            assertThat(se.getCode()).isEqualTo(404);
+        }
+
+        assertThat(cerberusClient.read("app/api-key").getData()).containsKey("value");
+    }
+
+    @Test
+    public void read_serves_expired_entry_while_circuit_breaker_is_open() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        CachingCerberusClient cerberusClient = getClient(Duration.ofMillis(1), 10);
+        cerberusClient.setMaxStalenessWhileNotPermitted(Duration.ofMinutes(1));
+        final CerberusResilience resilience = CerberusResilience.ofDefaults();
+        cerberusClient.setResilience(resilience);
+
+        final CerberusResponse cached = cerberusClient.read("app/api-key");
+        resilience.getCircuitBreaker(CerberusOperationType.READ).transitionToOpenState();
+        Thread.sleep(5);
+
+        assertThat(cerberusClient.read("app/api-key")).isSameAs(cached);
+        assertThat(cerberusClient.readAsync("app/api-key").get(5, TimeUnit.SECONDS)).isSameAs(cached);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+
+        try {
+            cerberusClient.read("app/other-key");
+            throw new AssertionError("Expected CerberusCallNotPermittedException, but was not thrown");
+        } catch (CerberusCallNotPermittedException e) {
+            assertThat(e.getOperationType()).isEqualTo(CerberusOperationType.READ);
+        }
+    }
+
+    @Test
+    public void read_does_not_serve_expired_entry_when_rate_limited() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        CachingCerberusClient cerberusClient = getClient(Duration.ofMillis(1), 10);
+        cerberusClient.setMaxStalenessWhileNotPermitted(Duration.ofMinutes(1));
+        // allows the burst of one and the permit being refilled, then holds requests for 1000 seconds
+        cerberusClient.setRateLimiter(new CerberusRateLimiter(0.001, 1, Duration.ZERO));
+
+        cerberusClient.read("app/api-key");
+        Thread.sleep(5);
+        cerberusClient.read("app/api-key");
+        Thread.sleep(5);
+
+        try {
+            cerberusClient.read("app/api-key");
+            throw new AssertionError("Expected CerberusRateLimitedException, but was not thrown");
+        } catch (CerberusRateLimitedException e) {
+            assertThat(e.getOperationType()).isEqualTo(CerberusOperationType.READ);
+        }
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void read_does_not_serve_entry_past_max_staleness_while_circuit_breaker_is_open() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        CachingCerberusClient cerberusClient = getClient(Duration.ofMillis(1), 10);
+        final CerberusResilience resilience = CerberusResilience.ofDefaults();
+        cerberusClient.setResilience(resilience);
+
+        cerberusClient.read("app/api-key");
+        resilience.getCircuitBreaker(CerberusOperationType.READ).transitionToOpenState();
+        Thread.sleep(5);
+
+        try {
+            cerberusClient.read("app/api-key");
+            throw new AssertionError("Expected CerberusCallNotPermittedException, but was not thrown");
+        } catch (CerberusCallNotPermittedException e) {
+            assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+        }
+        try {
+            cerberusClient.readAsync("app/api-key").get(5, TimeUnit.SECONDS);
+            throw new AssertionError("Expected CerberusCallNotPermittedException, but was not thrown");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(CerberusCallNotPermittedException.class);
+        }
+    }
+
+    @Test
+    public void read_serves_stale_entry_while_refreshing_in_background() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("{\"data\":{\"value\":\"refreshed\"}}"));
+        final List<Runnable> refreshes = new ArrayList<>();
+        CachingCerberusClient cerberusClient = getStaleClient(Duration.ofMillis(1), Duration.ofMinutes(1), refreshes::add);
+
+        cerberusClient.read("app/api-key");
+        Thread.sleep(5);
+
+        assertThat(cerberusClient.read("app/api-key").getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(cerberusClient.read("app/api-key").getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(refreshes).hasSize(1);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+
+        refreshes.get(0).run();
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+        assertThat(cerberusClient.read("app/api-key").getData().get("value")).isEqualTo("refreshed");
+    }
+
+    @Test
+    public void read_keeps_serving_stale_entry_when_background_refresh_fails() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(403).setBody(getResponseJson("error")));
+        final List<Runnable> refreshes = new ArrayList<>();
+        CachingCerberusClient cerberusClient = getStaleClient(Duration.ofMillis(1), Duration.ofMinutes(1), refreshes::add);
+
+        cerberusClient.read("app/api-key");
+        Thread.sleep(5);
+        cerberusClient.read("app/api-key");
+        refreshes.get(0).run();
+
+        assertThat(cerberusClient.read("app/api-key").getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(refreshes).hasSize(2);
+    }
+
+    @Test
+    public void read_blocks_once_max_staleness_is_exceeded() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("{\"data\":{\"value\":\"refreshed\"}}"));
+        final List<Runnable> refreshes = new ArrayList<>();
+        CachingCerberusClient cerberusClient = getStaleClient(Duration.ofMillis(1), Duration.ofMillis(1), refreshes::add);
+
+        cerberusClient.read("app/api-key");
+        Thread.sleep(5);
+
+        assertThat(cerberusClient.read("app/api-key").getData().get("value")).isEqualTo("refreshed");
+        assertThat(refreshes).isEmpty();
+    }
+
+    private CachingCerberusClient getStaleClient(Duration ttl, Duration maxStaleness, Executor executor) {
+        return new CachingCerberusClient(cerberusUrl,
+                cerberusCredentialsProvider,
+                new OkHttpClient(),
+                new Headers.Builder().build(),
+                ttl,
+                maxStaleness,
+                10,
+                executor);
+    }
+
+    private CachingCerberusClient getClient(Duration ttl, int maxEntries) {
+        return CerberusClientFactory.getCachingClient(cerberusUrl,
+                cerberusCredentialsProvider,
+                new HashMap<>(),
+                ttl,
+                maxEntries);
+    }
+
+    private String getResponseJson(final String title) {
+        InputStream inputStream = getClass().getResourceAsStream(
+                String.format("/com/nike/cerberus/client/%s.json", title));
+        try {
+            return IOUtils.toString(inputStream, Charset.forName("UTF-8"));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+}
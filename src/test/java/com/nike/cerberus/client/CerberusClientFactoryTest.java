@@ -19,8 +19,16 @@ package com.nike.cerberus.client;
 import com.nike.cerberus.client.auth.TokenCerberusCredentials;
 import com.nike.cerberus.client.auth.CerberusCredentials;
 import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
+import com.nike.cerberus.client.endpoint.EndpointSelectionStrategy;
+import com.nike.cerberus.client.json.CerberusJsonCodec;
+import com.nike.cerberus.client.json.GsonCerberusJsonCodec;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -82,4 +90,146 @@ public class CerberusClientFactoryTest {
         assertThat(client.getDefaultHeaders().get(headerKey)).isEqualTo(headerValue);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void test_get_client_uses_rate_limiter() {
+        final CerberusRateLimiter rateLimiter = new CerberusRateLimiter(50);
+        final CerberusClient client = CerberusClientFactory.clientBuilder(url, credentialsProvider)
+                .rateLimiter(rateLimiter)
+                .build();
+        assertThat(client.getCerberusUrl().url().toString()).isEqualTo(url);
+        assertThat(client.getRateLimiter()).isSameAs(rateLimiter);
+        client.close();
+    }
+
+    @Test
+    public void client_builder_uses_all_options() {
+        final Map<String, String> defaultHeaders = new HashMap<>();
+        defaultHeaders.put("HeaderKey", "header value");
+        final OkHttpClient httpClient = new OkHttpClient();
+        final CerberusJsonCodec jsonCodec = new GsonCerberusJsonCodec();
+        final CerberusClient client = CerberusClientFactory.clientBuilder(url, credentialsProvider)
+                .defaultHeaders(defaultHeaders)
+                .httpClient(httpClient)
+                .jsonCodec(jsonCodec)
+                .build();
+        assertThat(client.getCerberusUrl().url().toString()).isEqualTo(url);
+        assertThat(client.getDefaultHeaders().get("HeaderKey")).isEqualTo("header value");
+        assertThat(client.getJsonCodec()).isSameAs(jsonCodec);
+        assertThat(client.getRateLimiter()).isNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void client_builder_rejects_null_options() {
+        CerberusClientFactory.clientBuilder(url, credentialsProvider).jsonCodec(null);
+    }
+
+    @Test
+    public void clients_for_the_same_url_share_a_transport_until_closed() {
+        final CerberusTransportRegistry defaultRegistry = CerberusClientFactory.getTransportRegistry();
+        final CerberusTransportRegistry registry = new CerberusTransportRegistry();
+        CerberusClientFactory.setTransportRegistry(registry);
+        try {
+            final CerberusClient client = CerberusClientFactory.getClient(url, credentialsProvider);
+            final CerberusClient tunedClient = CerberusClientFactory.getClient(url, credentialsProvider, 100,
+                    new HashMap<>());
+            assertThat(registry.size()).isEqualTo(1);
+
+            client.close();
+            assertThat(registry.size()).isEqualTo(1);
+
+            tunedClient.close();
+            assertThat(registry.size()).isEqualTo(0);
+        } finally {
+            CerberusClientFactory.setTransportRegistry(defaultRegistry);
+        }
+    }
+
+    @Test
+    public void failed_client_creation_releases_the_transport() {
+        final CerberusTransportRegistry defaultRegistry = CerberusClientFactory.getTransportRegistry();
+        final CerberusTransportRegistry registry = new CerberusTransportRegistry();
+        CerberusClientFactory.setTransportRegistry(registry);
+        try {
+            CerberusClientFactory.getClient(url, null);
+        } catch (IllegalArgumentException expected) {
+            assertThat(registry.size()).isEqualTo(0);
+            return;
+        } finally {
+            CerberusClientFactory.setTransportRegistry(defaultRegistry);
+        }
+        throw new AssertionError("Expected the client creation to fail");
+    }
+
+    @Test
+    public void transport_settings_apply_to_clients_created_afterwards() {
+        final CerberusTransportRegistry defaultRegistry = CerberusClientFactory.getTransportRegistry();
+        CerberusClientFactory.setTransportSettings(CerberusClientFactory.transportSettings()
+                .maxRequestsPerHost(50)
+                .build());
+        try {
+            final CerberusClient client = CerberusClientFactory.getClient(url, credentialsProvider);
+
+            assertThat(client.getMaxRequestsPerHost()).isEqualTo(50);
+            client.close();
+        } finally {
+            CerberusClientFactory.setTransportRegistry(defaultRegistry);
+        }
+    }
+
+    @Test
+    public void load_balanced_client_fails_over_between_endpoints() throws Exception {
+        final MockWebServer primary = new MockWebServer();
+        final MockWebServer secondary = new MockWebServer();
+        primary.start();
+        secondary.start();
+        primary.enqueue(new MockResponse().setResponseCode(503));
+        secondary.enqueue(new MockResponse().setResponseCode(503));
+        final MockResponse secret = new MockResponse().setResponseCode(200).setBody("{\"data\":{\"key\":\"value\"}}");
+        primary.enqueue(secret);
+        secondary.enqueue(secret);
+        final CerberusClient client = CerberusClientFactory.clientBuilder(primary.url("/").toString(),
+                credentialsProvider)
+                .endpoints(Arrays.asList(primary.url("/").toString(), secondary.url("/").toString()),
+                        EndpointSelectionStrategy.EWMA_LATENCY)
+                .build();
+
+        try {
+            assertThat(client.getCerberusUrl()).isEqualTo(primary.url("/"));
+            assertThat(client.read("app/sdb/secret").getData()).containsEntry("key", "value");
+            assertThat(primary.getRequestCount() + secondary.getRequestCount()).isEqualTo(3);
+        } finally {
+            client.close();
+            primary.shutdown();
+            secondary.shutdown();
+        }
+    }
+
+    @Test
+    public void load_balanced_client_uses_the_first_endpoint_as_its_url() throws Exception {
+        final MockWebServer primary = new MockWebServer();
+        final MockWebServer secondary = new MockWebServer();
+        primary.start();
+        secondary.start();
+        primary.enqueue(new MockResponse().setResponseCode(503));
+        secondary.enqueue(new MockResponse().setResponseCode(503));
+        final MockResponse secret = new MockResponse().setResponseCode(200).setBody("{\"data\":{\"key\":\"value\"}}");
+        primary.enqueue(secret);
+        secondary.enqueue(secret);
+        final String primaryUrl = StringUtils.removeEnd(primary.url("/").toString(), "/");
+        final CerberusClient client = CerberusClientFactory.clientBuilder(secondary.url("/").toString(),
+                credentialsProvider)
+                .endpoints(Arrays.asList(primaryUrl, secondary.url("/").toString()),
+                        EndpointSelectionStrategy.EWMA_LATENCY)
+                .build();
+
+        try {
+            assertThat(client.getCerberusUrl()).isEqualTo(primary.url("/"));
+            assertThat(client.read("app/sdb/secret").getData()).containsEntry("key", "value");
+            assertThat(primary.getRequestCount() + secondary.getRequestCount()).isEqualTo(3);
+        } finally {
+            client.close();
+            primary.shutdown();
+            secondary.shutdown();
+        }
+    }
+}
@@ -19,32 +19,74 @@ package com.nike.cerberus.client;
 import com.nike.cerberus.client.auth.CerberusCredentials;
 import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
 import com.nike.cerberus.client.auth.DefaultCerberusCredentialsProviderChain;
+import com.nike.cerberus.client.http.HttpHeader;
+import com.nike.cerberus.client.json.CerberusJsonCodec;
+import com.nike.cerberus.client.json.GsonCerberusJsonCodec;
+import com.nike.cerberus.client.model.CerberusBulkReadResponse;
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
 import com.nike.cerberus.client.model.CerberusListResponse;
 import com.nike.cerberus.client.model.CerberusResponse;
+import com.nike.cerberus.client.model.SecureFileSummary;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.Headers;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
 import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
 import java.net.ServerSocket;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.nike.cerberus.client.CerberusClient.DEFAULT_NUM_RETRIES;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -55,6 +97,9 @@ import static org.mockito.Mockito.when;
  */
 public class CerberusClientTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private CerberusClient cerberusClient;
 
     private MockWebServer mockWebServer;
@@ -79,6 +124,7 @@ public class CerberusClientTest {
 
     @After
     public void teardown() throws IOException {
+        cerberusClient.close();
         mockWebServer.shutdown();
     }
 
@@ -155,6 +201,194 @@ public class CerberusClientTest {
         assertThat(cerberusResponse.getData().get("value")).isEqualToIgnoringCase("world");
     }
 
+    @Test
+    public void concurrent_reads_of_same_path_share_one_request() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"))
+                .setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+
+        final int threads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<CerberusResponse>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cerberusClient.read("app/api-key");
+            }));
+        }
+        start.countDown();
+
+        for (Future<CerberusResponse> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).getData().get("value")).isEqualToIgnoringCase("world");
+        }
+        executor.shutdown();
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void read_is_hedged_when_not_answered_within_hedge_delay() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"))
+                .setHeadersDelay(5, TimeUnit.SECONDS));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        final HedgingPolicy hedgingPolicy = new HedgingPolicy(0.5, 1, Duration.ofMillis(50), Duration.ofMillis(50));
+        cerberusClient.setHedgingPolicy(hedgingPolicy);
+
+        final long start = System.nanoTime();
+        CerberusResponse cerberusResponse = cerberusClient.read("app/api-key");
+
+        assertThat(cerberusResponse.getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+        assertThat(hedgingPolicy.getHedgedRequests()).isEqualTo(1);
+        assertThat(hedgingPolicy.getHedgesWon()).isEqualTo(1);
+    }
+
+    @Test
+    public void read_is_not_hedged_once_max_hedge_rate_is_spent() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"))
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        final HedgingPolicy hedgingPolicy = new HedgingPolicy(0.5, 0, Duration.ofMillis(50), Duration.ofMillis(50));
+        cerberusClient.setHedgingPolicy(hedgingPolicy);
+
+        CerberusResponse cerberusResponse = cerberusClient.read("app/api-key");
+
+        assertThat(cerberusResponse.getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+        assertThat(hedgingPolicy.getHedgedRequests()).isEqualTo(0);
+    }
+
+    @Test
+    public void read_is_not_hedged_without_a_spare_rate_limiter_permit() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"))
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        final HedgingPolicy hedgingPolicy = new HedgingPolicy(0.5, 1, Duration.ofMillis(50), Duration.ofMillis(50));
+        cerberusClient.setHedgingPolicy(hedgingPolicy);
+        cerberusClient.setRateLimiter(new CerberusRateLimiter(0.001, 1, Duration.ZERO));
+
+        CerberusResponse cerberusResponse = cerberusClient.read("app/api-key");
+
+        assertThat(cerberusResponse.getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+        assertThat(hedgingPolicy.getHedgedRequests()).isEqualTo(0);
+    }
+
+    @Test
+    public void read_is_not_hedged_while_circuit_breaker_is_half_open() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"))
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        final HedgingPolicy hedgingPolicy = new HedgingPolicy(0.5, 1, Duration.ofMillis(50), Duration.ofMillis(50));
+        cerberusClient.setHedgingPolicy(hedgingPolicy);
+        final CerberusResilience resilience = CerberusResilience.ofDefaults();
+        resilience.getCircuitBreaker(CerberusOperationType.READ).transitionToOpenState();
+        resilience.getCircuitBreaker(CerberusOperationType.READ).transitionToHalfOpenState();
+        cerberusClient.setResilience(resilience);
+
+        CerberusResponse cerberusResponse = cerberusClient.read("app/api-key");
+
+        assertThat(cerberusResponse.getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+        assertThat(hedgingPolicy.getHedgedRequests()).isEqualTo(0);
+    }
+
+    @Test
+    public void hedged_read_retries_on_500_errors() {
+        for (int i = 0; i < DEFAULT_NUM_RETRIES - 1; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody(getResponseJson("error")));
+        }
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        cerberusClient.setHedgingPolicy(new HedgingPolicy());
+
+        CerberusResponse cerberusResponse = cerberusClient.read("app/api-key");
+
+        assertThat(cerberusResponse.getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(DEFAULT_NUM_RETRIES);
+    }
+
+    @Test
+    public void open_circuit_breaker_fails_fast_without_retrying() throws Exception {
+        for (int i = 0; i < DEFAULT_NUM_RETRIES; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody(getResponseJson("error")));
+        }
+        final CerberusResilience resilience = CerberusResilience.builder()
+                .circuitBreaker(CircuitBreakerConfig.custom().slidingWindowSize(2).minimumNumberOfCalls(2).build())
+                .build();
+        cerberusClient.setResilience(resilience);
+
+        try {
+            cerberusClient.read("app/api-key");
+            throw new AssertionError("Expected CerberusCallNotPermittedException, but was not thrown");
+        } catch (CerberusCallNotPermittedException e) {
+            assertThat(e.getOperationType()).isEqualTo(CerberusOperationType.READ);
+        }
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+        assertThat(resilience.getCircuitBreaker(CerberusOperationType.READ).getState())
+                .isEqualTo(CircuitBreaker.State.OPEN);
+
+        try {
+            cerberusClient.readAsync("app/api-key").get(5, TimeUnit.SECONDS);
+            throw new AssertionError("Expected CerberusCallNotPermittedException, but was not thrown");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(CerberusCallNotPermittedException.class);
+        }
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+
+        // other operation types have their own circuit breaker
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+        cerberusClient.delete("app/api-key");
+    }
+
+    @Test
+    public void full_bulkhead_fails_fast() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"))
+                .setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        cerberusClient.setResilience(CerberusResilience.builder()
+                .bulkhead(CerberusOperationType.READ, BulkheadConfig.custom().maxConcurrentCalls(1).build())
+                .build());
+
+        final CompletableFuture<CerberusResponse> slowRead = cerberusClient.readAsync("app/api-key");
+        // the asynchronous read takes its permit once the HTTP client starts it
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cerberusClient.getResilience().getBulkhead(CerberusOperationType.READ).getMetrics()
+                .getAvailableConcurrentCalls() > 0) {
+            assertThat(System.nanoTime() - deadline).isNegative();
+            Thread.sleep(10);
+        }
+        try {
+            cerberusClient.read("app/other-key");
+            throw new AssertionError("Expected CerberusCallNotPermittedException, but was not thrown");
+        } catch (CerberusCallNotPermittedException e) {
+            assertThat(e.getCause()).isInstanceOf(BulkheadFullException.class);
+        }
+
+        assertThat(slowRead.get(5, TimeUnit.SECONDS).getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void queued_async_calls_do_not_hold_bulkhead_permits() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"))
+                .setHeadersDelay(200, TimeUnit.MILLISECONDS));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        final CerberusCredentialsProvider cerberusCredentialsProvider = mock(CerberusCredentialsProvider.class);
+        when(cerberusCredentialsProvider.getCredentials()).thenReturn(new TestCerberusCredentials());
+        final CerberusClient cerberusClient = CerberusClientFactory.getClient(cerberusUrl, cerberusCredentialsProvider, 1);
+        cerberusClient.setResilience(CerberusResilience.builder()
+                .bulkhead(CerberusOperationType.READ, BulkheadConfig.custom().maxConcurrentCalls(1).build())
+                .build());
+
+        try {
+            final CompletableFuture<CerberusResponse> first = cerberusClient.readAsync("app/api-key");
+            final CompletableFuture<CerberusResponse> second = cerberusClient.readAsync("app/other-key");
+
+            assertThat(first.get(5, TimeUnit.SECONDS).getData().get("value")).isEqualToIgnoringCase("world");
+            assertThat(second.get(5, TimeUnit.SECONDS).getData().get("value")).isEqualToIgnoringCase("world");
+        } finally {
+            cerberusClient.close();
+        }
+    }
+
     @Test
     public void read_retries_on_500_errors() {
         for (int i = 0; i < DEFAULT_NUM_RETRIES - 1; i++) {
@@ -169,6 +403,47 @@ public class CerberusClientTest {
         assertThat(cerberusResponse.getData().get("value")).isEqualToIgnoringCase("world");
     }
 
+    @Test
+    public void each_operation_type_has_its_own_retry_budget() {
+        for (int i = 0; i < DEFAULT_NUM_RETRIES; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody(getResponseJson("error")));
+        }
+        cerberusClient.setRetryPolicy(CerberusRetryPolicy.builder().baseDelay(Duration.ofMillis(1)).build());
+
+        try {
+            cerberusClient.read("app/api-key");
+            throw new AssertionError("Expected CerberusServerApiException, but was not thrown");
+        } catch (CerberusServerApiException e) {
+            assertThat(e.getCode()).isEqualTo(500);
+        }
+
+        assertThat(cerberusClient.getRetryPolicy(CerberusOperationType.READ).getRetryBudgetTokens())
+                .isEqualTo(CerberusRetryPolicy.DEFAULT_BUDGET_MAX_TOKENS - DEFAULT_NUM_RETRIES);
+        assertThat(cerberusClient.getRetryPolicy(CerberusOperationType.WRITE).getRetryBudgetTokens())
+                .isEqualTo(CerberusRetryPolicy.DEFAULT_BUDGET_MAX_TOKENS);
+    }
+
+    @Test
+    public void retry_policy_can_be_set_per_operation_type() {
+        cerberusClient.setRetryPolicy(CerberusOperationType.READ, CerberusRetryPolicy.builder().maxAttempts(1).build());
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody(getResponseJson("error")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody(getResponseJson("error")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("list")));
+
+        try {
+            cerberusClient.read("app/api-key");
+            throw new AssertionError("Expected CerberusServerApiException, but was not thrown");
+        } catch (CerberusServerApiException e) {
+            assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+        }
+
+        cerberusClient.list("app/demo");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+        assertThat(cerberusClient.getRetryPolicy(CerberusOperationType.READ).getMaxAttempts()).isEqualTo(1);
+        assertThat(cerberusClient.getRetryPolicy(CerberusOperationType.LIST).getMaxAttempts())
+                .isEqualTo(DEFAULT_NUM_RETRIES);
+    }
+
     @Test
     public void read_retries_on_IOException() throws IOException {
 
@@ -212,6 +487,18 @@ public class CerberusClientTest {
         }
     }
 
+    @Test
+    public void read_throws_cerberus_client_exception_if_response_body_is_malformed() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("{\"data\": {\"value\": "));
+
+        try {
+            cerberusClient.read("app/api-key");
+            throw new AssertionError("Expected CerberusClientException, but was not thrown");
+        } catch (CerberusClientException cce) {
+            assertThat(cce.getMessage()).contains("Error parsing the response body from Cerberus, response code: 200");
+        }
+    }
+
     @Test(expected = CerberusClientException.class)
     public void read_throws_runtime_exception_if_unexpected_error_encountered() throws IOException {
         final ServerSocket serverSocket = new ServerSocket(0);
@@ -225,6 +512,51 @@ public class CerberusClientTest {
         cerberusClient.read("app/api-key");
     }
 
+    @Test
+    public void configured_json_codec_encodes_requests_and_decodes_responses_and_errors() throws Exception {
+        final List<Type> decodedTypes = new ArrayList<>();
+        final List<Object> encodedValues = new ArrayList<>();
+        final GsonCerberusJsonCodec gsonCodec = new GsonCerberusJsonCodec();
+        final CerberusJsonCodec recordingCodec = new CerberusJsonCodec() {
+            @Override
+            public <T> T fromJson(Reader reader, Type type) throws IOException {
+                decodedTypes.add(type);
+                return gsonCodec.fromJson(reader, type);
+            }
+
+            @Override
+            public String toJson(Object value) {
+                encodedValues.add(value);
+                return gsonCodec.toJson(value);
+            }
+        };
+        final CerberusCredentialsProvider cerberusCredentialsProvider = mock(CerberusCredentialsProvider.class);
+        when(cerberusCredentialsProvider.getCredentials()).thenReturn(new TestCerberusCredentials());
+        final CerberusClient cerberusClient = CerberusClientFactory.clientBuilder(cerberusUrl,
+                cerberusCredentialsProvider)
+                .jsonCodec(recordingCodec)
+                .build();
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404).setBody(getResponseJson("error")));
+
+        final Map<String, String> data = Collections.singletonMap("key", "value");
+        cerberusClient.write("app/api-key", data);
+        final CerberusResponse cerberusResponse = cerberusClient.read("app/api-key");
+        try {
+            cerberusClient.read("app/not-found-path");
+            throw new AssertionError("Expected CerberusServerApiException, but was not thrown");
+        } catch (CerberusServerApiException se) {
+            assertThat(se.getErrorId()).isEqualTo("error id");
+        }
+
+        assertThat(cerberusClient.getJsonCodec()).isSameAs(recordingCodec);
+        assertThat(encodedValues).containsExactly(data);
+        assertThat(mockWebServer.takeRequest().getBody().readUtf8()).isEqualTo("{\"key\":\"value\"}");
+        assertThat(cerberusResponse.getData()).containsEntry("value", "world");
+        assertThat(decodedTypes).containsExactly(CerberusResponse.class, CerberusClient.ApiErrorResponse.class);
+    }
+
     @Test
     public void write_returns_gives_no_error_if_write_204_returned() {
         final MockResponse response = new MockResponse();
@@ -305,6 +637,509 @@ public class CerberusClientTest {
         cerberusClient.delete("app/api-key");
     }
 
+    @Test
+    public void warmUp_opens_connections_in_parallel_and_fetches_token() throws Exception {
+        final int connections = 3;
+        for (int i = 0; i < connections; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(200).setHeadersDelay(200, TimeUnit.MILLISECONDS));
+        }
+        final CerberusCredentialsProvider cerberusCredentialsProvider = mock(CerberusCredentialsProvider.class);
+        when(cerberusCredentialsProvider.getCredentials()).thenReturn(new TestCerberusCredentials());
+        final CerberusClient cerberusClient = CerberusClientFactory.getClient(cerberusUrl, cerberusCredentialsProvider);
+
+        try {
+            cerberusClient.warmUp(connections).get(5, TimeUnit.SECONDS);
+
+            verify(cerberusCredentialsProvider).getCredentials();
+            assertThat(mockWebServer.getRequestCount()).isEqualTo(connections);
+            for (int i = 0; i < connections; i++) {
+                final RecordedRequest request = mockWebServer.takeRequest();
+                assertThat(request.getPath()).isEqualTo("/" + CerberusClient.HEALTHCHECK_PATH);
+                assertThat(request.getHeader(HttpHeader.CERBERUS_TOKEN)).isNull();
+                // the first request on each connection
+                assertThat(request.getSequenceNumber()).isEqualTo(0);
+            }
+        } finally {
+            cerberusClient.close();
+        }
+    }
+
+    @Test
+    public void warmUp_does_not_count_toward_circuit_breakers() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        final CerberusResilience resilience = CerberusResilience.builder()
+                .circuitBreaker(CircuitBreakerConfig.custom().slidingWindowSize(2).minimumNumberOfCalls(2).build())
+                .build();
+        cerberusClient.setResilience(resilience);
+
+        cerberusClient.warmUp(2).get(5, TimeUnit.SECONDS);
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+        final CircuitBreaker circuitBreaker = resilience.getCircuitBreaker(CerberusOperationType.READ);
+        assertThat(circuitBreaker.getMetrics().getNumberOfBufferedCalls()).isEqualTo(0);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void warmUp_fails_if_token_cannot_be_fetched() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200));
+        final CerberusCredentialsProvider cerberusCredentialsProvider = mock(CerberusCredentialsProvider.class);
+        when(cerberusCredentialsProvider.getCredentials()).thenThrow(new CerberusClientException("STS is down"));
+        final CerberusClient cerberusClient = CerberusClientFactory.getClient(cerberusUrl, cerberusCredentialsProvider);
+
+        try {
+            cerberusClient.warmUp(1).get(5, TimeUnit.SECONDS);
+            throw new AssertionError("Expected CerberusClientException, but was not thrown");
+        } catch (ExecutionException ee) {
+            assertThat(ee.getCause()).isInstanceOf(CerberusClientException.class);
+        } finally {
+            cerberusClient.close();
+        }
+    }
+
+    @Test
+    public void readAsync_returns_map_of_data_for_specified_path_if_exists() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+
+        CerberusResponse cerberusResponse = cerberusClient.readAsync("app/api-key").get(5, TimeUnit.SECONDS);
+
+        assertThat(cerberusResponse.getData().get("value")).isEqualToIgnoringCase("world");
+    }
+
+    @Test
+    public void readAsync_retries_on_500_errors() throws Exception {
+        for (int i = 0; i < DEFAULT_NUM_RETRIES - 1; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody(getResponseJson("error")));
+        }
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+
+        CerberusResponse cerberusResponse = cerberusClient.readAsync("app/api-key").get(5, TimeUnit.SECONDS);
+
+        assertThat(cerberusResponse.getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(DEFAULT_NUM_RETRIES);
+    }
+
+    @Test
+    public void read_retries_429_after_retry_after_and_pauses_the_rate_limiter() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        final CerberusRateLimiter rateLimiter = new CerberusRateLimiter(100);
+        cerberusClient.setRateLimiter(rateLimiter);
+
+        final long startNanos = System.nanoTime();
+        CerberusResponse cerberusResponse = cerberusClient.read("app/api-key");
+
+        assertThat(cerberusResponse.getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+        assertThat(System.nanoTime() - startNanos).isGreaterThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void readAsync_retries_503_after_retry_after() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "1"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        cerberusClient.setRateLimiter(new CerberusRateLimiter(100));
+
+        final long startNanos = System.nanoTime();
+        CerberusResponse cerberusResponse = cerberusClient.readAsync("app/api-key").get(5, TimeUnit.SECONDS);
+
+        assertThat(cerberusResponse.getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(System.nanoTime() - startNanos).isGreaterThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void request_that_would_wait_longer_than_the_rate_limiter_allows_fails_fast() {
+        for (int i = 0; i < 2; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(getResponseJson("secret")));
+        }
+        cerberusClient.setRateLimiter(new CerberusRateLimiter(0.001, 1, Duration.ZERO));
+        cerberusClient.read("app/api-key");
+        cerberusClient.read("app/api-key");
+
+        try {
+            cerberusClient.read("app/api-key");
+            throw new AssertionError("Expected CerberusRateLimitedException, but was not thrown");
+        } catch (CerberusRateLimitedException e) {
+            assertThat(e.getOperationType()).isEqualTo(CerberusOperationType.READ);
+            assertThat(e.getMaxWait()).isEqualTo(Duration.ZERO);
+            assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void readAsync_retries_on_IOException() throws Exception {
+        OkHttpClient httpClient = mock(OkHttpClient.class);
+        Call call = mock(Call.class);
+        doAnswer(invocation -> {
+            ((Callback) invocation.getArguments()[0]).onFailure(call, new IOException());
+            return null;
+        }).when(call).enqueue(any(Callback.class));
+        when(httpClient.newCall(any(Request.class))).thenReturn(call);
+        final CerberusCredentialsProvider cerberusCredentialsProvider = mock(CerberusCredentialsProvider.class);
+        when(cerberusCredentialsProvider.getCredentials()).thenReturn(new TestCerberusCredentials());
+
+        CerberusClient cerberusClient = new CerberusClient(cerberusUrl, cerberusCredentialsProvider, httpClient);
+        try {
+            cerberusClient.readAsync("app/api-key").get(5, TimeUnit.SECONDS);
+            throw new AssertionError("Expected CerberusClientException, but was not thrown");
+        } catch (ExecutionException ee) {
+            assertThat(ee.getCause()).isInstanceOf(CerberusClientException.class);
+            assertThat(ee.getCause().getCause()).isInstanceOf(IOException.class);
+        }
+
+        verify(httpClient, times(DEFAULT_NUM_RETRIES)).newCall(any(Request.class));
+    }
+
+    @Test
+    public void readAsync_completes_with_cerberus_server_exception_if_response_is_not_ok() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404).setBody(getResponseJson("error")));
+
+        try {
+            cerberusClient.readAsync("app/not-found-path").get(5, TimeUnit.SECONDS);
+            throw new AssertionError("Expected CerberusServerApiException, but was not thrown");
+        } catch (ExecutionException ee) {
+            assertThat(ee.getCause()).isInstanceOf(CerberusServerApiException.class);
+            CerberusServerApiException se = (CerberusServerApiException) ee.getCause();
+            assertThat(se.getCode()).isEqualTo(404);
+            assertThat(se.getErrors()).hasSize(1);
+        }
+    }
+
+    @Test
+    public void listAsync_returns_an_empty_response_if_cerberus_returns_a_404() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404));
+
+        CerberusListResponse cerberusListResponse = cerberusClient.listAsync("app/demo").get(5, TimeUnit.SECONDS);
+
+        assertThat(cerberusListResponse.getKeys()).isEmpty();
+    }
+
+    @Test
+    public void writeAsync_completes_if_204_returned() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+        Map<String, String> data = new HashMap<>();
+        data.put("key", "value");
+        cerberusClient.writeAsync("app/api-key", data).get(5, TimeUnit.SECONDS);
+
+        assertThat(mockWebServer.takeRequest().getMethod()).isEqualTo("POST");
+    }
+
+    @Test
+    public void deleteAsync_completes_if_204_returned() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+        cerberusClient.deleteAsync("app/api-key").get(5, TimeUnit.SECONDS);
+
+        assertThat(mockWebServer.takeRequest().getMethod()).isEqualTo("DELETE");
+    }
+
+    @Test
+    public void readAll_returns_responses_and_failures_for_each_path() {
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().endsWith("missing")) {
+                    return new MockResponse().setResponseCode(404).setBody(getResponseJson("error"));
+                }
+                return new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"));
+            }
+        });
+
+        CerberusBulkReadResponse bulkResponse =
+                cerberusClient.readAll(Arrays.asList("app/a", "app/missing", "app/b", "app/a"));
+
+        assertThat(bulkResponse.getResponses().keySet()).containsExactly("app/a", "app/b");
+        assertThat(bulkResponse.getResponses().get("app/b").getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(bulkResponse.hasFailures()).isTrue();
+        assertThat(bulkResponse.getFailures().get("app/missing")).isInstanceOf(CerberusServerApiException.class);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readAll_throws_error_if_a_path_is_null() {
+        cerberusClient.readAll(Arrays.asList("app/a", null));
+    }
+
+    @Test
+    public void readAll_does_not_exceed_max_requests_per_host() {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Thread.sleep(50);
+                inFlight.decrementAndGet();
+                return new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"));
+            }
+        });
+        final CerberusCredentialsProvider cerberusCredentialsProvider = mock(CerberusCredentialsProvider.class);
+        when(cerberusCredentialsProvider.getCredentials()).thenReturn(new TestCerberusCredentials());
+        CerberusClient cerberusClient = CerberusClientFactory.getClient(cerberusUrl, cerberusCredentialsProvider, 2);
+
+        final List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            paths.add("app/secret-" + i);
+        }
+        CerberusBulkReadResponse bulkResponse = cerberusClient.readAll(paths, 8);
+
+        assertThat(bulkResponse.getResponses()).hasSize(10);
+        assertThat(bulkResponse.hasFailures()).isFalse();
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void readAll_stays_within_the_read_bulkhead() {
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                Thread.sleep(50);
+                return new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"));
+            }
+        });
+        cerberusClient.setResilience(CerberusResilience.builder()
+                .bulkhead(CerberusOperationType.READ, BulkheadConfig.custom().maxConcurrentCalls(2).build())
+                .build());
+
+        final List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            paths.add("app/secret-" + i);
+        }
+        CerberusBulkReadResponse bulkResponse = cerberusClient.readAll(paths, 8);
+
+        assertThat(bulkResponse.getResponses()).hasSize(10);
+        assertThat(bulkResponse.hasFailures()).isFalse();
+    }
+
+    @Test
+    public void walk_streams_every_secret_path_under_root() {
+        mockWebServer.setDispatcher(new TreeDispatcher());
+
+        List<String> paths;
+        try (Stream<String> stream = cerberusClient.walk("app")) {
+            paths = stream.collect(Collectors.toList());
+        }
+
+        assertThat(paths).containsOnly("app/a", "app/dir/b", "app/dir/sub/c");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void readTree_streams_data_for_every_secret_under_root() {
+        mockWebServer.setDispatcher(new TreeDispatcher());
+
+        Map<String, CerberusResponse> tree;
+        try (Stream<Map.Entry<String, CerberusResponse>> stream = cerberusClient.readTree("app/", 2)) {
+            tree = stream.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+
+        assertThat(tree.keySet()).containsOnly("app/a", "app/dir/b", "app/dir/sub/c");
+        assertThat(tree.get("app/dir/sub/c").getData().get("value")).isEqualToIgnoringCase("world");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(6);
+    }
+
+    @Test
+    public void walk_throws_cerberus_server_exception_if_a_listing_fails() {
+        mockWebServer.setDispatcher(new TreeDispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().contains("/dir/sub/")) {
+                    return new MockResponse().setResponseCode(403).setBody(getResponseJson("error"));
+                }
+                return super.dispatch(request);
+            }
+        });
+
+        try (Stream<String> stream = cerberusClient.walk("app")) {
+            stream.collect(Collectors.toList());
+            throw new AssertionError("Expected CerberusServerApiException, but was not thrown");
+        } catch (CerberusServerApiException se) {
+            assertThat(se.getCode()).isEqualTo(403);
+        }
+    }
+
+    @Test
+    public void streamFiles_pages_through_every_secure_file() {
+        mockWebServer.setDispatcher(new SecureFilePagesDispatcher(7));
+
+        List<String> names = cerberusClient.streamFiles("app/", 3)
+                .map(SecureFileSummary::getName)
+                .collect(Collectors.toList());
+
+        assertThat(names).containsExactly("file-0", "file-1", "file-2", "file-3", "file-4", "file-5", "file-6");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void iterateFiles_requests_next_page_before_current_page_is_consumed() throws Exception {
+        mockWebServer.setDispatcher(new SecureFilePagesDispatcher(4));
+
+        Iterator<SecureFileSummary> iterator = cerberusClient.iterateFiles("app/", 2).iterator();
+        assertThat(iterator.next().getName()).isEqualTo("file-0");
+
+        assertThat(mockWebServer.takeRequest(5, TimeUnit.SECONDS).getPath()).contains("offset=0");
+        assertThat(mockWebServer.takeRequest(5, TimeUnit.SECONDS).getPath()).contains("offset=2");
+    }
+
+    @Test
+    public void listAllFiles_requests_remaining_pages_concurrently_and_merges_in_order() {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        mockWebServer.setDispatcher(new SecureFilePagesDispatcher(10) {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return super.dispatch(request);
+            }
+        });
+
+        CerberusListFilesResponse response = cerberusClient.listAllFiles("app/", 2, 4);
+
+        assertThat(response.isHasNext()).isFalse();
+        assertThat(response.getTotalFileCount()).isEqualTo(10);
+        assertThat(response.getFileCountInResult()).isEqualTo(10);
+        assertThat(response.getSecureFileSummaries()).extracting("name").containsExactly(
+                "file-0", "file-1", "file-2", "file-3", "file-4", "file-5", "file-6", "file-7", "file-8", "file-9");
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(5);
+        assertThat(maxInFlight.get()).isGreaterThan(1);
+    }
+
+    @Test
+    public void listAllFiles_throws_cerberus_server_exception_if_a_page_fails() {
+        mockWebServer.setDispatcher(new SecureFilePagesDispatcher(6) {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().contains("offset=4")) {
+                    return new MockResponse().setResponseCode(403).setBody(getResponseJson("error"));
+                }
+                return super.dispatch(request);
+            }
+        });
+
+        try {
+            cerberusClient.listAllFiles("app/", 2, 4);
+            throw new AssertionError("Expected CerberusServerApiException, but was not thrown");
+        } catch (CerberusServerApiException se) {
+            assertThat(se.getCode()).isEqualTo(403);
+        }
+    }
+
+    @Test
+    public void readFile_streams_contents_to_output_stream() {
+        final byte[] contents = randomBytes(100_000);
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(new Buffer().write(contents)));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        long written = cerberusClient.readFile("app/keystore.jks", outputStream);
+
+        assertThat(written).isEqualTo(contents.length);
+        assertThat(outputStream.toByteArray()).isEqualTo(contents);
+    }
+
+    @Test
+    public void readFileTo_writes_contents_to_path() throws IOException {
+        final byte[] contents = randomBytes(100_000);
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(new Buffer().write(contents)));
+        final Path target = temporaryFolder.getRoot().toPath().resolve("keystore.jks");
+        Files.write(target, new byte[]{1, 2, 3});
+
+        long written = cerberusClient.readFileTo("app/keystore.jks", target);
+
+        assertThat(written).isEqualTo(contents.length);
+        assertThat(Files.readAllBytes(target)).isEqualTo(contents);
+        assertThat(temporaryFolder.getRoot().list()).containsOnly("keystore.jks");
+    }
+
+    @Test
+    public void readFileTo_leaves_target_untouched_if_response_is_not_ok() throws IOException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404).setBody(getResponseJson("error")));
+        final Path target = temporaryFolder.getRoot().toPath().resolve("keystore.jks");
+        Files.write(target, new byte[]{1, 2, 3});
+
+        try {
+            cerberusClient.readFileTo("app/keystore.jks", target);
+            throw new AssertionError("Expected CerberusServerApiException, but was not thrown");
+        } catch (CerberusServerApiException se) {
+            assertThat(se.getCode()).isEqualTo(404);
+        }
+
+        assertThat(Files.readAllBytes(target)).isEqualTo(new byte[]{1, 2, 3});
+        assertThat(temporaryFolder.getRoot().list()).containsOnly("keystore.jks");
+    }
+
+    @Test
+    public void readFileAsStream_returns_stream_of_contents() throws IOException {
+        final byte[] contents = randomBytes(10_000);
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(new Buffer().write(contents)));
+
+        try (InputStream inputStream = cerberusClient.readFileAsStream("app/keystore.jks")) {
+            assertThat(IOUtils.toByteArray(inputStream)).isEqualTo(contents);
+        }
+    }
+
+    @Test
+    public void writeFile_retries_on_500_errors() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody(getResponseJson("error")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+        cerberusClient.writeFile("app/file.txt", "contents".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void writeFile_streams_contents_of_path_and_replays_on_retry() throws Exception {
+        final Path file = temporaryFolder.newFile("file.txt").toPath();
+        Files.write(file, "contents of a local file".getBytes(StandardCharsets.UTF_8));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody(getResponseJson("error")));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+        cerberusClient.writeFile("app/file.txt", file);
+
+        assertThat(mockWebServer.takeRequest().getBody().readUtf8()).contains("contents of a local file");
+        assertThat(mockWebServer.takeRequest().getBody().readUtf8()).contains("contents of a local file");
+    }
+
+    @Test
+    public void writeFile_streams_remaining_contents_of_channel() throws Exception {
+        final Path file = temporaryFolder.newFile("file.txt").toPath();
+        Files.write(file, "skipped|uploaded".getBytes(StandardCharsets.UTF_8));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(8);
+            cerberusClient.writeFile("app/file.txt", channel);
+            assertThat(channel.position()).isEqualTo(8);
+        }
+
+        String body = mockWebServer.takeRequest().getBody().readUtf8();
+        assertThat(body).contains("uploaded").doesNotContain("skipped");
+    }
+
+    @Test
+    public void writeFile_streams_input_stream_and_does_not_retry() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody(getResponseJson("error")));
+        final byte[] contents = "streamed contents".getBytes(StandardCharsets.UTF_8);
+
+        try {
+            cerberusClient.writeFile("app/file.txt", new ByteArrayInputStream(contents), contents.length);
+            throw new AssertionError("Expected CerberusServerApiException, but was not thrown");
+        } catch (CerberusServerApiException se) {
+            assertThat(se.getCode()).isEqualTo(500);
+        }
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+        assertThat(mockWebServer.takeRequest().getBody().readUtf8()).contains("streamed contents");
+    }
+
     @Test
     public void build_request_includes_default_headers() {
         final String headerKey = "headerKey";
@@ -339,6 +1174,67 @@ public class CerberusClientTest {
         assertTrue(urlWithLimitAndOffset.toString().endsWith(String.format("%s%s?limit=%s&offset=%s", prefix, path, limit, offset)));
     }
 
+    /**
+     * Serves the tree app/{a, dir/{b, sub/{c}}}
+     */
+    private class TreeDispatcher extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            final String path = request.getPath();
+            if (path.equals("/v1/secret/app/?list=true")) {
+                return listResponse("a", "dir/");
+            } else if (path.equals("/v1/secret/app/dir/?list=true")) {
+                return listResponse("b", "sub/");
+            } else if (path.equals("/v1/secret/app/dir/sub/?list=true")) {
+                return listResponse("c");
+            }
+            return new MockResponse().setResponseCode(200).setBody(getResponseJson("secret"));
+        }
+
+        private MockResponse listResponse(String... keys) {
+            return new MockResponse().setResponseCode(200)
+                    .setBody("{\"data\":{\"keys\":[\"" + String.join("\",\"", keys) + "\"]}}");
+        }
+    }
+
+    /**
+     * Serves a listing of the given number of secure files, paged by the limit and offset query parameters
+     */
+    private static class SecureFilePagesDispatcher extends Dispatcher {
+
+        private final int totalFileCount;
+
+        private SecureFilePagesDispatcher(int totalFileCount) {
+            this.totalFileCount = totalFileCount;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            final HttpUrl url = request.getRequestUrl();
+            final int limit = Integer.parseInt(url.queryParameter("limit"));
+            final int offset = Integer.parseInt(url.queryParameter("offset"));
+            final int end = Math.min(offset + limit, totalFileCount);
+            final StringBuilder summaries = new StringBuilder();
+            for (int i = offset; i < end; i++) {
+                summaries.append(i > offset ? "," : "").append("{\"name\":\"file-").append(i).append("\"}");
+            }
+            return new MockResponse().setResponseCode(200).setBody("{"
+                    + "\"has_next\":" + (end < totalFileCount) + ","
+                    + "\"next_offset\":" + (end < totalFileCount ? end : null) + ","
+                    + "\"limit\":" + limit + ","
+                    + "\"offset\":" + offset + ","
+                    + "\"file_count_in_result\":" + (end - offset) + ","
+                    + "\"total_file_count\":" + totalFileCount + ","
+                    + "\"secure_file_summaries\":[" + summaries + "]}");
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
     private OkHttpClient buildHttpClient(int timeout, TimeUnit timeoutUnit) {
         return new OkHttpClient.Builder()
                 .connectTimeout(timeout, timeoutUnit)
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the CerberusRateLimiter class
+ */
+public class CerberusRateLimiterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    public void burst_is_sent_at_once_and_later_requests_are_paced_at_the_rate() {
+        final CerberusRateLimiter rateLimiter = rateLimiter(10, 3);
+
+        assertThat(rateLimiter.reserveNanos()).isEqualTo(0);
+        assertThat(rateLimiter.reserveNanos()).isEqualTo(0);
+        assertThat(rateLimiter.reserveNanos()).isEqualTo(0);
+        // the bucket is empty, so this request takes the permit that is being refilled
+        assertThat(rateLimiter.reserveNanos()).isEqualTo(0);
+        assertThat(millis(rateLimiter.reserveNanos())).isEqualTo(100);
+        assertThat(millis(rateLimiter.reserveNanos())).isEqualTo(200);
+        assertThat(rateLimiter.getDelayedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    public void idle_time_refills_the_bucket_up_to_the_burst() {
+        final CerberusRateLimiter rateLimiter = rateLimiter(10, 2);
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.reserveNanos();
+        }
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertThat(rateLimiter.reserveNanos()).isEqualTo(0);
+        assertThat(rateLimiter.reserveNanos()).isEqualTo(0);
+        assertThat(rateLimiter.reserveNanos()).isEqualTo(0);
+        assertThat(millis(rateLimiter.reserveNanos())).isEqualTo(100);
+    }
+
+    @Test
+    public void tryAcquire_takes_only_permits_that_are_free_right_away() {
+        final CerberusRateLimiter rateLimiter = rateLimiter(10, 2);
+
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isFalse();
+
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+
+        rateLimiter.pause(Duration.ofSeconds(1));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(rateLimiter.tryAcquire()).isFalse();
+        assertThat(rateLimiter.getDelayedRequests()).isEqualTo(0);
+    }
+
+    @Test
+    public void pause_holds_requests_and_empties_the_bucket() {
+        final CerberusRateLimiter rateLimiter = rateLimiter(10, 5);
+
+        rateLimiter.pause(Duration.ofSeconds(2));
+
+        assertThat(millis(rateLimiter.reserveNanos())).isEqualTo(2000);
+        assertThat(millis(rateLimiter.reserveNanos())).isEqualTo(2100);
+
+        // a shorter pause does not shorten the one in progress
+        rateLimiter.pause(Duration.ofSeconds(1));
+        assertThat(millis(rateLimiter.reserveNanos())).isEqualTo(2200);
+    }
+
+    @Test
+    public void requests_that_would_wait_longer_than_the_max_wait_take_no_permit() {
+        final CerberusRateLimiter rateLimiter = rateLimiter(10, 1);
+        rateLimiter.pause(Duration.ofSeconds(30));
+
+        assertThat(rateLimiter.reserveNanos()).isEqualTo(-1);
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(25));
+        assertThat(millis(rateLimiter.reserveNanos())).isEqualTo(5000);
+        assertThat(millis(rateLimiter.reserveNanos())).isEqualTo(5100);
+    }
+
+    @Test
+    public void default_burst_is_one_second_of_requests() {
+        assertThat(new CerberusRateLimiter(7.5).getBurst()).isEqualTo(8);
+        assertThat(new CerberusRateLimiter(0.1).getBurst()).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_rate_is_not_positive() {
+        new CerberusRateLimiter(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_burst_is_not_positive() {
+        new CerberusRateLimiter(10, 0, CerberusRateLimiter.DEFAULT_MAX_WAIT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pause_throws_error_if_duration_is_negative() {
+        new CerberusRateLimiter(10).pause(Duration.ofSeconds(-1));
+    }
+
+    private CerberusRateLimiter rateLimiter(final double permitsPerSecond, final int burst) {
+        return new CerberusRateLimiter(permitsPerSecond, burst, Duration.ofSeconds(10), nanoTime::get);
+    }
+
+    private static long millis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
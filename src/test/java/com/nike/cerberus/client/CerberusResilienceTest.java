@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.event.CircuitBreakerOnStateTransitionEvent;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the CerberusResilience class
+ */
+public class CerberusResilienceTest {
+
+    private static final Request READ_REQUEST = new Request.Builder()
+            .url("https://cerberus.example.com/v1/secret/app/sdb/key")
+            .build();
+
+    @Test
+    public void server_errors_and_io_errors_open_the_circuit_breaker_of_the_operation_type() {
+        final CerberusResilience resilience = CerberusResilience.builder()
+                .circuitBreaker(CircuitBreakerConfig.custom().slidingWindowSize(3).minimumNumberOfCalls(3).build())
+                .build();
+        final List<CircuitBreakerOnStateTransitionEvent> events = new ArrayList<>();
+        resilience.onStateTransition(events::add);
+
+        resilience.acquirePermit(CerberusOperationType.READ).onResponse(response(200));
+        resilience.acquirePermit(CerberusOperationType.READ).onResponse(response(503));
+        resilience.acquirePermit(CerberusOperationType.READ).onFailure(new IOException("connection reset"));
+
+        assertThat(resilience.getCircuitBreaker(CerberusOperationType.READ).getState())
+                .isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(resilience.getCircuitBreaker(CerberusOperationType.WRITE).getState())
+                .isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getCircuitBreakerName()).isEqualTo("cerberus-read");
+        assertThat(events.get(0).getStateTransition()).isEqualTo(CircuitBreaker.StateTransition.CLOSED_TO_OPEN);
+
+        try {
+            resilience.acquirePermit(CerberusOperationType.READ);
+            throw new AssertionError("Expected CerberusCallNotPermittedException, but was not thrown");
+        } catch (CerberusCallNotPermittedException e) {
+            assertThat(e.getOperationType()).isEqualTo(CerberusOperationType.READ);
+        }
+        // the bulkhead permit is given back when the circuit breaker rejects the call
+        assertThat(resilience.getBulkhead(CerberusOperationType.READ).getMetrics().getAvailableConcurrentCalls())
+                .isEqualTo(CerberusResilience.DEFAULT_BULKHEAD_CONFIG.getMaxConcurrentCalls());
+    }
+
+    @Test
+    public void client_errors_are_successes() {
+        final CerberusResilience resilience = CerberusResilience.ofDefaults();
+
+        resilience.acquirePermit(CerberusOperationType.READ).onResponse(response(404));
+
+        assertThat(resilience.getCircuitBreaker(CerberusOperationType.READ).getMetrics().getNumberOfSuccessfulCalls())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void bulkhead_limits_concurrent_calls_and_permits_complete_once() {
+        final CerberusResilience resilience = CerberusResilience.builder()
+                .bulkhead(CerberusOperationType.WRITE, BulkheadConfig.custom().maxConcurrentCalls(1).build())
+                .build();
+
+        final CerberusResilience.Permit permit = resilience.acquirePermit(CerberusOperationType.WRITE);
+        try {
+            resilience.acquirePermit(CerberusOperationType.WRITE);
+            throw new AssertionError("Expected CerberusCallNotPermittedException, but was not thrown");
+        } catch (CerberusCallNotPermittedException e) {
+            assertThat(e.getOperationType()).isEqualTo(CerberusOperationType.WRITE);
+        }
+
+        permit.release();
+        permit.onFailure(new IOException("canceled"));
+        assertThat(resilience.getCircuitBreaker(CerberusOperationType.WRITE).getMetrics().getNumberOfFailedCalls())
+                .isEqualTo(0);
+        resilience.acquirePermit(CerberusOperationType.WRITE).release();
+    }
+
+    @Test
+    public void acquiring_without_waiting_fails_at_once_when_the_bulkhead_is_full() {
+        final CerberusResilience resilience = CerberusResilience.builder()
+                .bulkhead(CerberusOperationType.READ, BulkheadConfig.custom()
+                        .maxConcurrentCalls(1)
+                        .maxWaitDuration(Duration.ofSeconds(10))
+                        .build())
+                .build();
+
+        final CerberusResilience.Permit permit = resilience.acquirePermitWithoutWaiting(CerberusOperationType.READ);
+        final long startNanos = System.nanoTime();
+        try {
+            resilience.acquirePermitWithoutWaiting(CerberusOperationType.READ);
+            throw new AssertionError("Expected CerberusCallNotPermittedException, but was not thrown");
+        } catch (CerberusCallNotPermittedException e) {
+            assertThat(e.getOperationType()).isEqualTo(CerberusOperationType.READ);
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - startNanos)).isLessThan(Duration.ofSeconds(1));
+
+        permit.release();
+        resilience.acquirePermitWithoutWaiting(CerberusOperationType.READ).release();
+    }
+
+    @Test
+    public void operation_type_is_derived_from_method_and_url() {
+        assertThat(CerberusOperationType.of(READ_REQUEST)).isEqualTo(CerberusOperationType.READ);
+        assertThat(CerberusOperationType.of(new Request.Builder()
+                .url("https://cerberus.example.com/v1/secret/app/sdb/?list=true").build()))
+                .isEqualTo(CerberusOperationType.LIST);
+        assertThat(CerberusOperationType.of(new Request.Builder()
+                .url("https://cerberus.example.com/v1/secure-files/app/sdb/").build()))
+                .isEqualTo(CerberusOperationType.LIST);
+        assertThat(CerberusOperationType.of(READ_REQUEST.newBuilder().delete().build()))
+                .isEqualTo(CerberusOperationType.DELETE);
+        assertThat(CerberusOperationType.of(READ_REQUEST.newBuilder()
+                .post(RequestBody.create(null, "{}")).build()))
+                .isEqualTo(CerberusOperationType.WRITE);
+    }
+
+    private static Response response(final int code) {
+        return new Response.Builder()
+                .request(READ_REQUEST)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .build();
+    }
+}
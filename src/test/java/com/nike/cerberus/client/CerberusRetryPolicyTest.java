@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the CerberusRetryPolicy class
+ */
+public class CerberusRetryPolicyTest {
+
+    @Test
+    public void io_errors_and_failed_results_are_retried_up_to_max_attempts() throws IOException {
+        final CerberusRetryPolicy retryPolicy = fastPolicy().maxAttempts(4).build();
+        final AtomicInteger attempts = new AtomicInteger();
+        final Result failed = new Result(500);
+
+        final Result result = retryPolicy.execute(() -> {
+            switch (attempts.incrementAndGet()) {
+                case 1:
+                    throw new IOException("connection reset");
+                case 2:
+                    throw new CerberusClientException("I/O error", new IOException("timeout"));
+                case 3:
+                    return failed;
+                default:
+                    return new Result(200);
+            }
+        }, r -> r.code >= 500);
+
+        assertThat(result.code).isEqualTo(200);
+        assertThat(attempts.get()).isEqualTo(4);
+        assertThat(failed.closed).isTrue();
+    }
+
+    @Test
+    public void last_failed_result_is_returned_once_attempts_are_exhausted() throws IOException {
+        final CerberusRetryPolicy retryPolicy = fastPolicy().build();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final Result result = retryPolicy.execute(() -> new Result(500 + attempts.incrementAndGet()), r -> r.code >= 500);
+
+        assertThat(result.code).isEqualTo(503);
+        assertThat(result.closed).isFalse();
+    }
+
+    @Test
+    public void other_exceptions_are_not_retried() throws IOException {
+        final CerberusRetryPolicy retryPolicy = fastPolicy().build();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            retryPolicy.execute(() -> {
+                attempts.incrementAndGet();
+                throw new CerberusCallNotPermittedException("open", CerberusOperationType.READ, null);
+            }, r -> false);
+            throw new AssertionError("Expected CerberusCallNotPermittedException, but was not thrown");
+        } catch (CerberusCallNotPermittedException e) {
+            assertThat(attempts.get()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void retry_budget_stops_retries_while_most_calls_fail_and_refills_on_success() throws IOException {
+        final CerberusRetryPolicy retryPolicy = fastPolicy().maxAttempts(10).retryBudget(10, 1, 0).build();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        retryPolicy.execute(() -> {
+            attempts.incrementAndGet();
+            return new Result(500);
+        }, r -> r.code >= 500);
+        // retries stop once half of the 10 tokens are spent
+        assertThat(attempts.get()).isEqualTo(5);
+        assertThat(retryPolicy.getRetryBudgetTokens()).isEqualTo(5.0);
+
+        retryPolicy.execute(() -> new Result(500), r -> r.code >= 500);
+        assertThat(retryPolicy.getRetryBudgetTokens()).isEqualTo(4.0);
+
+        for (int i = 0; i < 3; i++) {
+            retryPolicy.execute(() -> new Result(200), r -> r.code >= 500);
+        }
+        assertThat(retryPolicy.getRetryBudgetTokens()).isEqualTo(7.0);
+    }
+
+    @Test
+    public void retry_budget_allows_min_retries_per_second_while_exhausted() throws IOException {
+        final AtomicLong nanoTime = new AtomicLong();
+        final CerberusRetryPolicy retryPolicy = fastPolicy().maxAttempts(10).retryBudget(10, 0.1, 1)
+                .nanoClock(nanoTime::get)
+                .build();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        retryPolicy.execute(() -> {
+            attempts.incrementAndGet();
+            return new Result(500);
+        }, r -> r.code >= 500);
+        // four retries from the bucket and one from the floor
+        assertThat(attempts.get()).isEqualTo(6);
+
+        attempts.set(0);
+        retryPolicy.execute(() -> {
+            attempts.incrementAndGet();
+            return new Result(500);
+        }, r -> r.code >= 500);
+        assertThat(attempts.get()).isEqualTo(1);
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        attempts.set(0);
+        retryPolicy.execute(() -> {
+            attempts.incrementAndGet();
+            return new Result(500);
+        }, r -> r.code >= 500);
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void policy_with_own_retry_budget_starts_with_a_full_budget() throws IOException {
+        final CerberusRetryPolicy retryPolicy = fastPolicy().build();
+        retryPolicy.execute(() -> new Result(500), r -> r.code >= 500);
+
+        final CerberusRetryPolicy copy = retryPolicy.withOwnRetryBudget();
+
+        assertThat(retryPolicy.getRetryBudgetTokens()).isEqualTo(7.0);
+        assertThat(copy.getRetryBudgetTokens()).isEqualTo(10.0);
+        assertThat(copy.getMaxAttempts()).isEqualTo(retryPolicy.getMaxAttempts());
+        assertThat(copy.getRetryBudgetMinRetriesPerSecond())
+                .isEqualTo(CerberusRetryPolicy.DEFAULT_BUDGET_MIN_RETRIES_PER_SECOND);
+    }
+
+    @Test
+    public void policies_built_from_a_policy_share_its_budget() throws IOException {
+        final CerberusRetryPolicy retryPolicy = fastPolicy().build();
+        final CerberusRetryPolicy derived = retryPolicy.toBuilder().maxAttempts(1).build();
+        final CerberusRetryPolicy independent = retryPolicy.toBuilder().retryBudget(10, 0.1).build();
+
+        derived.execute(() -> new Result(500), r -> r.code >= 500);
+
+        assertThat(retryPolicy.getRetryBudgetTokens()).isEqualTo(9.0);
+        assertThat(independent.getRetryBudgetTokens()).isEqualTo(10.0);
+    }
+
+    @Test
+    public void retry_waits_at_least_as_long_as_the_result_asks() throws IOException {
+        final CerberusRetryPolicy retryPolicy = fastPolicy().maxDelay(Duration.ofSeconds(1)).build();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final long startNanos = System.nanoTime();
+        final Result result = retryPolicy.execute(() -> new Result(attempts.incrementAndGet() == 1 ? 429 : 200),
+                r -> r.code == 429, r -> Duration.ofMillis(200));
+
+        assertThat(result.code).isEqualTo(200);
+        assertThat(System.nanoTime() - startNanos).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void result_asking_to_wait_longer_than_the_max_delay_is_not_retried() throws IOException {
+        final CerberusRetryPolicy retryPolicy = fastPolicy().build();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final Result result = retryPolicy.execute(() -> {
+            attempts.incrementAndGet();
+            return new Result(429);
+        }, r -> r.code == 429, r -> Duration.ofMinutes(1));
+
+        assertThat(result.code).isEqualTo(429);
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void no_jitter_doubles_the_delay_up_to_the_max_delay() {
+        final CerberusRetryPolicy.Backoff backoff = CerberusRetryPolicy.builder()
+                .baseDelay(Duration.ofMillis(100))
+                .maxDelay(Duration.ofMillis(300))
+                .jitter(CerberusRetryPolicy.Jitter.NONE)
+                .build()
+                .newBackoff();
+
+        assertThat(millis(backoff.nextDelayNanos())).isEqualTo(100);
+        assertThat(millis(backoff.nextDelayNanos())).isEqualTo(200);
+        assertThat(millis(backoff.nextDelayNanos())).isEqualTo(300);
+    }
+
+    @Test
+    public void full_jitter_waits_up_to_the_exponential_delay() {
+        final CerberusRetryPolicy retryPolicy = CerberusRetryPolicy.builder()
+                .baseDelay(Duration.ofMillis(100))
+                .jitter(CerberusRetryPolicy.Jitter.FULL)
+                .build();
+
+        for (int i = 0; i < 100; i++) {
+            final CerberusRetryPolicy.Backoff backoff = retryPolicy.newBackoff();
+            assertThat(millis(backoff.nextDelayNanos())).isBetween(0L, 100L);
+            assertThat(millis(backoff.nextDelayNanos())).isBetween(0L, 200L);
+        }
+    }
+
+    @Test
+    public void decorrelated_jitter_waits_between_base_delay_and_three_times_the_previous_delay() {
+        final CerberusRetryPolicy retryPolicy = CerberusRetryPolicy.builder()
+                .baseDelay(Duration.ofMillis(100))
+                .maxDelay(Duration.ofSeconds(1))
+                .jitter(CerberusRetryPolicy.Jitter.DECORRELATED)
+                .build();
+
+        for (int i = 0; i < 100; i++) {
+            final CerberusRetryPolicy.Backoff backoff = retryPolicy.newBackoff();
+            long previousNanos = TimeUnit.MILLISECONDS.toNanos(100);
+            for (int retry = 0; retry < 5; retry++) {
+                final long delayNanos = backoff.nextDelayNanos();
+                assertThat(delayNanos).isBetween(TimeUnit.MILLISECONDS.toNanos(100),
+                        Math.min(TimeUnit.SECONDS.toNanos(1), previousNanos * 3));
+                previousNanos = delayNanos;
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void build_throws_error_if_max_delay_is_less_than_base_delay() {
+        CerberusRetryPolicy.builder().baseDelay(Duration.ofSeconds(2)).maxDelay(Duration.ofSeconds(1)).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void max_attempts_must_be_positive() {
+        CerberusRetryPolicy.builder().maxAttempts(0);
+    }
+
+    private static CerberusRetryPolicy.Builder fastPolicy() {
+        return CerberusRetryPolicy.builder().baseDelay(Duration.ofMillis(1)).maxDelay(Duration.ofMillis(1));
+    }
+
+    private static long millis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static class Result implements Closeable {
+
+        private final int code;
+
+        private boolean closed;
+
+        Result(final int code) {
+            this.code = code;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
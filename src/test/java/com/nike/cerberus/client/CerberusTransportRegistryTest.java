@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the CerberusTransportRegistry class
+ */
+public class CerberusTransportRegistryTest {
+
+    private final CerberusTransportRegistry registry = new CerberusTransportRegistry();
+
+    @Test
+    public void references_to_the_same_endpoint_share_a_transport() {
+        final CerberusTransport first = registry.acquire("https://cerberus.example.com/");
+        final CerberusTransport second = registry.acquire("https://cerberus.example.com:443/v1/secret");
+
+        assertThat(second.getHttpClient()).isSameAs(first.getHttpClient());
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void endpoints_and_tls_configurations_get_their_own_transport() throws Exception {
+        final TrustManagerFactory trustManagerFactory =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init((KeyStore) null);
+        final X509TrustManager trustManager = (X509TrustManager) trustManagerFactory.getTrustManagers()[0];
+        final SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new X509TrustManager[]{trustManager}, null);
+        final SSLSocketFactory sslSocketFactory = sslContext.getSocketFactory();
+
+        final OkHttpClient defaultTls = registry.acquire("https://cerberus.example.com").getHttpClient();
+        final OkHttpClient otherPort = registry.acquire("https://cerberus.example.com:8443").getHttpClient();
+        final OkHttpClient otherHost = registry.acquire("https://other.example.com").getHttpClient();
+        final OkHttpClient customTls = registry
+                .acquire("https://cerberus.example.com", sslSocketFactory, trustManager)
+                .getHttpClient();
+
+        assertThat(registry.size()).isEqualTo(4);
+        assertThat(otherPort).isNotSameAs(defaultTls);
+        assertThat(otherHost).isNotSameAs(defaultTls);
+        assertThat(customTls).isNotSameAs(defaultTls);
+        assertThat(customTls.sslSocketFactory()).isSameAs(sslSocketFactory);
+    }
+
+    @Test
+    public void transport_is_shut_down_when_the_last_reference_is_closed() {
+        final CerberusTransport first = registry.acquire("https://cerberus.example.com");
+        final CerberusTransport second = registry.acquire("https://cerberus.example.com");
+        final OkHttpClient httpClient = first.getHttpClient();
+
+        first.close();
+        first.close();
+        assertThat(registry.size()).isEqualTo(1);
+        assertThat(httpClient.dispatcher().executorService().isShutdown()).isFalse();
+
+        second.close();
+        assertThat(registry.size()).isEqualTo(0);
+        assertThat(httpClient.dispatcher().executorService().isShutdown()).isTrue();
+        assertThat(registry.acquire("https://cerberus.example.com").getHttpClient()).isNotSameAs(httpClient);
+    }
+
+    @Test
+    public void transports_use_the_configured_pool_and_dispatcher_limits() {
+        final CerberusTransportRegistry tunedRegistry =
+                new CerberusTransportRegistry(10, Duration.ofSeconds(30), 100, 20);
+
+        final OkHttpClient httpClient = tunedRegistry.acquire("https://cerberus.example.com").getHttpClient();
+
+        assertThat(httpClient.dispatcher().getMaxRequests()).isEqualTo(100);
+        assertThat(httpClient.dispatcher().getMaxRequestsPerHost()).isEqualTo(20);
+        assertThat(httpClient.readTimeoutMillis()).isEqualTo(CerberusClientFactory.DEFAULT_TIMEOUT);
+    }
+
+    @Test
+    public void transports_speak_http2_with_prior_knowledge_when_configured() throws Exception {
+        final MockWebServer mockWebServer = new MockWebServer();
+        mockWebServer.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200));
+        mockWebServer.start();
+        final CerberusTransportRegistry http2Registry = new CerberusTransportRegistry(CerberusTransportSettings
+                .builder()
+                .protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+                .pingInterval(Duration.ofSeconds(10))
+                .build());
+
+        try (CerberusTransport transport = http2Registry.acquire(mockWebServer.url("/").toString());
+             Response response = transport.getHttpClient()
+                     .newCall(new Request.Builder().url(mockWebServer.url("/healthcheck")).build())
+                     .execute()) {
+
+            assertThat(response.protocol()).isEqualTo(Protocol.H2_PRIOR_KNOWLEDGE);
+            assertThat(transport.getHttpClient().pingIntervalMillis()).isEqualTo(10_000);
+        } finally {
+            mockWebServer.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_keep_alive_is_not_positive() {
+        new CerberusTransportRegistry(5, Duration.ZERO, 64, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void acquire_throws_error_if_no_url() {
+        registry.acquire(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void acquire_throws_error_if_only_one_tls_setting_is_given() throws Exception {
+        registry.acquire("https://cerberus.example.com", SSLContext.getDefault().getSocketFactory(), null);
+    }
+}
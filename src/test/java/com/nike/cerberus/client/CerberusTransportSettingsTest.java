@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import okhttp3.Protocol;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the CerberusTransportSettings class
+ */
+public class CerberusTransportSettingsTest {
+
+    @Test
+    public void defaults_match_okhttp() {
+        final CerberusTransportSettings settings = CerberusTransportSettings.builder().build();
+
+        assertThat(settings.getProtocols()).containsExactly(Protocol.HTTP_2, Protocol.HTTP_1_1);
+        assertThat(settings.getMaxIdleConnections()).isEqualTo(5);
+        assertThat(settings.getKeepAlive()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(settings.getPingInterval()).isEqualTo(Duration.ZERO);
+        assertThat(settings.getMaxRequests()).isEqualTo(64);
+        assertThat(settings.getMaxRequestsPerHost()).isEqualTo(5);
+    }
+
+    @Test
+    public void toBuilder_copies_all_settings() {
+        final CerberusTransportSettings settings = CerberusTransportSettings.builder()
+                .protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+                .maxIdleConnections(1)
+                .keepAlive(Duration.ofSeconds(30))
+                .pingInterval(Duration.ofSeconds(10))
+                .maxRequests(256)
+                .maxRequestsPerHost(128)
+                .build();
+
+        final CerberusTransportSettings copy = settings.toBuilder().build();
+
+        assertThat(copy.getProtocols()).containsExactly(Protocol.H2_PRIOR_KNOWLEDGE);
+        assertThat(copy.getMaxIdleConnections()).isEqualTo(1);
+        assertThat(copy.getKeepAlive()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(copy.getPingInterval()).isEqualTo(Duration.ofSeconds(10));
+        assertThat(copy.getMaxRequests()).isEqualTo(256);
+        assertThat(copy.getMaxRequestsPerHost()).isEqualTo(128);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void protocols_must_include_http_1_1() {
+        CerberusTransportSettings.builder().protocols(Collections.singletonList(Protocol.HTTP_2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prior_knowledge_cannot_be_combined_with_other_protocols() {
+        CerberusTransportSettings.builder().protocols(Arrays.asList(Protocol.H2_PRIOR_KNOWLEDGE, Protocol.HTTP_1_1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ping_interval_cannot_be_negative() {
+        CerberusTransportSettings.builder().pingInterval(Duration.ofSeconds(-1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void max_requests_per_host_must_be_positive() {
+        CerberusTransportSettings.builder().maxRequestsPerHost(0);
+    }
+}
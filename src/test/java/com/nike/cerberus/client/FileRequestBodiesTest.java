@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the FileRequestBodies class
+ */
+public class FileRequestBodiesTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void file_body_is_written_in_small_chunks() throws IOException {
+        final byte[] contents = randomBytes(1024 * 1024 + 123);
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, contents);
+
+        assertWrittenInSmallChunks(FileRequestBodies.ofPath(file), contents);
+    }
+
+    @Test
+    public void channel_body_is_written_in_small_chunks_from_its_position() throws IOException {
+        final byte[] contents = randomBytes(256 * 1024);
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, contents);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(1000);
+            final RequestBody body = FileRequestBodies.ofChannel(channel);
+
+            final byte[] expected = new byte[contents.length - 1000];
+            System.arraycopy(contents, 1000, expected, 0, expected.length);
+            assertWrittenInSmallChunks(body, expected);
+            // the body can be written again
+            assertWrittenInSmallChunks(body, expected);
+        }
+    }
+
+    /**
+     * Writes the body through a buffered sink, checking that no single write hands more than a couple of chunks
+     * to the sink below, i.e. that the contents never pile up in the buffer.
+     */
+    private static void assertWrittenInSmallChunks(final RequestBody body, final byte[] expected) throws IOException {
+        final Buffer written = new Buffer();
+        final long[] largestWrite = {0};
+        final BufferedSink sink = Okio.buffer(new ForwardingSink(written) {
+            @Override
+            public void write(final Buffer source, final long byteCount) throws IOException {
+                largestWrite[0] = Math.max(largestWrite[0], byteCount);
+                super.write(source, byteCount);
+            }
+        });
+
+        body.writeTo(sink);
+        sink.flush();
+
+        assertThat(written.readByteArray()).isEqualTo(expected);
+        assertThat(largestWrite[0]).isLessThanOrEqualTo(2L * FileRequestBodies.WRITE_CHUNK_SIZE);
+    }
+
+    private static byte[] randomBytes(final int size) {
+        final byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
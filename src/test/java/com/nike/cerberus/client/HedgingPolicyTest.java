@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the HedgingPolicy class
+ */
+public class HedgingPolicyTest {
+
+    @Test
+    public void max_delay_is_used_until_enough_latencies_are_recorded() {
+        final HedgingPolicy hedgingPolicy = policy(0.95, 1);
+
+        for (int i = 0; i < 31; i++) {
+            hedgingPolicy.recordLatency(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        assertThat(hedgingPolicy.getHedgeDelay()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void delay_is_the_percentile_of_recent_latencies() {
+        final HedgingPolicy hedgingPolicy = policy(0.95, 1);
+
+        for (int i = 1; i <= 128; i++) {
+            hedgingPolicy.recordLatency(TimeUnit.MILLISECONDS.toNanos(i * 2));
+        }
+
+        // 122 of 128 latencies are at or below 244 ms
+        assertThat(hedgingPolicy.getHedgeDelay()).isEqualTo(Duration.ofMillis(244));
+    }
+
+    @Test
+    public void delay_is_bounded_by_min_and_max_delay() {
+        final HedgingPolicy fast = policy(0.5, 1);
+        final HedgingPolicy slow = policy(0.5, 1);
+
+        for (int i = 0; i < 64; i++) {
+            fast.recordLatency(TimeUnit.MILLISECONDS.toNanos(1));
+            slow.recordLatency(TimeUnit.SECONDS.toNanos(5));
+        }
+
+        assertThat(fast.getHedgeDelay()).isEqualTo(Duration.ofMillis(10));
+        assertThat(slow.getHedgeDelay()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void hedges_are_capped_at_max_hedge_rate() {
+        final HedgingPolicy hedgingPolicy = policy(0.95, 0.1);
+
+        int hedges = 0;
+        for (int i = 0; i < 100; i++) {
+            hedgingPolicy.readStarted();
+            if (hedgingPolicy.tryStartHedge()) {
+                hedges++;
+            }
+        }
+
+        assertThat(hedges).isEqualTo(10);
+        assertThat(hedgingPolicy.getHedgedRequests()).isEqualTo(10);
+    }
+
+    @Test
+    public void unspent_hedges_are_saved_up_to_a_limit() {
+        final HedgingPolicy hedgingPolicy = policy(0.95, 0.5);
+
+        for (int i = 0; i < 1000; i++) {
+            hedgingPolicy.readStarted();
+        }
+        int hedges = 0;
+        while (hedgingPolicy.tryStartHedge()) {
+            hedges++;
+        }
+
+        assertThat(hedges).isEqualTo(HedgingPolicy.MAX_SAVED_HEDGES);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_percentile_is_out_of_range() {
+        new HedgingPolicy(1, 0.05);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_max_hedge_rate_is_out_of_range() {
+        new HedgingPolicy(0.95, 1.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_max_delay_is_less_than_min_delay() {
+        new HedgingPolicy(0.95, 0.05, Duration.ofSeconds(1), Duration.ofMillis(10));
+    }
+
+    private static HedgingPolicy policy(final double percentile, final double maxHedgeRate) {
+        return new HedgingPolicy(percentile, maxHedgeRate, Duration.ofMillis(10), Duration.ofSeconds(1));
+    }
+}
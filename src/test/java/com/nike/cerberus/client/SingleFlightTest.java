@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the SingleFlight class
+ */
+public class SingleFlightTest {
+
+    private static final int THREADS = 16;
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    public void concurrent_calls_with_same_key_share_one_execution() throws Exception {
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Future<String>> results = runConcurrently(() -> singleFlight.execute("key", () -> {
+            executions.incrementAndGet();
+            await(release);
+            return "result";
+        }), release);
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void concurrent_calls_with_same_key_share_one_exception() throws Exception {
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Future<String>> results = runConcurrently(() -> {
+            try {
+                return singleFlight.execute("key", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    throw new CerberusClientException("boom");
+                });
+            } catch (CerberusClientException e) {
+                return e.getMessage();
+            }
+        }, release);
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("boom");
+        }
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void waiters_receive_copied_result() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final byte[] original = new byte[]{1, 2, 3};
+        final List<Future<byte[]>> results = runConcurrently(() -> singleFlight.execute("key", () -> {
+            await(release);
+            return original;
+        }, byte[]::clone), release);
+
+        int shared = 0;
+        for (Future<byte[]> result : results) {
+            byte[] bytes = result.get(5, TimeUnit.SECONDS);
+            assertThat(bytes).isEqualTo(new byte[]{1, 2, 3});
+            if (bytes == original) {
+                shared++;
+            }
+        }
+        assertThat(shared).isEqualTo(1);
+    }
+
+    @Test
+    public void sequential_calls_execute_again() {
+        final AtomicInteger executions = new AtomicInteger();
+
+        singleFlight.execute("key", executions::incrementAndGet);
+        singleFlight.execute("key", executions::incrementAndGet);
+
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void different_keys_do_not_share_results() {
+        assertThat(singleFlight.execute("a", () -> "a")).isEqualTo("a");
+        assertThat(singleFlight.execute("b", () -> "b")).isEqualTo("b");
+    }
+
+    private <T> List<Future<T>> runConcurrently(Callable<T> task, CountDownLatch release)
+            throws InterruptedException {
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch started = new CountDownLatch(THREADS);
+        final List<Future<T>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                started.countDown();
+                return task.call();
+            }));
+        }
+        started.await(5, TimeUnit.SECONDS);
+        // give every thread time to join the in-flight call before it completes
+        Thread.sleep(200);
+        release.countDown();
+        executor.shutdown();
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.auth.aws;
+
+import com.nike.cerberus.client.CerberusClientException;
+import com.nike.cerberus.client.CerberusClientFactory;
+import com.nike.cerberus.client.CerberusTransportRegistry;
+import com.nike.cerberus.client.auth.CerberusCredentials;
+import com.nike.cerberus.client.auth.TokenCerberusCredentials;
+import okhttp3.OkHttpClient;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the BaseAwsCredentialsProvider class
+ */
+public class BaseAwsCredentialsProviderTest {
+
+    private static final int THREADS = 64;
+
+    @Test
+    public void concurrent_callers_trigger_exactly_one_authentication() throws Exception {
+        final CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+
+        final List<String> tokens = getTokensConcurrently(credentialsProvider);
+
+        assertThat(credentialsProvider.authentications.get()).isEqualTo(1);
+        assertThat(tokens).hasSize(THREADS).containsOnly("token-1");
+    }
+
+    @Test
+    public void concurrent_callers_trigger_exactly_one_refresh_after_expiry() throws Exception {
+        final CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+        credentialsProvider.lifetimeMillis = 100;
+        assertThat(credentialsProvider.getCredentials().getToken()).isEqualTo("token-1");
+
+        Thread.sleep(150);
+        credentialsProvider.lifetimeMillis = TimeUnit.HOURS.toMillis(1);
+        final List<String> tokens = getTokensConcurrently(credentialsProvider);
+
+        assertThat(credentialsProvider.authentications.get()).isEqualTo(2);
+        assertThat(tokens).hasSize(THREADS).containsOnly("token-2");
+    }
+
+    @Test
+    public void valid_credentials_are_not_refreshed() {
+        final CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+
+        final CerberusCredentials first = credentialsProvider.getCredentials();
+        final CerberusCredentials second = credentialsProvider.getCredentials();
+
+        assertThat(second).isSameAs(first);
+        assertThat(credentialsProvider.authentications.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void background_refresh_renews_token_before_expiry() throws Exception {
+        final CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+        credentialsProvider.lifetimeMillis = 1500;
+
+        credentialsProvider.enableBackgroundRefresh(0.5);
+        try {
+            waitFor(() -> credentialsProvider.hasToken("token-1"));
+            assertThat(credentialsProvider.getCredentials().getToken()).isEqualTo("token-1");
+
+            waitFor(() -> credentialsProvider.handsOutToken("token-2"));
+            assertThat(credentialsProvider.expireDateTime.isAfterNow()).isTrue();
+            assertThat(credentialsProvider.getCredentials().getToken()).isEqualTo("token-2");
+            assertThat(credentialsProvider.authentications.get()).isEqualTo(2);
+        } finally {
+            credentialsProvider.disableBackgroundRefresh();
+        }
+    }
+
+    @Test
+    public void background_refresh_retries_failures_while_token_is_valid() throws Exception {
+        final CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+        credentialsProvider.lifetimeMillis = 3000;
+        assertThat(credentialsProvider.getCredentials().getToken()).isEqualTo("token-1");
+        final DateTime originalExpiry = credentialsProvider.expireDateTime;
+
+        credentialsProvider.failuresRemaining.set(2);
+        credentialsProvider.enableBackgroundRefresh(0.3);
+        try {
+            waitFor(() -> credentialsProvider.handsOutToken("token-4"));
+            assertThat(originalExpiry.isAfterNow()).isTrue();
+            assertThat(credentialsProvider.getCredentials().getToken()).isEqualTo("token-4");
+        } finally {
+            credentialsProvider.disableBackgroundRefresh();
+        }
+    }
+
+    @Test
+    public void disabled_background_refresh_does_not_renew() throws Exception {
+        final CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+        credentialsProvider.lifetimeMillis = 1200;
+        credentialsProvider.getCredentials();
+
+        credentialsProvider.enableBackgroundRefresh(0.5);
+        credentialsProvider.disableBackgroundRefresh();
+        Thread.sleep(1500);
+
+        assertThat(credentialsProvider.authentications.get()).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void background_refresh_rejects_invalid_lease_fraction() {
+        new CountingCredentialsProvider().enableBackgroundRefresh(1.5);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void close_releases_the_shared_transport() {
+        final CerberusTransportRegistry defaultRegistry = CerberusClientFactory.getTransportRegistry();
+        final CerberusTransportRegistry registry = new CerberusTransportRegistry();
+        CerberusClientFactory.setTransportRegistry(registry);
+        try {
+            final CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+            assertThat(registry.size()).isEqualTo(1);
+
+            credentialsProvider.close();
+            assertThat(registry.size()).isEqualTo(0);
+        } finally {
+            CerberusClientFactory.setTransportRegistry(defaultRegistry);
+        }
+    }
+
+    @Test
+    public void createHttpClient_does_not_acquire_another_transport_reference() {
+        final CerberusTransportRegistry defaultRegistry = CerberusClientFactory.getTransportRegistry();
+        final CerberusTransportRegistry registry = new CerberusTransportRegistry();
+        CerberusClientFactory.setTransportRegistry(registry);
+        try {
+            final CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+            final OkHttpClient httpClient = credentialsProvider.createHttpClient();
+            assertThat(credentialsProvider.createHttpClient()).isSameAs(httpClient);
+
+            credentialsProvider.close();
+            assertThat(registry.size()).isEqualTo(0);
+        } finally {
+            CerberusClientFactory.setTransportRegistry(defaultRegistry);
+        }
+    }
+
+    private List<String> getTokensConcurrently(final CountingCredentialsProvider credentialsProvider)
+            throws Exception {
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return credentialsProvider.getCredentials().getToken();
+            }));
+        }
+        start.countDown();
+
+        final List<String> tokens = new ArrayList<>();
+        for (Future<String> future : futures) {
+            tokens.add(future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return tokens;
+    }
+
+    private static class CountingCredentialsProvider extends BaseAwsCredentialsProvider {
+
+        private final AtomicInteger authentications = new AtomicInteger();
+
+        private final AtomicInteger failuresRemaining = new AtomicInteger();
+
+        private volatile long lifetimeMillis = TimeUnit.HOURS.toMillis(1);
+
+        CountingCredentialsProvider() {
+            super("https://localhost");
+        }
+
+        boolean hasToken(String token) {
+            return credentials != null && token.equals(credentials.getToken());
+        }
+
+        /**
+         * Unlike {@link #hasToken(String)}, only true once the token has been published to callers. Only call
+         * it while a valid token is published, since it may authenticate otherwise.
+         */
+        boolean handsOutToken(String token) {
+            return token.equals(getCredentials().getToken());
+        }
+
+        @Override
+        protected void authenticate() {
+            final int count = authentications.incrementAndGet();
+            try {
+                // simulate the latency of a signed STS round trip
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failuresRemaining.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                throw new CerberusClientException("Simulated authentication failure");
+            }
+            credentials = new TokenCerberusCredentials("token-" + count);
+            expireDateTime = DateTime.now().plus(lifetimeMillis);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.endpoint;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.BufferedSink;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Tests the LoadBalancingInterceptor class
+ */
+public class LoadBalancingInterceptorTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private MockWebServer primary;
+
+    private MockWebServer secondary;
+
+    @Before
+    public void setup() throws IOException {
+        primary = new MockWebServer();
+        primary.start();
+        secondary = new MockWebServer();
+        secondary.start();
+    }
+
+    @After
+    public void teardown() throws IOException {
+        primary.shutdown();
+        secondary.shutdown();
+    }
+
+    @Test
+    public void requests_are_moved_to_the_selected_endpoint_keeping_the_rest_of_the_url() throws Exception {
+        final LoadBalancingInterceptor interceptor =
+                interceptor(primary.url("/").toString(), secondary.url("/cerberus").toString());
+        secondary.enqueue(new MockResponse().setResponseCode(200));
+        eject(interceptor.getEndpoints().get(0));
+
+        try (Response response = get(interceptor, "v1/secret/app/sdb?limit=10")) {
+            assertThat(response.code()).isEqualTo(200);
+        }
+
+        assertThat(primary.getRequestCount()).isEqualTo(0);
+        assertThat(secondary.takeRequest().getPath()).isEqualTo("/cerberus/v1/secret/app/sdb?limit=10");
+    }
+
+    @Test
+    public void server_errors_fail_over_to_another_endpoint() throws Exception {
+        final LoadBalancingInterceptor interceptor = interceptor(primary.url("/").toString(),
+                secondary.url("/").toString());
+        primary.enqueue(new MockResponse().setResponseCode(503));
+        secondary.enqueue(new MockResponse().setResponseCode(200));
+        preferPrimary(interceptor);
+
+        try (Response response = get(interceptor, "v1/secret/app/sdb")) {
+            assertThat(response.code()).isEqualTo(200);
+        }
+
+        assertThat(primary.getRequestCount()).isEqualTo(1);
+        assertThat(secondary.getRequestCount()).isEqualTo(1);
+        assertThat(interceptor.getEndpoints().get(0).getConsecutiveFailures()).isEqualTo(1);
+    }
+
+    @Test
+    public void io_errors_fail_over_to_another_endpoint() throws Exception {
+        final LoadBalancingInterceptor interceptor = interceptor(primary.url("/").toString(),
+                secondary.url("/").toString());
+        primary.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        secondary.enqueue(new MockResponse().setResponseCode(200));
+        preferPrimary(interceptor);
+
+        try (Response response = get(interceptor, "v1/secret/app/sdb")) {
+            assertThat(response.code()).isEqualTo(200);
+        }
+
+        assertThat(secondary.getRequestCount()).isEqualTo(1);
+        assertThat(interceptor.getEndpoints().get(0).getOutstandingRequests()).isEqualTo(0);
+    }
+
+    @Test
+    public void last_server_error_is_returned_when_every_endpoint_failed() throws Exception {
+        final LoadBalancingInterceptor interceptor = interceptor(primary.url("/").toString(),
+                secondary.url("/").toString());
+        primary.enqueue(new MockResponse().setResponseCode(503));
+        secondary.enqueue(new MockResponse().setResponseCode(500));
+
+        try (Response response = get(interceptor, "v1/secret/app/sdb")) {
+            assertThat(response.code()).isIn(500, 503);
+        }
+
+        assertThat(primary.getRequestCount() + secondary.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void writes_are_not_failed_over_after_a_server_error() throws Exception {
+        final LoadBalancingInterceptor interceptor = interceptor(primary.url("/").toString(),
+                secondary.url("/").toString());
+        primary.enqueue(new MockResponse().setResponseCode(503));
+        preferPrimary(interceptor);
+
+        try (Response response = client(interceptor).newCall(new Request.Builder()
+                .url(primary.url("/v1/secret/app/sdb"))
+                .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
+                .build()).execute()) {
+            assertThat(response.code()).isEqualTo(503);
+        }
+
+        assertThat(secondary.getRequestCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void writes_are_not_failed_over_after_an_io_error() throws Exception {
+        final LoadBalancingInterceptor interceptor = interceptor(primary.url("/").toString(),
+                secondary.url("/").toString());
+        primary.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+        preferPrimary(interceptor);
+
+        try {
+            client(interceptor).newCall(new Request.Builder()
+                    .url(primary.url("/v1/secret/app/sdb"))
+                    .delete()
+                    .build()).execute().close();
+            throw new AssertionError("Expected the request to fail");
+        } catch (IOException expected) {
+            assertThat(secondary.getRequestCount()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void writes_fail_over_when_no_connection_could_be_established() throws Exception {
+        final MockWebServer unreachable = new MockWebServer();
+        unreachable.start();
+        final String unreachableUrl = unreachable.url("/").toString();
+        unreachable.shutdown();
+        final LoadBalancingInterceptor interceptor = interceptor(unreachableUrl, secondary.url("/").toString());
+        secondary.enqueue(new MockResponse().setResponseCode(204));
+        preferPrimary(interceptor);
+
+        try (Response response = client(interceptor).newCall(new Request.Builder()
+                .url(unreachableUrl + "v1/secret/app/sdb")
+                .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
+                .build()).execute()) {
+            assertThat(response.code()).isEqualTo(204);
+        }
+
+        assertThat(secondary.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void one_shot_requests_are_not_failed_over() throws Exception {
+        final LoadBalancingInterceptor interceptor = interceptor(primary.url("/").toString(),
+                secondary.url("/").toString());
+        primary.enqueue(new MockResponse().setResponseCode(503));
+        preferPrimary(interceptor);
+        final RequestBody oneShotBody = new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return MediaType.parse("application/octet-stream");
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return true;
+            }
+
+            @Override
+            public void writeTo(final BufferedSink sink) throws IOException {
+                sink.writeUtf8("contents");
+            }
+        };
+
+        try (Response response = client(interceptor).newCall(new Request.Builder()
+                .url(primary.url("/v1/secure-file/app/sdb/file.pem"))
+                .post(oneShotBody)
+                .build()).execute()) {
+            assertThat(response.code()).isEqualTo(503);
+        }
+
+        assertThat(secondary.getRequestCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void endpoint_is_ejected_after_consecutive_failures_and_readmitted_later() {
+        final LoadBalancingInterceptor interceptor = interceptor("https://a.example.com", "https://b.example.com");
+        final CerberusEndpoint endpoint = interceptor.getEndpoints().get(0);
+
+        eject(endpoint);
+        assertThat(endpoint.isEjected(nanoTime.get())).isTrue();
+        assertThat(interceptor.select(Collections.emptyList())).isSameAs(interceptor.getEndpoints().get(1));
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(endpoint.isEjected(nanoTime.get())).isFalse();
+
+        // a readmitted endpoint that fails again is ejected for twice as long
+        recordFailure(endpoint);
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(19));
+        assertThat(endpoint.isEjected(nanoTime.get())).isTrue();
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(endpoint.isEjected(nanoTime.get())).isFalse();
+
+        endpoint.recordSuccess(TimeUnit.MILLISECONDS.toNanos(5), nanoTime.get(), TimeUnit.SECONDS.toNanos(10));
+        assertThat(endpoint.getConsecutiveFailures()).isEqualTo(0);
+        recordFailure(endpoint);
+        assertThat(endpoint.isEjected(nanoTime.get())).isFalse();
+    }
+
+    @Test
+    public void endpoint_ejected_first_is_selected_when_all_are_ejected() {
+        final LoadBalancingInterceptor interceptor = interceptor("https://a.example.com", "https://b.example.com");
+        eject(interceptor.getEndpoints().get(1));
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        eject(interceptor.getEndpoints().get(0));
+
+        assertThat(interceptor.select(Collections.emptyList())).isSameAs(interceptor.getEndpoints().get(1));
+    }
+
+    @Test
+    public void ewma_latency_prefers_fast_endpoints_unless_they_are_busy() {
+        final LoadBalancingInterceptor interceptor = interceptor("https://a.example.com", "https://b.example.com");
+        final CerberusEndpoint slow = interceptor.getEndpoints().get(0);
+        final CerberusEndpoint fast = interceptor.getEndpoints().get(1);
+        slow.recordSuccess(TimeUnit.MILLISECONDS.toNanos(50), nanoTime.get(), TimeUnit.SECONDS.toNanos(10));
+        fast.recordSuccess(TimeUnit.MILLISECONDS.toNanos(5), nanoTime.get(), TimeUnit.SECONDS.toNanos(10));
+
+        assertThat(interceptor.select(Collections.emptyList())).isSameAs(fast);
+
+        for (int i = 0; i < 20; i++) {
+            fast.requestStarted();
+        }
+        assertThat(interceptor.select(Collections.emptyList())).isSameAs(slow);
+    }
+
+    @Test
+    public void latency_average_decays_toward_recent_samples() {
+        final CerberusEndpoint endpoint = new CerberusEndpoint("https://a.example.com/");
+        final long decayNanos = TimeUnit.SECONDS.toNanos(10);
+
+        endpoint.recordSuccess(TimeUnit.MILLISECONDS.toNanos(100), 0, decayNanos);
+        endpoint.recordSuccess(TimeUnit.MILLISECONDS.toNanos(10), decayNanos, decayNanos);
+
+        // one decay period later the old average keeps a weight of 1/e
+        assertThat(endpoint.getLatencyEwmaMillis()).isCloseTo(10 + 90 / Math.E, offset(0.01));
+    }
+
+    @Test
+    public void least_outstanding_requests_picks_the_least_busy_endpoint() {
+        final LoadBalancingInterceptor interceptor = new LoadBalancingInterceptor(
+                Arrays.asList("https://a.example.com", "https://b.example.com"),
+                EndpointSelectionStrategy.LEAST_OUTSTANDING_REQUESTS);
+        interceptor.getEndpoints().get(0).requestStarted();
+
+        assertThat(interceptor.select(Collections.emptyList())).isSameAs(interceptor.getEndpoints().get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_no_urls() {
+        new LoadBalancingInterceptor(Collections.emptyList(), EndpointSelectionStrategy.EWMA_LATENCY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_url_is_invalid() {
+        new LoadBalancingInterceptor(Collections.singletonList("not a url"), EndpointSelectionStrategy.EWMA_LATENCY);
+    }
+
+    private LoadBalancingInterceptor interceptor(final String... cerberusUrls) {
+        return new LoadBalancingInterceptor(Arrays.asList(cerberusUrls), EndpointSelectionStrategy.EWMA_LATENCY,
+                LoadBalancingInterceptor.DEFAULT_FAILURE_THRESHOLD, Duration.ofSeconds(10), Duration.ofMinutes(1),
+                LoadBalancingInterceptor.DEFAULT_LATENCY_DECAY, nanoTime::get);
+    }
+
+    private Response get(final LoadBalancingInterceptor interceptor, final String relativeUrl) throws IOException {
+        return client(interceptor).newCall(new Request.Builder()
+                .url(interceptor.getEndpoints().get(0).getUrl() + relativeUrl)
+                .build()).execute();
+    }
+
+    private static OkHttpClient client(final LoadBalancingInterceptor interceptor) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(interceptor)
+                .retryOnConnectionFailure(false)
+                .build();
+    }
+
+    /**
+     * Makes the secondary endpoint look busy so that the primary is tried first.
+     */
+    private static void preferPrimary(final LoadBalancingInterceptor interceptor) {
+        interceptor.getEndpoints().get(1).requestStarted();
+    }
+
+    private void eject(final CerberusEndpoint endpoint) {
+        for (int i = 0; i < LoadBalancingInterceptor.DEFAULT_FAILURE_THRESHOLD; i++) {
+            recordFailure(endpoint);
+        }
+    }
+
+    private void recordFailure(final CerberusEndpoint endpoint) {
+        endpoint.recordFailure(nanoTime.get(), LoadBalancingInterceptor.DEFAULT_FAILURE_THRESHOLD,
+                TimeUnit.SECONDS.toNanos(10), TimeUnit.MINUTES.toNanos(1));
+    }
+}
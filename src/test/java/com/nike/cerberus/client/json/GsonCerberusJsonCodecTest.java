@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.json;
+
+import com.google.gson.Gson;
+import com.nike.cerberus.client.model.CerberusAuthResponse;
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the GsonCerberusJsonCodec class
+ */
+public class GsonCerberusJsonCodecTest {
+
+    private final GsonCerberusJsonCodec codec = new GsonCerberusJsonCodec();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_error_if_no_gson() {
+        new GsonCerberusJsonCodec((Gson) null);
+    }
+
+    @Test
+    public void fromJson_decodes_snake_case_fields() throws IOException {
+        final CerberusAuthResponse authResponse = codec.fromJson(new StringReader(
+                "{\"client_token\":\"ABCD\",\"policies\":[\"web\"],\"lease_duration\":3600,\"renewable\":true}"),
+                CerberusAuthResponse.class);
+
+        assertThat(authResponse.getClientToken()).isEqualTo("ABCD");
+        assertThat(authResponse.getPolicies()).containsExactly("web");
+        assertThat(authResponse.getLeaseDuration()).isEqualTo(3600);
+        assertThat(authResponse.isRenewable()).isTrue();
+    }
+
+    @Test
+    public void fromJson_decodes_types_without_adapters_by_field_name() throws IOException {
+        final ErrorBody errorBody = codec.fromJson(new StringReader("{\"error_id\":\"id\"}"), ErrorBody.class);
+
+        assertThat(errorBody.errorId).isEqualTo("id");
+    }
+
+    @Test(expected = CerberusJsonException.class)
+    public void fromJson_throws_json_exception_if_json_is_malformed() throws IOException {
+        codec.fromJson(new StringReader("{\"has_next\": "), CerberusListFilesResponse.class);
+    }
+
+    @Test(expected = IOException.class)
+    public void fromJson_rethrows_io_exception_from_reader() throws IOException {
+        final Reader failingReader = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("connection reset");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        codec.fromJson(failingReader, CerberusListFilesResponse.class);
+    }
+
+    @Test
+    public void toJson_encodes_without_html_escaping_and_omits_nulls() {
+        assertThat(codec.toJson(Collections.singletonMap("url", "a=<b>&c")))
+                .isEqualTo("{\"url\":\"a=<b>&c\"}");
+        assertThat(codec.toJson(new ErrorBody())).isEqualTo("{}");
+    }
+
+    @Test
+    public void getGson_returns_configured_gson() {
+        final Gson gson = new Gson();
+
+        assertThat(new GsonCerberusJsonCodec(gson).getGson()).isSameAs(gson);
+    }
+
+    private static class ErrorBody {
+        private String errorId;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+import com.nike.cerberus.client.model.CerberusAuthResponse;
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
+import com.nike.cerberus.client.model.CerberusListResponse;
+import com.nike.cerberus.client.model.CerberusResponse;
+import com.nike.cerberus.client.model.SecureFileSummary;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the CerberusTypeAdapterFactory class
+ */
+public class CerberusTypeAdapterFactoryTest {
+
+    private final Gson reflectiveGson = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .disableHtmlEscaping()
+            .registerTypeAdapter(DateTime.class,
+                    (JsonDeserializer<DateTime>) (json, typeOfT, context) -> new DateTime(json.getAsString()))
+            .registerTypeAdapter(DateTime.class,
+                    (JsonSerializer<DateTime>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toString()))
+            .create();
+
+    private final Gson adapterGson = new GsonBuilder()
+            .disableHtmlEscaping()
+            .registerTypeAdapterFactory(new CerberusTypeAdapterFactory())
+            .create();
+
+    @Test
+    public void create_returns_adapters_for_model_classes_only() {
+        assertThat(adapterGson.getAdapter(CerberusResponse.class)).isNotNull();
+        assertThat(adapterGson.getAdapter(CerberusListResponse.class)).isNotNull();
+        assertThat(adapterGson.getAdapter(CerberusListFilesResponse.class)).isNotNull();
+        assertThat(adapterGson.getAdapter(SecureFileSummary.class)).isNotNull();
+        assertThat(adapterGson.getAdapter(CerberusAuthResponse.class)).isNotNull();
+
+        final CerberusTypeAdapterFactory factory = new CerberusTypeAdapterFactory();
+        assertThat(factory.create(adapterGson, TypeToken.get(String.class))).isNull();
+    }
+
+    @Test
+    public void read_of_secret_matches_reflective_binding() {
+        assertParsesLikeReflection(
+                "{\"data\":{\"username\":\"alice\",\"count\":42,\"enabled\":true,\"empty\":null},\"lease_id\":\"x\"}",
+                CerberusResponse.class);
+    }
+
+    @Test
+    public void read_of_keys_matches_reflective_binding() {
+        assertParsesLikeReflection("{\"keys\":[\"a\",\"b/\",null],\"other\":{\"x\":[1,2]}}", CerberusListResponse.class);
+        assertParsesLikeReflection("{\"keys\":null}", CerberusListResponse.class);
+    }
+
+    @Test
+    public void read_of_file_listing_matches_reflective_binding() {
+        final String json = "{\"has_next\":true,\"next_offset\":2,\"limit\":2,\"offset\":0," +
+                "\"file_count_in_result\":2,\"total_file_count\":3,\"unknown\":[{\"a\":1}]," +
+                "\"secure_file_summaries\":[" +
+                "{\"sdbox_id\":\"sdb\",\"path\":\"app/sdb/a.pem\",\"size_in_bytes\":1024,\"name\":\"a.pem\"," +
+                "\"created_by\":\"bob\",\"created_ts\":\"2018-01-02T03:04:05.678Z\"," +
+                "\"last_updated_by\":\"carol\",\"last_updated_ts\":\"2018-02-03T04:05:06.789-08:00\"}," +
+                "{\"sdbox_id\":\"sdb\",\"path\":\"app/sdb/b.pem\",\"size_in_bytes\":null,\"created_ts\":null}]}";
+
+        assertParsesLikeReflection(json, CerberusListFilesResponse.class);
+        assertParsesLikeReflection("{\"has_next\":false,\"next_offset\":null}", CerberusListFilesResponse.class);
+    }
+
+    @Test
+    public void read_of_file_listing_in_lazy_and_compact_modes_matches_eager_mode() {
+        final String json = "{\"has_next\":false,\"total_file_count\":3,\"secure_file_summaries\":[" +
+                "{\"sdbox_id\":\"sdb\",\"path\":\"app/sdb/a.pem\",\"size_in_bytes\":1024,\"name\":\"a.pem\"," +
+                "\"created_by\":\"bob\",\"created_ts\":\"2018-01-02T03:04:05.678Z\",\"unknown\":{}," +
+                "\"last_updated_by\":\"carol\",\"last_updated_ts\":\"2018-02-03T04:05:06.789-08:00\"}," +
+                "null," +
+                "{\"sdbox_id\":\"sdb\",\"path\":\"app/sdb/b.pem\",\"size_in_bytes\":null,\"created_ts\":null}]}";
+        final String eager = reflectiveGson.toJson(adapterGson.fromJson(json, CerberusListFilesResponse.class));
+
+        final CerberusListFilesResponse lazy = listingGson(SecureFileListingMode.LAZY_TIMESTAMPS)
+                .fromJson(json, CerberusListFilesResponse.class);
+        final CerberusListFilesResponse compact = listingGson(SecureFileListingMode.COMPACT)
+                .fromJson(json, CerberusListFilesResponse.class);
+
+        assertThat(lazy.getSecureFileSummaries().get(0)).isInstanceOf(LazySecureFileSummary.class);
+        assertThat(reflectiveGson.toJson(materialize(lazy))).isEqualTo(eager);
+        assertThat(compact.getSecureFileSummaries()).isInstanceOf(CompactSecureFileSummaryList.class).hasSize(2);
+        assertThat(compact.getSecureFileSummaries().get(1).getPath()).isEqualTo("app/sdb/b.pem");
+        assertThat(compact.getSecureFileSummaries().get(0).getLastUpdatedTs())
+                .isEqualTo(new DateTime("2018-02-03T04:05:06.789-08:00"));
+    }
+
+    @Test
+    public void write_of_lazy_summary_writes_its_timestamps() {
+        final Gson gson = listingGson(SecureFileListingMode.LAZY_TIMESTAMPS);
+        final String json = "{\"path\":\"a.pem\",\"size_in_bytes\":1,\"created_ts\":\"2018-01-02T03:04:05.678Z\"}";
+
+        final SecureFileSummary summary = gson.fromJson(json, SecureFileSummary.class);
+
+        final String written = gson.toJson(summary);
+
+        assertThat(written).startsWith("{\"path\":\"a.pem\",\"size_in_bytes\":1,\"created_ts\":");
+        assertThat(gson.fromJson(written, SecureFileSummary.class).getCreatedTs())
+                .isEqualTo(new DateTime("2018-01-02T03:04:05.678Z"));
+    }
+
+    @Test
+    public void read_of_auth_response_matches_reflective_binding() {
+        assertParsesLikeReflection("{\"client_token\":\"ABCD\",\"policies\":[\"web\",\"stage\"]," +
+                "\"metadata\":{\"user\":\"armon\"},\"lease_duration\":3600,\"renewable\":true}",
+                CerberusAuthResponse.class);
+    }
+
+    @Test
+    public void write_then_read_round_trips() {
+        final SecureFileSummary summary = new SecureFileSummary()
+                .setSdboxId("sdb")
+                .setPath("app/sdb/a.pem")
+                .setSizeInBytes(7)
+                .setName("a.pem")
+                .setCreatedTs(new DateTime("2018-01-02T03:04:05.678Z"));
+        final CerberusListFilesResponse response = new CerberusListFilesResponse()
+                .setHasNext(true)
+                .setNextOffset(5)
+                .setLimit(5)
+                .setFileCountInResult(1)
+                .setTotalFileCount(9)
+                .setSecureFileSummaries(Collections.singletonList(summary));
+
+        final String json = adapterGson.toJson(response);
+
+        assertThat(json).contains("\"secure_file_summaries\"").doesNotContain("last_updated_by");
+        assertThat(reflectiveGson.toJson(adapterGson.fromJson(json, CerberusListFilesResponse.class)))
+                .isEqualTo(reflectiveGson.toJson(response));
+    }
+
+    @Test
+    public void read_of_json_null_returns_null() {
+        assertThat(adapterGson.fromJson("null", CerberusResponse.class)).isNull();
+        assertThat(adapterGson.fromJson("null", CerberusListFilesResponse.class)).isNull();
+    }
+
+    private static Gson listingGson(final SecureFileListingMode listingMode) {
+        return new GsonBuilder()
+                .disableHtmlEscaping()
+                .registerTypeAdapterFactory(new CerberusTypeAdapterFactory(listingMode))
+                .create();
+    }
+
+    /**
+     * Copies lazy summaries into plain ones, with their timestamps parsed, so reflection sees the same fields.
+     */
+    private static CerberusListFilesResponse materialize(final CerberusListFilesResponse response) {
+        final List<SecureFileSummary> summaries = new ArrayList<>();
+        for (SecureFileSummary summary : response.getSecureFileSummaries()) {
+            summaries.add(summary == null ? null : new SecureFileSummary()
+                    .setSdboxId(summary.getSdboxId())
+                    .setPath(summary.getPath())
+                    .setSizeInBytes(summary.getSizeInBytes())
+                    .setName(summary.getName())
+                    .setCreatedBy(summary.getCreatedBy())
+                    .setCreatedTs(summary.getCreatedTs())
+                    .setLastUpdatedBy(summary.getLastUpdatedBy())
+                    .setLastUpdatedTs(summary.getLastUpdatedTs()));
+        }
+        return response.setSecureFileSummaries(summaries);
+    }
+
+    private <T> void assertParsesLikeReflection(final String json, final Class<T> type) {
+        final T expected = reflectiveGson.fromJson(json, type);
+        final T actual = adapterGson.fromJson(json, type);
+
+        assertThat(reflectiveGson.toJson(actual)).isEqualTo(reflectiveGson.toJson(expected));
+    }
+}
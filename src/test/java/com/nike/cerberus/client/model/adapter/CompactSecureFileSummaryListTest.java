@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import com.nike.cerberus.client.model.SecureFileSummary;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the CompactSecureFileSummaryList class
+ */
+public class CompactSecureFileSummaryListTest {
+
+    @Test
+    public void get_returns_summary_with_all_fields() {
+        final CompactSecureFileSummaryList summaries = compactList(1);
+
+        final SecureFileSummary summary = summaries.get(0);
+
+        assertThat(summary.getSdboxId()).isEqualTo("sdb");
+        assertThat(summary.getPath()).isEqualTo("app/sdb/file-0.pem");
+        assertThat(summary.getSizeInBytes()).isEqualTo(100);
+        assertThat(summary.getName()).isEqualTo("file-0.pem");
+        assertThat(summary.getCreatedBy()).isEqualTo("alice");
+        assertThat(summary.getCreatedTs()).isEqualTo(new DateTime("2018-01-02T03:04:05.678Z"));
+        assertThat(summary.getLastUpdatedBy()).isEqualTo("bob");
+        assertThat(summary.getLastUpdatedTs()).isNull();
+    }
+
+    @Test
+    public void append_grows_and_shares_values_equal_to_the_previous_entry() {
+        final CompactSecureFileSummaryList summaries = compactList(100);
+        summaries.trimToSize();
+
+        assertThat(summaries).hasSize(100);
+        assertThat(summaries.stream().map(SecureFileSummary::getPath).collect(Collectors.toList()))
+                .containsExactlyElementsOf(expectedPaths(0, 100));
+        assertThat(summaries.get(99).getSdboxId()).isSameAs(summaries.get(0).getSdboxId());
+        assertThat(summaries.get(99).getCreatedBy()).isSameAs(summaries.get(0).getCreatedBy());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_throws_error_if_index_out_of_range() {
+        compactList(2).get(2);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void list_is_unmodifiable() {
+        compactList(2).add(new SecureFileSummary());
+    }
+
+    @Test
+    public void concat_keeps_compact_representation_when_all_lists_are_compact() {
+        final List<SecureFileSummary> summaries = CompactSecureFileSummaryList.concat(
+                Arrays.asList(compactList(3), new CompactSecureFileSummaryList(), compactList(2)));
+
+        assertThat(summaries).isInstanceOf(CompactSecureFileSummaryList.class).hasSize(5);
+        assertThat(summaries.get(3).getPath()).isEqualTo("app/sdb/file-0.pem");
+    }
+
+    @Test
+    public void concat_copies_into_array_list_when_any_list_is_not_compact() {
+        final SecureFileSummary plainSummary = new SecureFileSummary().setPath("app/sdb/plain.pem");
+
+        final List<SecureFileSummary> summaries = CompactSecureFileSummaryList.concat(
+                Arrays.asList(compactList(2), Collections.singletonList(plainSummary)));
+
+        assertThat(summaries).isInstanceOf(ArrayList.class).hasSize(3);
+        assertThat(summaries.get(2)).isSameAs(plainSummary);
+    }
+
+    private static CompactSecureFileSummaryList compactList(final int size) {
+        final CompactSecureFileSummaryList summaries = new CompactSecureFileSummaryList();
+        for (int i = 0; i < size; i++) {
+            summaries.append(new String("sdb"), "app/sdb/file-" + i + ".pem", 100 + i, "file-" + i + ".pem",
+                    new String("alice"), "2018-01-02T03:04:05.678Z", "bob", null);
+        }
+        return summaries;
+    }
+
+    private static List<String> expectedPaths(final int from, final int to) {
+        final List<String> paths = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            paths.add("app/sdb/file-" + i + ".pem");
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the DateTimeTypeAdapter class
+ */
+public class DateTimeTypeAdapterTest {
+
+    @Test
+    public void parse_matches_joda_for_canonical_timestamps() {
+        final String[] values = {
+                "2018-03-14T17:05:22.123Z",
+                "2018-03-14T17:05:22Z",
+                "2018-02-03T04:05:06.789-08:00",
+                "2018-02-03T04:05:06+05:30",
+                "2016-02-29T23:59:59.999Z",
+                "2000-02-29T00:00:00.000Z",
+                "1969-12-31T23:59:59.999Z",
+                "1970-01-01T00:00:00.000Z",
+                "0001-01-01T00:00:00.000Z",
+                "9999-12-31T23:59:59.999+14:00"
+        };
+
+        for (String value : values) {
+            assertThat(DateTimeTypeAdapter.parse(value)).as(value).isEqualTo(new DateTime(value));
+        }
+    }
+
+    @Test
+    public void parse_matches_joda_for_random_instants() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            final long millis = random.nextLong() % 4_000_000_000_000L;
+            final int offsetMinutes = (random.nextInt(28 * 4) - 12 * 4) * 15;
+            final String value = new DateTime(millis, DateTimeZone.forOffsetMillis(offsetMinutes * 60_000))
+                    .toString();
+
+            assertThat(DateTimeTypeAdapter.parse(value)).as(value).isEqualTo(new DateTime(value));
+        }
+    }
+
+    @Test
+    public void parse_falls_back_to_joda_for_other_iso_forms() {
+        final String[] values = {
+                "2018-03-14",
+                "2018-03-14T17:05",
+                "2018-03-14T17:05:22.1Z",
+                "2018-03-14T17:05:22.123456Z",
+                "2018-03-14T17:05:22.123+0800",
+                "2018-03-14T17:05:22.123"
+        };
+
+        for (String value : values) {
+            assertThat(DateTimeTypeAdapter.parse(value)).as(value).isEqualTo(new DateTime(value));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejects_invalid_dates_like_joda() {
+        DateTimeTypeAdapter.parse("2018-02-30T00:00:00.000Z");
+    }
+}
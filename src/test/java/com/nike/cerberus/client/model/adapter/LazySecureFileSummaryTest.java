@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.client.model.adapter;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the LazySecureFileSummary class
+ */
+public class LazySecureFileSummaryTest {
+
+    @Test
+    public void timestamps_are_parsed_once_on_first_access() {
+        final LazySecureFileSummary summary = new LazySecureFileSummary()
+                .setCreatedTsText("2018-01-02T03:04:05.678Z")
+                .setLastUpdatedTsText("2018-02-03T04:05:06.789-08:00");
+
+        final DateTime createdTs = summary.getCreatedTs();
+
+        assertThat(createdTs).isEqualTo(new DateTime("2018-01-02T03:04:05.678Z"));
+        assertThat(summary.getCreatedTs()).isSameAs(createdTs);
+        assertThat(summary.getLastUpdatedTs()).isEqualTo(new DateTime("2018-02-03T04:05:06.789-08:00"));
+    }
+
+    @Test
+    public void setters_replace_unparsed_timestamps() {
+        final DateTime now = DateTime.now();
+        final LazySecureFileSummary summary = new LazySecureFileSummary()
+                .setCreatedTsText("2018-01-02T03:04:05.678Z")
+                .setLastUpdatedTsText("2018-02-03T04:05:06.789Z");
+
+        summary.setCreatedTs(now).setLastUpdatedTs(null);
+
+        assertThat(summary.getCreatedTs()).isSameAs(now);
+        assertThat(summary.getLastUpdatedTs()).isNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformed_timestamp_is_reported_on_access() {
+        final LazySecureFileSummary summary = new LazySecureFileSummary().setCreatedTsText("yesterday");
+
+        summary.getCreatedTs();
+    }
+}